@@ -0,0 +1,119 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package examples;
+
+import introspector.model.Node;
+import introspector.model.NodeFactory;
+import introspector.model.traverse.TreeSerializer;
+import introspector.model.traverse.WriteTreeTraversal;
+
+import java.io.IOException;
+
+/**
+ * Measures the throughput (nodes per second) of WriteTreeTraversal on deep object graphs: a long linked chain
+ * whose links also reference one shared object (an alias revisited at every level). Deep graphs like this one
+ * overflowed the call stack when the traversal was recursive.
+ * Each round creates the tree again (nodes are created lazily while traversed) and traverses it with a
+ * serializer that just counts the nodes, so no I/O is measured. The first rounds warm up the JIT compiler.
+ * Usage: DeepGraphTraversalBenchmark [chainLength [rounds]]
+ */
+public class DeepGraphTraversalBenchmark {
+
+	/**
+	 * The number of rounds run before measuring
+	 */
+	private static final int WARMUP_ROUNDS = 5;
+
+	public static void main(String... args) throws IOException {
+		int length = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		Link graph = createGraph(length);
+		WriteTreeTraversal traversal = new WriteTreeTraversal();
+		double best = 0;
+		for (int round = -WARMUP_ROUNDS; round < rounds; round++) {
+			NodeCounter counter = new NodeCounter();
+			long start = System.nanoTime();
+			traversal.traverse(NodeFactory.createNode("graph", graph), counter);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			double throughput = counter.nodes / seconds;
+			if (round < 0)
+				continue; // warm-up round
+			best = Math.max(best, throughput);
+			System.out.printf("Round %d: %,d nodes, max depth %,d, %.3f s, %,.0f nodes/s%n",
+					round + 1, counter.nodes, counter.maxDepth, seconds, throughput);
+		}
+		System.out.printf("Best: %,.0f nodes/s%n", best);
+	}
+
+	/**
+	 * Creates a chain of links that all reference the same shared object
+	 */
+	private static Link createGraph(int length) {
+		Shared shared = new Shared();
+		Link first = new Link(0, shared), last = first;
+		for (int i = 1; i < length; i++) {
+			last.next = new Link(i, shared);
+			last = last.next;
+		}
+		return first;
+	}
+
+	/**
+	 * Example class: one link of the chain.
+	 */
+	static class Link {
+		final int id;
+		final Shared shared;
+		Link next;
+
+		Link(int id, Shared shared) {
+			this.id = id;
+			this.shared = shared;
+		}
+	}
+
+	/**
+	 * Example class: the object referenced by every link.
+	 */
+	static class Shared {
+		final String name = "shared";
+		final int[] values = {1, 2, 3};
+	}
+
+	/**
+	 * Serializer that only counts the traversed nodes and the maximum depth
+	 */
+	private static class NodeCounter implements TreeSerializer {
+
+		private long nodes;
+		private int maxDepth;
+
+		@Override
+		public void beginTraverse() {
+		}
+
+		@Override
+		public void endTraverse() {
+		}
+
+		@Override
+		public void beforeTraversing(Node node, int depth, boolean hasBeenVisited) {
+		}
+
+		@Override
+		public void traversing(Node node, int depth, boolean hasBeenVisited) {
+			this.nodes++;
+			this.maxDepth = Math.max(this.maxDepth, depth);
+		}
+
+		@Override
+		public void afterTraversing(Node node, int depth, boolean hasBeenVisited) {
+		}
+	}
+
+}
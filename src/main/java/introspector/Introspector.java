@@ -88,15 +88,13 @@ public class Introspector {
 
 
 	/**
-	 * Compares two trees
+	 * Compares two trees, stopping at the first difference
 	 * @param treeRoot1 the root node of the first tree
 	 * @param treeRoot2 the root node of the second tree
 	 * @return whether the trees are equal or not
 	 */
 	public static boolean compareTrees(Object treeRoot1, Object treeRoot2) {
-		TreeComparator treeComparator = new TreeComparator();
-		Set<Node> modifiedNodes = treeComparator.compareTrees(treeRoot1, treeRoot2);
-		return modifiedNodes.isEmpty();
+		return new TreeComparator().areEqual(treeRoot1, treeRoot2);
 	}
 
 	/**
@@ -0,0 +1,35 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.controller;
+
+import introspector.model.IntrospectorModel;
+
+import javax.swing.*;
+import javax.swing.tree.TreePath;
+
+/**
+ * This controller implements a mechanism to show the current elements of a container in a tree view.
+ * The children of containers are cached when they are first shown, so changes that do not modify the size of
+ * the container (e.g., list.set) are shown after refreshing its node.
+ */
+public class RefreshNodeController {
+
+
+	/**
+	 * Refreshes the selected node in a tree view (the root node, if no node is selected).
+	 * @param tree the JTree whose node is refreshed
+	 */
+	public void refreshSelectedNode(JTree tree) {
+		if (!(tree.getModel() instanceof IntrospectorModel model))
+			return;
+		TreePath path = tree.getSelectionPath();
+		model.refresh(path != null ? path : new TreePath(model.getRoot()));
+	}
+
+
+}
@@ -7,6 +7,7 @@
 
 package introspector.model;
 
+import introspector.model.traverse.ComparisonEngine;
 import introspector.model.traverse.SymmetricPair;
 import introspector.model.traverse.TraverseHelper;
 
@@ -26,15 +27,43 @@ public abstract class AbstractNode implements Node {
 	private final Object value;
 
 	/**
-	 * The name of the node
+	 * The name of the node: a String or, for the elements of containers, a ChildName
+	 * that is only turned into a String when the name is requested
 	 */
-	private final String name;
+	private Object name;
 
 	/**
 	 * The type of the node
 	 */
 	private final Class<?> type;
 
+	/**
+	 * The maximum number of children shown for the containers in the subtree of this node
+	 * (NodeFactory.NO_PAGING if containers are not paged)
+	 */
+	private final int pageSize;
+
+	/**
+	 * The table used to share the nodes of aliased objects in the subtree of this node (null if they are not shared)
+	 */
+	private NodeInterner interner;
+
+	/**
+	 * Whether the structural hash has not been computed yet, it has been computed, or the node has no structural
+	 * hash (see StructuralHash)
+	 */
+	private static final byte HASH_NOT_COMPUTED = 0, HASH_COMPUTED = 1, NO_HASH = 2;
+
+	/**
+	 * The structural hash of the subtree (valid when structuralHashState is HASH_COMPUTED)
+	 */
+	private long structuralHash;
+
+	/**
+	 * Whether the structural hash has been computed (written after structuralHash)
+	 */
+	private volatile byte structuralHashState = HASH_NOT_COMPUTED;
+
 	/**
 	 * Creates a Node that wraps a Java Object
 	 * @param name The name to display the node
@@ -51,9 +80,22 @@ public abstract class AbstractNode implements Node {
 	 * @param type The type of the object
 	 */
 	protected AbstractNode(String name, Object value, Class<?> type) {
+		this(name, value, type, NodeFactory.NO_PAGING);
+	}
+
+	/**
+	 * Creates a Node that wraps a Java Object, whose descendant containers are paged
+	 * @param name The name to display the node
+	 * @param value The object that will be represented as a node
+	 * @param type The type of the object
+	 * @param pageSize The maximum number of children shown for the containers in the subtree
+	 *                 (NodeFactory.NO_PAGING if containers are not paged)
+	 */
+	protected AbstractNode(String name, Object value, Class<?> type, int pageSize) {
 		this.name = name;
 		this.value = value;
 		this.type = type;
+		this.pageSize = pageSize;
 	}
 
 	/**
@@ -61,7 +103,81 @@ public abstract class AbstractNode implements Node {
 	 */
 	@Override
 	public String getName() {
-		return name;
+		return name instanceof ChildName childName ? childName.toString() : (String) name;
+	}
+
+	/**
+	 * Sets the name of an element of a container, computed from the container and the index or key
+	 * (called by NodeFactory)
+	 * @param name The name of the element
+	 */
+	void setChildName(ChildName name) {
+		this.name = name;
+	}
+
+	/**
+	 * @return The name of the node when it is a container element; null otherwise
+	 */
+	ChildName getChildName() {
+		return this.name instanceof ChildName childName ? childName : null;
+	}
+
+	/**
+	 * Returns the hash code of the name of a node, without creating the name of container elements
+	 * @param node The node
+	 * @return The same hash code as node.getName().hashCode()
+	 */
+	static int nameHashCode(Node node) {
+		if (node instanceof AbstractNode abstractNode) {
+			if (abstractNode.name instanceof ChildName childName)
+				return childName.nameHashCode();
+			return abstractNode.name == null ? 0 : abstractNode.name.hashCode();
+		}
+		return node.getName().hashCode();
+	}
+
+	/**
+	 * Whether two nodes have the same name, without creating the names of container elements when possible
+	 * @param node1 One node
+	 * @param node2 Another node
+	 * @return Whether node1.getName() and node2.getName() are equal
+	 */
+	static boolean sameName(Node node1, Node node2) {
+		if (node1 instanceof AbstractNode abstractNode1 && abstractNode1.name instanceof ChildName childName1 &&
+				node2 instanceof AbstractNode abstractNode2 && abstractNode2.name instanceof ChildName childName2)
+			return childName1.sameName(childName2);
+		return Objects.equals(node1.getName(), node2.getName());
+	}
+
+	/**
+	 * Whether the node has a given name, without creating the names of container elements when possible
+	 * @param name The name (String or ChildName)
+	 * @return Whether the name of the node is name
+	 */
+	boolean hasName(Object name) {
+		if (this.name instanceof ChildName childName1 && name instanceof ChildName childName2)
+			return childName1.sameName(childName2);
+		return Objects.equals(this.getName(), name == null ? null : name.toString());
+	}
+
+	/**
+	 * Returns the name of the node relative to its parent: the index or key of container elements
+	 * (e.g., "3" for list[3]), or the whole name otherwise
+	 * @return The relative name
+	 */
+	String getLocalName() {
+		if (this.name instanceof ChildName childName)
+			return childName.getKeyName();
+		return (String) this.name;
+	}
+
+	/**
+	 * Whether this node and node2 have the same name (see {@link #sameName(Node, Node)})
+	 * @param node2 The node to be compared with
+	 * @return Whether both names are equal
+	 */
+	protected boolean hasSameName(Node node2) {
+		return sameName(this, node2);
 	}
 
 	/**
@@ -80,6 +196,30 @@ public abstract class AbstractNode implements Node {
 		return value;
 	}
 
+	/**
+	 * @return The maximum number of children shown for the containers in the subtree of this node
+	 * (NodeFactory.NO_PAGING if containers are not paged)
+	 */
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * @return The table used to share the nodes of aliased objects in the subtree of this node
+	 * (null if they are not shared)
+	 */
+	NodeInterner getInterner() {
+		return interner;
+	}
+
+	/**
+	 * Sets the table used to share the nodes of aliased objects (called by NodeFactory)
+	 * @param interner The table of nodes
+	 */
+	void setInterner(NodeInterner interner) {
+		this.interner = interner;
+	}
+
 	/**
 	 * Returns the child node of the current node.
 	 * Template method to implement {@link Node#getChild(int)}, {@link Node#getChildrenCount()} and
@@ -116,7 +256,7 @@ public abstract class AbstractNode implements Node {
 	public int getIndexOfChild(Object child) {
 		if (child instanceof Node childNode) {
 			for (int i=0; i<this.getChildrenCount(); i++)
-				if (this.getChildren().get(i).getName().equals(childNode.getName()))
+				if (sameName(this.getChildren().get(i), childNode))
 					return i;
 		}
 		return -1; // no child was found
@@ -128,11 +268,12 @@ public abstract class AbstractNode implements Node {
 	 */
 	@Override
 	public String toString() {
-		StringBuilder sb = new StringBuilder(name);
+		StringBuilder sb = new StringBuilder(this.getName());
 		sb.append(" (");
-		sb.append(type.getSimpleName());
+		TypeInfo typeInfo = TypeInfo.of(type);
+		sb.append(typeInfo.getSimpleName());
 		sb.append(")");
-		if (NodeFactory.isBuiltinType(type) || NodeFactory.isEnumType(type))
+		if (typeInfo.isBuiltin() || typeInfo.isEnum())
 			sb.append(": ").append(value);
 		return sb.toString();
 	}
@@ -151,11 +292,40 @@ public abstract class AbstractNode implements Node {
 	}
 
 	/**
-	 * @return The hash code of the name
+	 * @return The hash code of the name (the names of container elements are not created)
 	 */
 	@Override
 	public int hashCode() {
-		return  this.name.hashCode();
+		return nameHashCode(this);
+	}
+
+	/**
+	 * Computes the structural hashes of the subtree the first time it is called. The tree is supposed not to
+	 * change afterwards (e.g., a deep-cloned snapshot).
+	 * @see Node#getStructuralHash()
+	 */
+	@Override
+	public OptionalLong getStructuralHash() {
+		if (this.structuralHashState == HASH_NOT_COMPUTED)
+			StructuralHash.compute(this);
+		return this.structuralHashState == HASH_COMPUTED ? OptionalLong.of(this.structuralHash) : OptionalLong.empty();
+	}
+
+	/**
+	 * @return Whether the structural hash has been computed and the node has one
+	 */
+	boolean hasStructuralHash() {
+		return this.structuralHashState == HASH_COMPUTED;
+	}
+
+	/**
+	 * Sets the structural hash of the node (called by StructuralHash)
+	 * @param hash The structural hash; null if the node has no structural hash
+	 */
+	void setStructuralHash(Long hash) {
+		if (hash != null)
+			this.structuralHash = hash;
+		this.structuralHashState = hash != null ? HASH_COMPUTED : NO_HASH;
 	}
 
 	/**
@@ -173,33 +343,41 @@ public abstract class AbstractNode implements Node {
 	 */
 	@Override
 	public String getClassName() {
-		return this.getType().getName();
+		return TypeInfo.of(this.getType()).getName();
 	}
 
 	/**
+	 * Compares the two trees with a ComparisonEngine, so that no recursion is used
 	 * @see Node#compareTrees(Node, boolean, Set, Set)
 	 */
 	@Override
 	public Set<Node> compareTrees(Node node2, boolean equalName, Set<Node> modifiedNodes, Set<SymmetricPair<Node, Node>> alreadyTraversed) {
+		return new ComparisonEngine(modifiedNodes, alreadyTraversed).compare(this, node2, equalName);
+	}
+
+	/**
+	 * @see Node#compareNode(Node, boolean, ComparisonEngine)
+	 */
+	@Override
+	public void compareNode(Node node2, boolean equalName, ComparisonEngine engine) {
 		// This is the implementation for leaf nodes
-		if (!TraverseHelper.shouldBeTraversed(new SymmetricPair<>(this, node2), alreadyTraversed))
-			return modifiedNodes; // cycle detected
+		if (!TraverseHelper.shouldBeTraversed(this, node2, engine.getAlreadyTraversed()))
+			return; // cycle detected
 		if (this.getValue() == null && node2.getValue() == null)
-			return modifiedNodes;
+			return;
 		if (this.getValue() == null || node2.getValue() == null) {
 			// one of them is null but not the other (first condition above)
-			modifiedNodes.add(this); modifiedNodes.add(node2);
+			engine.modified(this, node2);
 		}
 		else if (!this.getValue().equals(node2.getValue())) {
-			modifiedNodes.add(this); modifiedNodes.add(node2);
+			engine.modified(this, node2);
 		}
 		else if (!this.getType().equals(node2.getType())) {
-			modifiedNodes.add(this); modifiedNodes.add(node2);
+			engine.modified(this, node2);
 		}
-		else if(equalName && !this.getName().equals(node2.getName())) {
-			modifiedNodes.add(this); modifiedNodes.add(node2);
+		else if(equalName && !this.hasSameName(node2)) {
+			engine.modified(this, node2);
 		}
-		return modifiedNodes;
 	}
 
 }
@@ -7,7 +7,7 @@
 
 package introspector.model;
 
-import introspector.model.traverse.SymmetricPair;
+import introspector.model.traverse.ComparisonEngine;
 import introspector.model.traverse.TraverseHelper;
 
 import java.lang.reflect.Array;
@@ -16,93 +16,153 @@ import java.util.*;
 /**
  * ArrayNode provides a Node implementation to represent any value whose type is an array.
  */
-public class ArrayNode extends AbstractNode implements Node  {
+public class ArrayNode extends ContainerNode implements Node  {
 
 	/**
-	 * @see AbstractNode#AbstractNode(String, Object)
+	 * @see ContainerNode#ContainerNode(String, Object)
 	 */
 	public ArrayNode(String name, Object value) {
 		super(name, value);
 	}
 
 	/**
-	 * @see AbstractNode#AbstractNode(String, Object, Class)
+	 * @see ContainerNode#ContainerNode(String, Object, Class)
 	 */
 	public ArrayNode(String name, Object value, Class<?> type) {
 		super(name, value, type);
 	}
 
 	/**
-	 * An array node is not leaf.
-	 *
-	 * @see AbstractNode#isLeaf()
+	 * @see ContainerNode#ContainerNode(String, Object, Class, int)
 	 */
-	@Override
-	public boolean isLeaf() {
-		return false;
+	public ArrayNode(String name, Object value, Class<?> type, int pageSize) {
+		super(name, value, type, pageSize);
 	}
 
 	/**
 	 * An array node has as many children as elements in the array.
-	 * A node is created for each child.
 	 *
-	 * @see AbstractNode#getChildren()
+	 * @see ContainerNode#getContainerSize()
 	 */
 	@Override
-	public List<Node> getChildren() {
-		List<Node> children = new ArrayList<>();
-		if (this.getValue() == null)
-			return children;
-		int length = Array.getLength(getValue());
-		for (int i = 0; i < length; i++) {
-			Object element = Array.get(getValue(), i);
-			if (element == null) {
-				//System.err.printf("Introspector: the array \"%s\" has a null reference in its item number %d.\n", getName(), i);
-				children.add(NodeFactory.createNode(getName() + "[" + i + "]", null, null));
-			} else
-				children.add(NodeFactory.createNode(getName() + "[" + i + "]", element, element.getClass()));
-		}
-		return children;
+	protected int getContainerSize() {
+		return Array.getLength(this.getValue());
 	}
 
+	/**
+	 * A node is created for the element in the index position.
+	 *
+	 * @see ContainerNode#createChild(int)
+	 */
+	@Override
+	protected Node createChild(int index) {
+		Object element = Array.get(this.getValue(), index);
+		if (element == null)
+			//System.err.printf("Introspector: the array \"%s\" has a null reference in its item number %d.\n", getName(), index);
+			return NodeFactory.createChildNode(this, index, null, null);
+		return NodeFactory.createChildNode(this, index, element, element.getClass());
+	}
 
 	/**
-	 * @see Node#compareTrees(Node, boolean, Set, Set)
+	 * @see Node#compareNode(Node, boolean, ComparisonEngine)
 	 */
 	@Override
-	public Set<Node> compareTrees(Node node2, boolean equalName, Set<Node> modifiedNodes, Set<SymmetricPair<Node, Node>> alreadyTraversed) {
-		if (!TraverseHelper.shouldBeTraversed(new SymmetricPair<>(this, node2), alreadyTraversed))
-			return modifiedNodes; // cycle detected
+	public void compareNode(Node node2, boolean equalName, ComparisonEngine engine) {
+		if (!TraverseHelper.shouldBeTraversed(this, node2, engine.getAlreadyTraversed()))
+			return; // cycle detected
 		if (node2 instanceof ArrayNode arrayNode2) {
 			// they must have the same types
 			if (!this.getType().equals(arrayNode2.getType())) {
-				modifiedNodes.add(this);
-				modifiedNodes.add(arrayNode2);
-				return modifiedNodes;
+				engine.modified(this, arrayNode2);
+				return;
 			}
 			// if they are not the root nodes, they must have the same names
-			if (equalName && !this.getName().equals(arrayNode2.getName())) {
-				modifiedNodes.add(this);
-				modifiedNodes.add(arrayNode2);
-				return modifiedNodes;
+			if (equalName && !this.hasSameName(arrayNode2)) {
+				engine.modified(this, arrayNode2);
+				return;
+			}
+			if (engine.isDiffSequences()) {
+				SequenceDiff.compare(this, arrayNode2, engine);
+				return;
 			}
 			List<Node> children1 = this.getChildren();
 			List<Node> children2 = arrayNode2.getChildren();
 			// they must have the same number of children
 			if (children1.size() != children2.size()) {
-				modifiedNodes.add(this);
-				modifiedNodes.add(arrayNode2);
-				return modifiedNodes;
+				engine.modified(this, arrayNode2);
+				return;
 			}
+			if (this.comparePrimitiveElements(arrayNode2, equalName, engine))
+				return;
 			// they must have the same children
 			for (int i = 0; i < children1.size(); i++)
-				children1.get(i).compareTrees(children2.get(i), equalName, modifiedNodes, alreadyTraversed);
-			return modifiedNodes;
+				engine.schedule(children1.get(i), children2.get(i), equalName);
+			return;
 		}
 		// node2 is not an ArrayNode => they are different
-		modifiedNodes.add(this);
-		modifiedNodes.add(node2);
-		return modifiedNodes;
+		engine.modified(this, node2);
+	}
+
+	/**
+	 * Compares the elements of two arrays of the same primitive type with Arrays.mismatch, which is
+	 * intrinsified (vectorized) by the JVM. Only the elements (or rows, in compact arrays) that differ are
+	 * created and compared; the equal ones are skipped with no node (nor boxed value) created.
+	 * @return Whether the arrays have been compared (false if they are not arrays of primitive types
+	 * with the same number of elements per child)
+	 */
+	private boolean comparePrimitiveElements(ArrayNode arrayNode2, boolean equalName, ComparisonEngine engine) {
+		Object array1 = this.getValue(), array2 = arrayNode2.getValue();
+		if (array1 == null || array2 == null || !array1.getClass().getComponentType().isPrimitive())
+			return false;
+		int length1 = Array.getLength(array1), length2 = Array.getLength(array2);
+		// the number of array elements in each element of the node (more than one when they are shown in rows)
+		int perElement1 = this.getContainerSize() == length1 ? 1 : PrimitiveArrayNode.ELEMENTS_PER_ROW;
+		int perElement2 = arrayNode2.getContainerSize() == length2 ? 1 : PrimitiveArrayNode.ELEMENTS_PER_ROW;
+		if (perElement1 != perElement2)
+			return false;
+		int minLength = Math.min(length1, length2), lastCompared = -1;
+		for (int i = mismatch(array1, array2, 0, minLength); i >= 0; i = mismatch(array1, array2, i, minLength)) {
+			int element = i / perElement1;
+			engine.schedule(this.getElement(element), arrayNode2.getElement(element), equalName);
+			lastCompared = element;
+			i = (element + 1) * perElement1; // the next element (or row)
+			if (i >= minLength)
+				break;
+		}
+		// arrays of different lengths with the same number of rows: the last rows are different
+		int lastElement = this.getContainerSize() - 1;
+		if (length1 != length2 && lastCompared != lastElement)
+			engine.schedule(this.getElement(lastElement), arrayNode2.getElement(lastElement), equalName);
+		return true;
+	}
+
+	/**
+	 * Finds the first index where two arrays of the same primitive type differ
+	 * @param array1 The first array
+	 * @param array2 The second array
+	 * @param from The first index compared
+	 * @param to The last index compared (exclusive)
+	 * @return The index of the first mismatch in the range; -1 if there is no mismatch
+	 */
+	private static int mismatch(Object array1, Object array2, int from, int to) {
+		int mismatch;
+		if (array1 instanceof int[] ints)
+			mismatch = Arrays.mismatch(ints, from, to, (int[]) array2, from, to);
+		else if (array1 instanceof double[] doubles)
+			mismatch = Arrays.mismatch(doubles, from, to, (double[]) array2, from, to);
+		else if (array1 instanceof long[] longs)
+			mismatch = Arrays.mismatch(longs, from, to, (long[]) array2, from, to);
+		else if (array1 instanceof byte[] bytes)
+			mismatch = Arrays.mismatch(bytes, from, to, (byte[]) array2, from, to);
+		else if (array1 instanceof char[] chars)
+			mismatch = Arrays.mismatch(chars, from, to, (char[]) array2, from, to);
+		else if (array1 instanceof float[] floats)
+			mismatch = Arrays.mismatch(floats, from, to, (float[]) array2, from, to);
+		else if (array1 instanceof short[] shorts)
+			mismatch = Arrays.mismatch(shorts, from, to, (short[]) array2, from, to);
+		else
+			mismatch = Arrays.mismatch((boolean[]) array1, from, to, (boolean[]) array2, from, to);
+		return mismatch < 0 ? -1 : from + mismatch;
 	}
 
 }
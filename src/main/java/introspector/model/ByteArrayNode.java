@@ -0,0 +1,68 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model;
+
+/**
+ * ByteArrayNode provides a Node implementation to represent arrays of byte (byte[]).
+ * The elements are read directly from the array, without reflection. When the array is big, each row shows the bytes in hexadecimal.
+ */
+public class ByteArrayNode extends PrimitiveArrayNode implements Node {
+
+	/**
+	 * @see PrimitiveArrayNode#PrimitiveArrayNode(String, Object)
+	 */
+	public ByteArrayNode(String name, byte[] value) {
+		super(name, value);
+	}
+
+	/**
+	 * @see PrimitiveArrayNode#PrimitiveArrayNode(String, Object, Class)
+	 */
+	public ByteArrayNode(String name, Object value, Class<?> type) {
+		super(name, value, type);
+	}
+
+	/**
+	 * @see PrimitiveArrayNode#PrimitiveArrayNode(String, Object, Class, int)
+	 */
+	public ByteArrayNode(String name, Object value, Class<?> type, int pageSize) {
+		super(name, value, type, pageSize);
+	}
+
+	/**
+	 * @see PrimitiveArrayNode#getLength()
+	 */
+	@Override
+	protected int getLength() {
+		return ((byte[]) this.getValue()).length;
+	}
+
+	/**
+	 * @see PrimitiveArrayNode#getElementValue(int)
+	 */
+	@Override
+	protected Object getElementValue(int index) {
+		return Byte.valueOf(((byte[]) this.getValue())[index]);
+	}
+
+	/**
+	 * Bytes are shown in hexadecimal (two digits each), separated by spaces.
+	 *
+	 * @see PrimitiveArrayNode#appendRow(StringBuilder, int, int)
+	 */
+	@Override
+	protected void appendRow(StringBuilder sb, int from, int to) {
+		byte[] array = (byte[]) this.getValue();
+		for (int i = from; i < to; i++) {
+			if (i > from)
+				sb.append(' ');
+			sb.append(Character.forDigit((array[i] >> 4) & 0xF, 16)).append(Character.forDigit(array[i] & 0xF, 16));
+		}
+	}
+
+}
@@ -0,0 +1,79 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model;
+
+/**
+ * CharArrayNode provides a Node implementation to represent arrays of char (char[]).
+ * The elements are read directly from the array, without reflection. When the array is big, each row shows the characters as text.
+ */
+public class CharArrayNode extends PrimitiveArrayNode implements Node {
+
+	/**
+	 * @see PrimitiveArrayNode#PrimitiveArrayNode(String, Object)
+	 */
+	public CharArrayNode(String name, char[] value) {
+		super(name, value);
+	}
+
+	/**
+	 * @see PrimitiveArrayNode#PrimitiveArrayNode(String, Object, Class)
+	 */
+	public CharArrayNode(String name, Object value, Class<?> type) {
+		super(name, value, type);
+	}
+
+	/**
+	 * @see PrimitiveArrayNode#PrimitiveArrayNode(String, Object, Class, int)
+	 */
+	public CharArrayNode(String name, Object value, Class<?> type, int pageSize) {
+		super(name, value, type, pageSize);
+	}
+
+	/**
+	 * @see PrimitiveArrayNode#getLength()
+	 */
+	@Override
+	protected int getLength() {
+		return ((char[]) this.getValue()).length;
+	}
+
+	/**
+	 * @see PrimitiveArrayNode#getElementValue(int)
+	 */
+	@Override
+	protected Object getElementValue(int index) {
+		return Character.valueOf(((char[]) this.getValue())[index]);
+	}
+
+	/**
+	 * Characters are shown as text; line breaks, tabs and other control characters are escaped,
+	 * so that each row is shown in one line.
+	 *
+	 * @see PrimitiveArrayNode#appendRow(StringBuilder, int, int)
+	 */
+	@Override
+	protected void appendRow(StringBuilder sb, int from, int to) {
+		char[] array = (char[]) this.getValue();
+		for (int i = from; i < to; i++) {
+			char c = array[i];
+			switch (c) {
+				case '\n' -> sb.append("\\n");
+				case '\r' -> sb.append("\\r");
+				case '\t' -> sb.append("\\t");
+				case '\\' -> sb.append("\\\\");
+				default -> {
+					if (Character.isISOControl(c))
+						sb.append(String.format("\\u%04x", (int) c));
+					else
+						sb.append(c);
+				}
+			}
+		}
+	}
+
+}
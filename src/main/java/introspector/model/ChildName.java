@@ -0,0 +1,184 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+
+/**
+ * The name of a child of a container: the name of its parent followed by its index or key (e.g., list[3]).
+ * The name is not stored as a String; it is computed from the parent and the index or key
+ * the first time it is shown. Names can be compared and hashed without creating their Strings.
+ * The ancestors are traversed iteratively, so names of trees of any depth can be used.
+ */
+final class ChildName {
+
+	/**
+	 * The container node
+	 */
+	private final Node parent;
+
+	/**
+	 * The index (Integer) or key (any object, even null) of the child in the container
+	 */
+	private final Object key;
+
+	/**
+	 * The hash code of the name, cached when it is computed (0 if it has not been computed yet)
+	 */
+	private int hash;
+
+	/**
+	 * The name, cached when it is built (null if it has not been built yet)
+	 */
+	private String name;
+
+	/**
+	 * @param parent The container node
+	 * @param key The index or key of the child in the container
+	 */
+	ChildName(Node parent, Object key) {
+		this.parent = parent;
+		this.key = key;
+	}
+
+	/**
+	 * @return The name of the child: parent[key]. It is cached once it is built.
+	 */
+	@Override
+	public String toString() {
+		String name = this.name;
+		if (name == null)
+			this.name = name = this.buildName();
+		return name;
+	}
+
+	/**
+	 * Builds the name appending the keys of the ancestors that are container elements, from the outermost one.
+	 * The ancestors are traversed iteratively, so the names of trees of any depth can be built.
+	 */
+	private String buildName() {
+		Deque<ChildName> names = new ArrayDeque<>();
+		String prefix = null;
+		for (ChildName childName = this; prefix == null; ) {
+			names.push(childName);
+			ChildName parentName = of(childName.parent);
+			if (parentName == null)
+				prefix = childName.parent.getName();
+			else if (parentName.name != null)
+				prefix = parentName.name;
+			else
+				childName = parentName;
+		}
+		StringBuilder sb = new StringBuilder(prefix);
+		for (ChildName childName : names)
+			sb.append('[').append(childName.key).append(']');
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the hash code of the name, equal to toString().hashCode(), without creating the name
+	 * (String hash codes are computed by appending characters to the hash code of the prefix).
+	 * As in String, it is cached (racy but benign: every thread computes the same value).
+	 * @return The hash code of the name
+	 */
+	int nameHashCode() {
+		int hash = this.hash;
+		return hash != 0 ? hash : this.computeNameHashCode();
+	}
+
+	/**
+	 * Computes the hash code iteratively, from the outermost ancestor whose hash code is known,
+	 * caching the hash codes of the names of the ancestors
+	 */
+	private int computeNameHashCode() {
+		Deque<ChildName> names = new ArrayDeque<>();
+		int hash;
+		for (ChildName childName = this; ; ) {
+			names.push(childName);
+			ChildName parentName = of(childName.parent);
+			if (parentName == null) {
+				hash = AbstractNode.nameHashCode(childName.parent);
+				break;
+			}
+			if (parentName.hash != 0) {
+				hash = parentName.hash;
+				break;
+			}
+			childName = parentName;
+		}
+		for (ChildName childName : names)
+			childName.hash = hash = childName.appendKey(hash);
+		return hash;
+	}
+
+	/**
+	 * Appends "[key]" to a String hash code
+	 */
+	private int appendKey(int hash) {
+		hash = 31 * hash + '[';
+		if (this.key instanceof Integer index && index >= 0)
+			hash = appendDigits(hash, index);
+		else {
+			String keyName = String.valueOf(this.key);
+			for (int i = 0; i < keyName.length(); i++)
+				hash = 31 * hash + keyName.charAt(i);
+		}
+		return 31 * hash + ']';
+	}
+
+	/**
+	 * @return The child name of a node; null if its name is not a child name
+	 */
+	private static ChildName of(Node node) {
+		return node instanceof AbstractNode abstractNode ? abstractNode.getChildName() : null;
+	}
+
+	/**
+	 * @return The index or key, as shown in the name (e.g., "3" for list[3])
+	 */
+	String getKeyName() {
+		return String.valueOf(this.key);
+	}
+
+	/**
+	 * Appends the decimal digits of a non-negative number to a String hash code
+	 */
+	private static int appendDigits(int hash, int number) {
+		if (number >= 10)
+			hash = appendDigits(hash, number / 10);
+		return 31 * hash + ('0' + number % 10);
+	}
+
+	/**
+	 * Whether two child names are equal, comparing their keys and the ones of their ancestors iteratively
+	 * (no name is created, unless one ancestor is a container element and the other one is not)
+	 * @param other The other name
+	 * @return Whether toString() of both names are equal
+	 */
+	boolean sameName(ChildName other) {
+		for (ChildName name1 = this, name2 = other; name1 != name2; ) {
+			if (name1.hash != 0 && name2.hash != 0 && name1.hash != name2.hash)
+				return false;
+			if (name1.key instanceof Integer index1 && name2.key instanceof Integer index2) {
+				if (!index1.equals(index2))
+					return false;
+			}
+			else if (!String.valueOf(name1.key).equals(String.valueOf(name2.key)))
+				return false;
+			ChildName parentName1 = of(name1.parent), parentName2 = of(name2.parent);
+			if (parentName1 == null || parentName2 == null)
+				return Objects.equals(name1.parent.getName(), name2.parent.getName());
+			name1 = parentName1;
+			name2 = parentName2;
+		}
+		return true;
+	}
+
+}
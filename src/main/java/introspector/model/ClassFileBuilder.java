@@ -0,0 +1,176 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ClassFileBuilder writes, in memory, the class files of the hidden classes generated at runtime
+ * (see HiddenClassExtractors and FieldReaders). It holds the constant pool, the fields and the methods of
+ * one class; the code of the methods is written by the generators. The generated code has no branches,
+ * so no stack map frames are needed.
+ */
+final class ClassFileBuilder {
+
+	/**
+	 * Class file version (Java 17)
+	 */
+	private static final int CLASS_FILE_VERSION = 61;
+
+	/**
+	 * The constant pool being written, and the index of each entry already added
+	 */
+	private final ByteArrayOutputStream constantPoolBytes = new ByteArrayOutputStream();
+	private final DataOutputStream constantPool = new DataOutputStream(constantPoolBytes);
+	private final Map<String, Integer> constantIndexes = new HashMap<>();
+	private int constantCount = 1;
+
+	/**
+	 * The fields and methods written so far
+	 */
+	private final ByteArrayOutputStream fieldBytes = new ByteArrayOutputStream(), methodBytes = new ByteArrayOutputStream();
+	private final DataOutputStream fields = new DataOutputStream(fieldBytes), methods = new DataOutputStream(methodBytes);
+	private int fieldCount, methodCount;
+
+	/**
+	 * Adds a field with no attributes
+	 * @param flags the access flags of the field
+	 * @param name the name of the field
+	 * @param descriptor the descriptor of the field type
+	 * @throws IOException never (the class file is written in memory)
+	 */
+	void addField(int flags, String name, String descriptor) throws IOException {
+		this.fields.writeShort(flags);
+		this.fields.writeShort(this.utf8Constant(name));
+		this.fields.writeShort(this.utf8Constant(descriptor));
+		this.fields.writeShort(0); // attributes
+		this.fieldCount++;
+	}
+
+	/**
+	 * Adds a method with its code
+	 * @param flags the access flags of the method
+	 * @param name the name of the method
+	 * @param descriptor the descriptor of the method
+	 * @param maxStack the maximum depth of the operand stack
+	 * @param maxLocals the number of local variables (including the parameters and this)
+	 * @param code the bytecode of the method
+	 * @throws IOException never (the class file is written in memory)
+	 */
+	void addMethod(int flags, String name, String descriptor, int maxStack, int maxLocals, byte[] code) throws IOException {
+		this.methods.writeShort(flags);
+		this.methods.writeShort(this.utf8Constant(name));
+		this.methods.writeShort(this.utf8Constant(descriptor));
+		this.methods.writeShort(1); // attributes
+		this.methods.writeShort(this.utf8Constant("Code"));
+		this.methods.writeInt(12 + code.length);
+		this.methods.writeShort(maxStack);
+		this.methods.writeShort(maxLocals);
+		this.methods.writeInt(code.length);
+		this.methods.write(code);
+		this.methods.writeShort(0); // exception table
+		this.methods.writeShort(0); // attributes
+		this.methodCount++;
+	}
+
+	/**
+	 * Writes the class file
+	 * @param flags the access flags of the class
+	 * @param thisClass the class constant of the class
+	 * @param superClass the class constant of its superclass
+	 * @param interfaceClass the class constant of the interface it implements
+	 * @return the bytes of the class file
+	 * @throws IOException never (the class file is written in memory)
+	 */
+	byte[] write(int flags, int thisClass, int superClass, int interfaceClass) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(0xCAFEBABE);
+		out.writeShort(0);
+		out.writeShort(CLASS_FILE_VERSION);
+		out.writeShort(this.constantCount);
+		this.constantPool.flush();
+		this.constantPoolBytes.writeTo(out);
+		out.writeShort(flags);
+		out.writeShort(thisClass);
+		out.writeShort(superClass);
+		out.writeShort(1); // interfaces
+		out.writeShort(interfaceClass);
+		out.writeShort(this.fieldCount);
+		this.fields.flush();
+		this.fieldBytes.writeTo(out);
+		out.writeShort(this.methodCount);
+		this.methods.flush();
+		this.methodBytes.writeTo(out);
+		out.writeShort(0); // attributes
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	int utf8Constant(String value) throws IOException {
+		Integer index = this.constantIndexes.get("U" + value);
+		if (index != null)
+			return index;
+		this.constantPool.writeByte(1);
+		this.constantPool.writeUTF(value);
+		return this.addConstant("U" + value);
+	}
+
+	int classConstant(String internalName) throws IOException {
+		Integer index = this.constantIndexes.get("C" + internalName);
+		if (index != null)
+			return index;
+		int name = utf8Constant(internalName);
+		this.constantPool.writeByte(7);
+		this.constantPool.writeShort(name);
+		return this.addConstant("C" + internalName);
+	}
+
+	int stringConstant(String value) throws IOException {
+		Integer index = this.constantIndexes.get("S" + value);
+		if (index != null)
+			return index;
+		int utf8 = utf8Constant(value);
+		this.constantPool.writeByte(8);
+		this.constantPool.writeShort(utf8);
+		return this.addConstant("S" + value);
+	}
+
+	/**
+	 * Adds a Fieldref (tag 9) or a Methodref (tag 10) constant
+	 */
+	int memberConstant(int tag, int ownerClass, String name, String descriptor) throws IOException {
+		String key = "M" + tag + ":" + ownerClass + ":" + name + ":" + descriptor;
+		Integer index = this.constantIndexes.get(key);
+		if (index != null)
+			return index;
+		int nameIndex = utf8Constant(name), descriptorIndex = utf8Constant(descriptor);
+		this.constantPool.writeByte(12); // NameAndType
+		this.constantPool.writeShort(nameIndex);
+		this.constantPool.writeShort(descriptorIndex);
+		int nameAndType = this.constantCount++;
+		this.constantPool.writeByte(tag);
+		this.constantPool.writeShort(ownerClass);
+		this.constantPool.writeShort(nameAndType);
+		return this.addConstant(key);
+	}
+
+	private int addConstant(String key) {
+		this.constantIndexes.put(key, this.constantCount);
+		return this.constantCount++;
+	}
+
+	static String internalName(Class<?> type) {
+		return type.getName().replace('.', '/');
+	}
+
+}
@@ -7,102 +7,191 @@
 
 package introspector.model;
 
-import introspector.model.traverse.SymmetricPair;
+import introspector.model.traverse.ComparisonEngine;
 import introspector.model.traverse.TraverseHelper;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 /**
  * CollectionNode provides a Node implementation to represent any value whose type is a java.util.Collection.
  */
-public class CollectionNode extends AbstractNode implements Node  {
+public class CollectionNode extends ContainerNode implements Node  {
 
 	/**
-	 * @see AbstractNode#AbstractNode(String, Object)
+	 * @see ContainerNode#ContainerNode(String, Object)
 	 */
 	public CollectionNode(String name, Object value) {
 		super(name, value);
 	}
 
 	/**
-	 * @see AbstractNode#AbstractNode(String, Object, Class)
+	 * @see ContainerNode#ContainerNode(String, Object, Class)
 	 */
 	public CollectionNode(String name, Object value, Class<?> type) {
 		super(name, value, type);
 	}
 
 	/**
-	 * A collection node is not leaf.
+	 * @see ContainerNode#ContainerNode(String, Object, Class, int)
+	 */
+	public CollectionNode(String name, Object value, Class<?> type, int pageSize) {
+		super(name, value, type, pageSize);
+	}
+
+	/**
+	 * The elements of a collection that does not provide efficient access by index,
+	 * taken once when the first child is created (null if it has not been taken yet).
+	 * It is volatile, since other threads may read it once it is assigned.
+	 */
+	private volatile Object[] elements;
+
+	/**
+	 * The number of children is the size of the collection.
 	 *
-	 * @see AbstractNode#isLeaf()
+	 * @see ContainerNode#getContainerSize()
 	 */
-	public boolean isLeaf() {
-		return false;
+	@Override
+	protected int getContainerSize() {
+		return ((Collection<?>) this.getValue()).size();
 	}
 
 	/**
-	 * Collection node has as many children as elements in the collection.
-	 * A node is created for each child.
+	 * Random-access lists are accessed by index; the elements of the rest of collections
+	 * are copied once to an array.
 	 *
-	 * @see AbstractNode#getChildren()
+	 * @see ContainerNode#createChild(int)
 	 */
 	@Override
-	public List<Node> getChildren() {
-		List<Node> nodes = new ArrayList<>();
-		if (this.getValue() == null)
-			return nodes;
-		Collection<?> fields = (Collection<?>) this.getValue();
-		int index = 0;
-		for (Object field : fields) {
-			if (field == null) {
-				//System.err.printf("Introspector: the collection \"%s\" has a null reference in its item number %d.\n", getName(), index);
-				nodes.add(NodeFactory.createNode(getName() + "[" + index++ + "]", null, null));
-			} else
-				nodes.add(NodeFactory.createNode(getName() + "[" + index++ + "]", field, field.getClass()));
+	protected Node createChild(int index) {
+		Object element;
+		if (this.getValue() instanceof List<?> list && list instanceof RandomAccess)
+			element = list.get(index);
+		else {
+			Object[] elements = this.elements;
+			if (elements == null)
+				this.elements = elements = ((Collection<?>) this.getValue()).toArray();
+			element = elements[index];
 		}
-		return nodes;
+		if (element == null)
+			//System.err.printf("Introspector: the collection \"%s\" has a null reference in its item number %d.\n", getName(), index);
+			return NodeFactory.createChildNode(this, index, null, null);
+		return NodeFactory.createChildNode(this, index, element, element.getClass());
+	}
+
+	/**
+	 * The elements copied must be taken again.
+	 *
+	 * @see ContainerNode#containerChanged()
+	 */
+	@Override
+	protected void containerChanged() {
+		this.elements = null;
 	}
 
 	/**
-	 * @see Node#compareTrees(Node, boolean, Set, Set)
+	 * @see Node#compareNode(Node, boolean, ComparisonEngine)
 	 */
 	@Override
-	public Set<Node> compareTrees(Node node2, boolean equalName, Set<Node> modifiedNodes, Set<SymmetricPair<Node, Node>> alreadyTraversed) {
-		if (!TraverseHelper.shouldBeTraversed(new SymmetricPair<>(this, node2), alreadyTraversed))
-			return modifiedNodes; // cycle detected
+	public void compareNode(Node node2, boolean equalName, ComparisonEngine engine) {
+		if (!TraverseHelper.shouldBeTraversed(this, node2, engine.getAlreadyTraversed()))
+			return; // cycle detected
 		if (node2 instanceof CollectionNode mapNode2) {
 			// they must have the same types
 			if (!this.getType().equals(mapNode2.getType())) {
-				modifiedNodes.add(this);
-				modifiedNodes.add(mapNode2);
-				return modifiedNodes;
+				engine.modified(this, mapNode2);
+				return;
 			}
 			// if they are not the root nodes, they must have the same names
-			if (equalName && !this.getName().equals(mapNode2.getName())) {
-				modifiedNodes.add(this);
-				modifiedNodes.add(mapNode2);
-				return modifiedNodes;
+			if (equalName && !this.hasSameName(mapNode2)) {
+				engine.modified(this, mapNode2);
+				return;
+			}
+			if (this.getValue() instanceof Set<?> && mapNode2.getValue() instanceof Set<?>) {
+				this.compareSets(mapNode2, engine);
+				return;
+			}
+			if (engine.isDiffSequences()) {
+				SequenceDiff.compare(this, mapNode2, engine);
+				return;
 			}
 			List<Node> children1 = this.getChildren();
 			List<Node> children2 = mapNode2.getChildren();
 			// they may not have the same number of children
 			if (children1.size() != children2.size()) {
-				modifiedNodes.add(this);
-				modifiedNodes.add(mapNode2);
+				engine.modified(this, mapNode2);
 			}
 			int minChildrenCount = Math.min(children1.size(), children2.size());
 			for (int i = 0; i < minChildrenCount; i++)
-				children1.get(i).compareTrees(children2.get(i), equalName, modifiedNodes, alreadyTraversed);
-			TraverseHelper.addNewChildren(children1, children2, modifiedNodes);
-			return modifiedNodes;
+				engine.schedule(children1.get(i), children2.get(i), equalName);
+			engine.addNewChildren(children1, children2);
+			return;
 		}
 		// node2 is not a Collection => they are different
-		modifiedNodes.add(this);
-		modifiedNodes.add(node2);
-		return modifiedNodes;
+		engine.modified(this, node2);
+	}
+
+	/**
+	 * Sets are compared regardless of the order of their elements. The structural hashes of the elements
+	 * (see {@link Node#getStructuralHash()}), indexed in a HashMap, select the candidate pairs, and each pair
+	 * is matched only if its elements are actually equal ({@link ComparisonEngine#confirmEqual(Node, Node)}).
+	 * The elements not matched (including those with no structural hash) are compared by position, and the
+	 * rest of them are new (modified nodes).
+	 * Since the elements are not in the same position, their names are not compared.
+	 */
+	private void compareSets(CollectionNode setNode2, ComparisonEngine engine) {
+		int size1 = this.getContainerSize(), size2 = setNode2.getContainerSize();
+		// they may not have the same number of elements
+		if (size1 != size2) {
+			engine.modified(this, setNode2);
+		}
+		// the elements of the second set with the same hash are chained (the first one is in the map)
+		Map<Long, Integer> firstIndexes2 = new HashMap<>(Math.max(16, (int) (size2 / 0.75f) + 1));
+		int[] nextIndexes2 = new int[size2];
+		boolean[] matched2 = new boolean[size2];
+		for (int j = size2 - 1; j >= 0; j--) {
+			OptionalLong hash = setNode2.getElement(j).getStructuralHash();
+			if (hash.isPresent()) {
+				Integer next = firstIndexes2.put(hash.getAsLong(), j);
+				nextIndexes2[j] = next == null ? -1 : next;
+			}
+		}
+		List<Node> unmatched1 = new ArrayList<>();
+		for (int i = 0; i < size1; i++) {
+			Node element1 = this.getElement(i);
+			OptionalLong hash = element1.getStructuralHash();
+			Integer first = hash.isPresent() ? firstIndexes2.get(hash.getAsLong()) : null;
+			// the elements with the same hash are candidates, until one of them is actually equal to element1
+			int previous = -1, j = first == null ? -1 : first;
+			while (j >= 0 && !engine.confirmEqual(element1, setNode2.getElement(j))) {
+				previous = j;
+				j = nextIndexes2[j];
+			}
+			if (j < 0) {
+				unmatched1.add(element1);
+				continue;
+			}
+			// element1 is equal to the j-th element of the second set, which is removed from the chain
+			matched2[j] = true;
+			if (previous >= 0)
+				nextIndexes2[previous] = nextIndexes2[j];
+			else if (nextIndexes2[j] >= 0)
+				firstIndexes2.put(hash.getAsLong(), nextIndexes2[j]);
+			else
+				firstIndexes2.remove(hash.getAsLong());
+		}
+		int j = 0;
+		for (Node element1 : unmatched1) {
+			while (j < size2 && matched2[j])
+				j++;
+			if (j < size2)
+				engine.schedule(element1, setNode2.getElement(j++), false);
+			else
+				engine.removed(element1);
+		}
+		// the remaining elements of the second set are new
+		for (; j < size2; j++)
+			if (!matched2[j])
+				engine.added(setNode2.getElement(j));
 	}
 
 }
@@ -0,0 +1,275 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntFunction;
+
+/**
+ * ContainerNode is the base class of the nodes that represent containers (collections, arrays and maps).
+ * Their children are not created when the node is created, but when they are requested by index.
+ * The number of children is taken from the container, and the children created are cached.
+ * As the children of ObjectNodes, the cached children are snapshots: they show the elements as they were when
+ * they were first requested. The cache is discarded when the size of the container changes; other changes
+ * (e.g., list.set or replacing the value of a map entry) are shown after calling {@link #refresh()}.
+ * When the node has a page size and the container is bigger, its children are {@link RangeNode}s
+ * that group the elements in pages.
+ * The caches of nodes may be accessed by different threads (see ParallelTreeComparator): the arrays and
+ * the nodes in them are published with compare-and-exchange operations, so all the threads use the same nodes.
+ */
+public abstract class ContainerNode extends AbstractNode implements Node {
+
+	/**
+	 * The nodes of the elements already created (null if no element has been requested yet).
+	 * The length of the array is the size of the container when it was created.
+	 */
+	private volatile Node[] elementsCache;
+
+	/**
+	 * The range nodes already created when the container is paged (null if no range has been requested yet)
+	 */
+	private volatile Node[] rangesCache;
+
+	/**
+	 * Handles to publish the caches and the nodes in them
+	 */
+	private static final VarHandle ELEMENTS_CACHE, RANGES_CACHE,
+			NODES = MethodHandles.arrayElementVarHandle(Node[].class);
+
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			ELEMENTS_CACHE = lookup.findVarHandle(ContainerNode.class, "elementsCache", Node[].class);
+			RANGES_CACHE = lookup.findVarHandle(ContainerNode.class, "rangesCache", Node[].class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * The read-only view of the children returned by getChildren (created once)
+	 */
+	private List<Node> childrenView;
+
+	/**
+	 * @see AbstractNode#AbstractNode(String, Object)
+	 */
+	protected ContainerNode(String name, Object value) {
+		super(name, value);
+	}
+
+	/**
+	 * @see AbstractNode#AbstractNode(String, Object, Class)
+	 */
+	protected ContainerNode(String name, Object value, Class<?> type) {
+		super(name, value, type);
+	}
+
+	/**
+	 * @see AbstractNode#AbstractNode(String, Object, Class, int)
+	 */
+	protected ContainerNode(String name, Object value, Class<?> type, int pageSize) {
+		super(name, value, type, pageSize);
+	}
+
+	/**
+	 * A container node is not leaf.
+	 *
+	 * @see Node#isLeaf()
+	 */
+	@Override
+	public boolean isLeaf() {
+		return false;
+	}
+
+	/**
+	 * Returns the number of elements in the container, without creating any node.
+	 * @return The size of the container (the value is not null)
+	 */
+	protected abstract int getContainerSize();
+
+	/**
+	 * Creates the node of one element in the container.
+	 * Called once per index, unless the size of the container changes.
+	 * @param index The index of the element (the value is not null and the index is within bounds)
+	 * @return The node representing the element
+	 */
+	protected abstract Node createChild(int index);
+
+	/**
+	 * Notifies that the elements of the container may have changed (its size has changed or the node has been
+	 * refreshed), so any data computed from the elements (e.g., a snapshot of a non-indexed collection)
+	 * must be computed again.
+	 */
+	protected void containerChanged() {
+	}
+
+	/**
+	 * Returns the nodes created so far, discarding them if the size of the container has changed
+	 */
+	private Node[] getElementsCache() {
+		int size = this.getContainerSize();
+		Node[] elements = this.elementsCache;
+		if (elements != null && elements.length == size)
+			return elements;
+		Node[] newElements = new Node[size];
+		Node[] witness = (Node[]) ELEMENTS_CACHE.compareAndExchange(this, elements, newElements);
+		if (witness != elements)
+			return witness; // another thread has created the cache
+		if (elements != null)
+			this.containerChanged();
+		this.rangesCache = null;
+		return newElements;
+	}
+
+	/**
+	 * Discards the children created, so that they are created again from the current elements of the container
+	 * when they are requested. It is used to show the changes of the container that do not modify its size.
+	 * The structural hashes already computed (see {@link Node#getStructuralHash()}) are not updated.
+	 */
+	public void refresh() {
+		this.elementsCache = null;
+		this.rangesCache = null;
+		this.containerChanged();
+	}
+
+	/**
+	 * Returns the node cached in one position or, if there is none, the one created (only one node is cached
+	 * when different threads create it)
+	 */
+	private static Node cachedNode(Node[] cache, int index, IntFunction<Node> factory) {
+		Node node = (Node) NODES.getAcquire(cache, index);
+		if (node != null)
+			return node;
+		node = factory.apply(index);
+		Node witness = (Node) NODES.compareAndExchangeRelease(cache, index, null, node);
+		return witness == null ? node : witness;
+	}
+
+	/**
+	 * Returns the number of elements grouped by each child of this node
+	 * @param size The size of the container
+	 * @return 1 when the container is not paged; otherwise, the smallest power of the page size
+	 * that produces no more children than the page size
+	 */
+	private int getElementsPerChild(int size) {
+		int pageSize = this.getPageSize();
+		if (pageSize == NodeFactory.NO_PAGING || size <= pageSize)
+			return 1;
+		long elementsPerChild = pageSize;
+		while ((size + elementsPerChild - 1) / elementsPerChild > pageSize)
+			elementsPerChild *= pageSize;
+		return (int) elementsPerChild;
+	}
+
+	/**
+	 * Returns the name of a range node that groups some children of this container
+	 * @param from The index of the first child in the range
+	 * @param to The index of the last child in the range
+	 * @return The name of the container followed by the range (e.g., list[1000..1999])
+	 */
+	String getRangeName(int from, int to) {
+		return this.getName() + "[" + from + ".." + to + "]";
+	}
+
+	/**
+	 * Returns the node of one element of the container (not the index-th child, when the container is paged)
+	 * @param index The index of the element
+	 * @return The node of the element; null if the index is out of bounds
+	 */
+	Node getElement(int index) {
+		if (this.getValue() == null || index < 0)
+			return null;
+		Node[] elements = this.getElementsCache();
+		if (index >= elements.length)
+			return null;
+		return cachedNode(elements, index, this::createChild);
+	}
+
+	/**
+	 * The number of children is the size of the container (or its number of pages), so no node is created.
+	 *
+	 * @see Node#getChildrenCount()
+	 */
+	@Override
+	public int getChildrenCount() {
+		if (this.getValue() == null)
+			return 0;
+		int size = this.getContainerSize();
+		int elementsPerChild = this.getElementsPerChild(size);
+		return elementsPerChild == 1 ? size : (size + elementsPerChild - 1) / elementsPerChild;
+	}
+
+	/**
+	 * Only the requested child is created (and cached).
+	 *
+	 * @see Node#getChild(int)
+	 */
+	@Override
+	public Node getChild(int index) {
+		if (this.getValue() == null || index < 0)
+			return null;
+		int size = this.getElementsCache().length;
+		int elementsPerChild = this.getElementsPerChild(size);
+		if (elementsPerChild == 1)
+			return this.getElement(index);
+		// paged container
+		Node[] ranges = this.rangesCache;
+		if (ranges == null) {
+			Node[] witness = (Node[]) RANGES_CACHE.compareAndExchange(this, null,
+					ranges = new Node[(size + elementsPerChild - 1) / elementsPerChild]);
+			if (witness != null)
+				ranges = witness;
+		}
+		if (index >= ranges.length)
+			return null;
+		return cachedNode(ranges, index, rangeIndex -> {
+			int from = rangeIndex * elementsPerChild;
+			int to = (int) Math.min(size - 1, (long) from + elementsPerChild - 1);
+			return new RangeNode(this, from, to, elementsPerChild / this.getPageSize());
+		});
+	}
+
+	/**
+	 * A container has as many children as elements in the container.
+	 * The list returned is a view of the children: they are created as they are accessed.
+	 *
+	 * @see AbstractNode#getChildren()
+	 */
+	@Override
+	public List<Node> getChildren() {
+		if (this.childrenView == null)
+			this.childrenView = new ChildrenView();
+		return this.childrenView;
+	}
+
+	/**
+	 * Read-only list of the children of the container, created on demand
+	 */
+	private class ChildrenView extends AbstractList<Node> implements RandomAccess {
+
+		@Override
+		public Node get(int index) {
+			Node child = ContainerNode.this.getChild(index);
+			if (child == null)
+				throw new IndexOutOfBoundsException(index);
+			return child;
+		}
+
+		@Override
+		public int size() {
+			return ContainerNode.this.getChildrenCount();
+		}
+
+	}
+
+}
@@ -0,0 +1,68 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model;
+
+/**
+ * DoubleArrayNode provides a Node implementation to represent arrays of double (double[]).
+ * The elements are read directly from the array, without reflection.
+ */
+public class DoubleArrayNode extends PrimitiveArrayNode implements Node {
+
+	/**
+	 * @see PrimitiveArrayNode#PrimitiveArrayNode(String, Object)
+	 */
+	public DoubleArrayNode(String name, double[] value) {
+		super(name, value);
+	}
+
+	/**
+	 * @see PrimitiveArrayNode#PrimitiveArrayNode(String, Object, Class)
+	 */
+	public DoubleArrayNode(String name, Object value, Class<?> type) {
+		super(name, value, type);
+	}
+
+	/**
+	 * @see PrimitiveArrayNode#PrimitiveArrayNode(String, Object, Class, int)
+	 */
+	public DoubleArrayNode(String name, Object value, Class<?> type, int pageSize) {
+		super(name, value, type, pageSize);
+	}
+
+	/**
+	 * @see PrimitiveArrayNode#getLength()
+	 */
+	@Override
+	protected int getLength() {
+		return ((double[]) this.getValue()).length;
+	}
+
+	/**
+	 * @see PrimitiveArrayNode#getElementValue(int)
+	 */
+	@Override
+	protected Object getElementValue(int index) {
+		return Double.valueOf(((double[]) this.getValue())[index]);
+	}
+
+	/**
+	 * Elements are separated by commas.
+	 *
+	 * @see PrimitiveArrayNode#appendRow(StringBuilder, int, int)
+	 */
+	@Override
+	protected void appendRow(StringBuilder sb, int from, int to) {
+		double[] array = (double[]) this.getValue();
+		for (int i = from; i < to; i++) {
+			if (i > from)
+				sb.append(", ");
+			sb.append(array[i]);
+		}
+	}
+
+}
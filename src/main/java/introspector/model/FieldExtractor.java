@@ -0,0 +1,26 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model;
+
+/**
+ * A FieldExtractor reads all the fields of an object in one single call.
+ * Implementations are hidden classes generated at runtime for the classes that are most frequently
+ * introspected (see {@link NodeFactory#setHotClassThreshold(int)}).
+ * It is public because the generated classes, which belong to the package of the introspected class, implement it.
+ */
+public interface FieldExtractor {
+
+	/**
+	 * Reads the values of the fields of an object
+	 * @param object the object whose fields are read
+	 * @param values the buffer where the values are stored, in the same order as in the field layout of the class
+	 *               (primitive values are boxed)
+	 */
+	void extract(Object object, Object[] values);
+
+}
@@ -0,0 +1,270 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * FieldLayout holds the fields of a class (including the inherited ones) that are shown as children of an ObjectNode.
+ * The layout is computed once per class and shared by all the nodes (and threads) that wrap instances of that class.
+ * Fields are ordered from the class to its superclasses, they are made accessible and the names of the
+ * shadowed fields (repeated in a superclass) are disambiguated with the name of the class that declares them.
+ * Each field is read with the {@link FieldReader} provided by {@link FieldReaders} (or by the factory plugged
+ * when the layout was computed), or with the
+ * {@link IntrospectionAdapter} generated at compile time for the classes annotated with {@link Introspectable}. When the number of instances
+ * of the class whose fields have been read reaches a threshold, a {@link FieldExtractor} is generated to read
+ * all the fields in one call (unless the readers were plugged, since the extractor would not use them).
+ */
+final class FieldLayout {
+
+	/**
+	 * The layout of each class, lazily computed the first time it is requested.
+	 */
+	private static final ClassValue<FieldLayout> LAYOUTS = new ClassValue<>() {
+		@Override
+		protected FieldLayout computeValue(Class<?> type) {
+			return new FieldLayout(type);
+		}
+	};
+
+	/**
+	 * Default number of instances read before generating the extractor of a class
+	 */
+	static final int DEFAULT_HOT_CLASS_THRESHOLD = 1_000;
+
+	/**
+	 * Number of instances read before generating the extractor of a class (zero or negative to disable it)
+	 */
+	private static volatile int hotClassThreshold = DEFAULT_HOT_CLASS_THRESHOLD;
+
+	/**
+	 * The fields of the class and its superclasses, in the order they are shown
+	 * (null for the fields read with an introspection adapter)
+	 */
+	private final Field[] fields;
+
+	/**
+	 * The types of the fields (same index as in fields)
+	 */
+	private final Class<?>[] types;
+
+	/**
+	 * Whether some fields are read with an introspection adapter instead of reflection
+	 */
+	private final boolean hasAdaptedFields;
+
+	/**
+	 * Whether the readers were created by a factory plugged with NodeFactory.setFieldReaderFactory
+	 */
+	private final boolean hasPluggedReaders;
+
+	/**
+	 * The names used to display each field (same index as in fields)
+	 */
+	private final String[] names;
+
+	/**
+	 * The readers used to obtain the value of each field (same index as in fields)
+	 */
+	private final FieldReader[] readers;
+
+	/**
+	 * Number of instances whose fields have been read with the readers
+	 */
+	private final AtomicInteger instancesRead = new AtomicInteger();
+
+	/**
+	 * Whether the extractor has already been requested (it is generated once)
+	 */
+	private final AtomicBoolean extractorRequested = new AtomicBoolean();
+
+	/**
+	 * Whether the extractor generation has finished (successfully or not)
+	 */
+	private volatile boolean extractorGenerated;
+
+	/**
+	 * The extractor used for hot classes (null if not generated or it could not be generated)
+	 */
+	private volatile FieldExtractor extractor;
+
+	/**
+	 * The buffer where the extractor stores the field values, reused by each thread
+	 */
+	private final ThreadLocal<Object[]> buffers = ThreadLocal.withInitial(() -> new Object[this.getFieldCount()]);
+
+	/**
+	 * Computes the layout of one class
+	 * @param type the class whose fields are collected
+	 */
+	private FieldLayout(Class<?> type) {
+		List<Field> fieldList = new ArrayList<>();
+		List<Class<?>> typeList = new ArrayList<>();
+		List<String> nameList = new ArrayList<>();
+		List<FieldReader> readerList = new ArrayList<>();
+		Set<String> namesAlreadyUsed = new HashSet<>();
+		boolean adapted = false;
+		Function<Field, FieldReader> readerFactory = FieldReaders.getFactory();
+		Class<?> klass = type;
+		do {
+			IntrospectionAdapter<Object> adapter = findAdapter(klass);
+			if (adapter != null) {
+				// the fields of the class are read with the adapter generated at compile time (no reflection)
+				adapted = true;
+				String[] adapterNames = adapter.getFieldNames();
+				Class<?>[] adapterTypes = adapter.getFieldTypes();
+				for (int i = 0; i < adapterNames.length; i++) {
+					int adapterIndex = i;
+					fieldList.add(null);
+					typeList.add(adapterTypes[i]);
+					nameList.add(uniqueName(adapterNames[i], klass, namesAlreadyUsed));
+					readerList.add(object -> adapter.getFieldValue(object, adapterIndex));
+				}
+			}
+			else
+				for (Field field : klass.getDeclaredFields()) {
+					if (field.getName().equals(ObjectNode.FIELD_NAME_ADDED_BY_INTELLIJ))
+						// one field is added by IntelliJ to store the number of lines covered (should not be included)
+						continue;
+					// if it is not possible (e.g., module restrictions), reading the field will report the error
+					field.trySetAccessible();
+					fieldList.add(field);
+					typeList.add(field.getType());
+					nameList.add(uniqueName(field.getName(), klass, namesAlreadyUsed));
+					readerList.add(FieldReaders.create(field, readerFactory));
+				}
+			klass = klass.getSuperclass();
+		} while (klass != null);
+		this.fields = fieldList.toArray(new Field[0]);
+		this.types = typeList.toArray(new Class<?>[0]);
+		this.names = nameList.toArray(new String[0]);
+		this.readers = readerList.toArray(new FieldReader[0]);
+		this.hasAdaptedFields = adapted;
+		this.hasPluggedReaders = readerFactory != null;
+	}
+
+	/**
+	 * Returns the name used to display a field
+	 * @param fieldName the name of the field
+	 * @param declaringClass the class that declares the field
+	 * @param namesAlreadyUsed the names of the fields in the subclasses
+	 * @return the name of the field, followed by the name of its class when it is shadowed
+	 */
+	private static String uniqueName(String fieldName, Class<?> declaringClass, Set<String> namesAlreadyUsed) {
+		if (namesAlreadyUsed.add(fieldName))
+			return fieldName;
+		// the field name is repeated (inherited from a superclass)
+		return fieldName + ":" + declaringClass.getName();
+	}
+
+	/**
+	 * Returns the introspection adapter of a class annotated with Introspectable
+	 * @param klass the class whose adapter is searched
+	 * @return the adapter; null if the class is not annotated or it was not compiled with the annotation processor
+	 */
+	@SuppressWarnings("unchecked")
+	private static IntrospectionAdapter<Object> findAdapter(Class<?> klass) {
+		if (!klass.isAnnotationPresent(Introspectable.class))
+			return null;
+		try {
+			Class<?> adapterClass = Class.forName(klass.getName() + IntrospectionAdapter.CLASS_NAME_SUFFIX, true, klass.getClassLoader());
+			return (IntrospectionAdapter<Object>) adapterClass.getConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError | ClassCastException exception) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the (cached) layout of a class
+	 * @param type the class whose layout is requested
+	 * @return the layout of the class
+	 */
+	static FieldLayout of(Class<?> type) {
+		return LAYOUTS.get(type);
+	}
+
+	/**
+	 * @return the number of fields in the layout
+	 */
+	int getFieldCount() {
+		return this.fields.length;
+	}
+
+	/**
+	 * @param index the position of the field in the layout
+	 * @return the index-th field of the layout (null if it is read with an introspection adapter)
+	 */
+	Field getField(int index) {
+		return this.fields[index];
+	}
+
+	/**
+	 * @param index the position of the field in the layout
+	 * @return the type of the index-th field
+	 */
+	Class<?> getFieldType(int index) {
+		return this.types[index];
+	}
+
+	/**
+	 * @param index the position of the field in the layout
+	 * @return the name used to display the index-th field
+	 */
+	String getName(int index) {
+		return this.names[index];
+	}
+
+	/**
+	 * @param index the position of the field in the layout
+	 * @return the reader used to obtain the value of the index-th field
+	 */
+	FieldReader getReader(int index) {
+		return this.readers[index];
+	}
+
+	/**
+	 * Returns the extractor of the class, counting the instance whose fields are about to be read.
+	 * The extractor is generated when the count reaches the hot class threshold.
+	 * @return the extractor; null if the class is not hot yet or its extractor could not be generated
+	 */
+	FieldExtractor getExtractor() {
+		if (this.extractorGenerated)
+			return this.extractor;
+		int threshold = hotClassThreshold;
+		if (threshold <= 0 || this.fields.length == 0 || this.hasAdaptedFields || this.hasPluggedReaders)
+			return null;
+		if (this.instancesRead.incrementAndGet() >= threshold && this.extractorRequested.compareAndSet(false, true)) {
+			this.extractor = HiddenClassExtractors.generate(this.fields);
+			this.extractorGenerated = true;
+		}
+		return this.extractor;
+	}
+
+	/**
+	 * @return the buffer of the current thread where the extractor stores the values of the fields
+	 */
+	Object[] getBuffer() {
+		return this.buffers.get();
+	}
+
+	/**
+	 * Sets the number of instances of one class whose fields are read before generating its extractor
+	 * @param threshold the number of instances (zero or negative to disable extractors)
+	 */
+	static void setHotClassThreshold(int threshold) {
+		hotClassThreshold = threshold;
+	}
+
+}
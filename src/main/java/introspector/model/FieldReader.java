@@ -0,0 +1,28 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model;
+
+/**
+ * A FieldReader reads the value of one field of an object.
+ * ObjectNode uses one FieldReader per field to obtain its children, so that the mechanism used to read
+ * fields (reflection, method handles...) can be plugged without changing the nodes.
+ * By default, the readers are provided by FieldReaders; other readers can be plugged with
+ * {@link NodeFactory#setFieldReaderFactory(java.util.function.Function)}.
+ */
+@FunctionalInterface
+public interface FieldReader {
+
+	/**
+	 * Reads the value of the field in the given object
+	 * @param object the object whose field is read (ignored for static fields)
+	 * @return the value of the field (primitive values are boxed)
+	 * @throws ReflectiveOperationException if the field cannot be read
+	 */
+	Object read(Object object) throws ReflectiveOperationException;
+
+}
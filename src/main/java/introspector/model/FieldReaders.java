@@ -0,0 +1,263 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.util.function.Function;
+
+/**
+ * FieldReaders creates the FieldReader objects used to read the fields of a class.
+ * Method handles are used when possible, since they do not perform access checks on each invocation;
+ * otherwise, it falls back to the record component accessors (records in non-open packages) and,
+ * finally, to reflection. Each method handle is stored in a static final field of its own hidden class
+ * (passed as class data), so the JIT compiler treats it as a constant and inlines the field access.
+ * The factory plugged with NodeFactory.setFieldReaderFactory, if any, is asked first.
+ */
+final class FieldReaders {
+
+	/**
+	 * The type of the method handles wrapped by the readers: (Object)Object
+	 */
+	private static final MethodType READER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+	/**
+	 * The class file of the hidden classes that hold one constant method handle (see ConstantReaderWriter)
+	 */
+	private static final byte[] CONSTANT_READER_CLASS_FILE = ConstantReaderWriter.write();
+
+	/**
+	 * The factory of the readers plugged by the user (null to use the default readers)
+	 */
+	private static volatile Function<Field, FieldReader> factory;
+
+	/**
+	 * Utility class
+	 */
+	private FieldReaders() {}
+
+	/**
+	 * Sets the factory of the readers used by the layouts computed from now on
+	 * @param readerFactory returns the reader of a field (or null to use the default one); null to use the default readers
+	 */
+	static void setFactory(Function<Field, FieldReader> readerFactory) {
+		factory = readerFactory;
+	}
+
+	/**
+	 * @return the factory of the readers plugged by the user; null if the default readers are used
+	 */
+	static Function<Field, FieldReader> getFactory() {
+		return factory;
+	}
+
+	/**
+	 * Creates the reader of the given field with the given factory
+	 * @param field the field to be read
+	 * @param readerFactory the factory plugged by the user (null to use the default readers)
+	 * @return the reader returned by the factory; the default reader if there is no factory or it returns null
+	 */
+	static FieldReader create(Field field, Function<Field, FieldReader> readerFactory) {
+		FieldReader reader = readerFactory == null ? null : readerFactory.apply(field);
+		return reader != null ? reader : create(field);
+	}
+
+	/**
+	 * Creates the fastest reader available for the given field
+	 * @param field the field to be read
+	 * @return the reader of the field
+	 */
+	static FieldReader create(Field field) {
+		MethodHandle getter = fieldGetter(field);
+		if (getter == null)
+			getter = recordComponentAccessor(field);
+		if (getter == null)
+			return reflective(field);
+		return methodHandle(getter);
+	}
+
+	/**
+	 * Creates a reader that uses reflection (Field.get) to read the field
+	 * @param field the field to be read
+	 * @return the reader of the field
+	 */
+	static FieldReader reflective(Field field) {
+		return field::get;
+	}
+
+	/**
+	 * Creates a reader that invokes a method handle to read the field. The reader is an instance of a
+	 * hidden class whose static final field holds the method handle; if the class cannot be defined,
+	 * the method handle is captured by a lambda expression.
+	 * @param getter a method handle of type (Object)Object
+	 * @return the reader of the field
+	 */
+	static FieldReader methodHandle(MethodHandle getter) {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup()
+					.defineHiddenClassWithClassData(CONSTANT_READER_CLASS_FILE, getter, true);
+			return (FieldReader) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+		} catch (Throwable throwable) {
+			// the method handle is not a constant, but the field is still read
+		}
+		return object -> {
+			try {
+				return getter.invokeExact(object);
+			} catch (RuntimeException | Error | ReflectiveOperationException exception) {
+				throw exception;
+			} catch (Throwable throwable) {
+				throw new ReflectiveOperationException(throwable);
+			}
+		};
+	}
+
+	/**
+	 * Returns a getter method handle of type (Object)Object for the given field
+	 * @param field the field to be read
+	 * @return the method handle; null if the field is not accessible (e.g., module restrictions)
+	 */
+	private static MethodHandle fieldGetter(Field field) {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup());
+			MethodHandle getter = lookup.unreflectGetter(field);
+			if (Modifier.isStatic(field.getModifiers()))
+				// the object parameter is ignored for static fields
+				getter = MethodHandles.dropArguments(getter, 0, Object.class);
+			return getter.asType(READER_TYPE);
+		} catch (IllegalAccessException | SecurityException exception) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns a method handle of type (Object)Object to the public accessor of a record component
+	 * @param field the field of a record
+	 * @return the method handle; null if the field is not a record component or the accessor is not accessible
+	 */
+	private static MethodHandle recordComponentAccessor(Field field) {
+		Class<?> declaringClass = field.getDeclaringClass();
+		if (!declaringClass.isRecord() || Modifier.isStatic(field.getModifiers()))
+			return null;
+		for (RecordComponent component : declaringClass.getRecordComponents())
+			if (component.getName().equals(field.getName()))
+				try {
+					return MethodHandles.publicLookup().unreflect(component.getAccessor()).asType(READER_TYPE);
+				} catch (IllegalAccessException | SecurityException exception) {
+					return null;
+				}
+		return null;
+	}
+
+	/**
+	 * Writes the class file of the hidden classes that hold one constant method handle. The class
+	 * defined with a method handle as class data is equivalent to:
+	 * <pre>
+	 * final class FieldReaders$$ConstantReader implements FieldReader {
+	 *     private static final MethodHandle HANDLE =
+	 *             MethodHandles.classData(MethodHandles.lookup(), "_", MethodHandle.class);
+	 *     public Object read(Object object) {
+	 *         return (Object) HANDLE.invokeExact(object);
+	 *     }
+	 * }
+	 * </pre>
+	 * The getters only throw unchecked exceptions (e.g., ClassCastException), so read does not wrap them.
+	 */
+	private static class ConstantReaderWriter {
+
+		private static final String HANDLE_FIELD = "HANDLE";
+
+		/**
+		 * @return the bytes of the class file
+		 */
+		static byte[] write() {
+			try {
+				ClassFileBuilder builder = new ClassFileBuilder();
+				int thisClass = builder.classConstant(ClassFileBuilder.internalName(FieldReaders.class) + "$$ConstantReader");
+				int superClass = builder.classConstant("java/lang/Object");
+				int interfaceClass = builder.classConstant(ClassFileBuilder.internalName(FieldReader.class));
+				String handleDescriptor = MethodHandle.class.descriptorString();
+				int handleField = builder.memberConstant(9, thisClass, HANDLE_FIELD, handleDescriptor);
+				builder.addField(Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL, HANDLE_FIELD, handleDescriptor);
+				builder.addMethod(Modifier.STATIC, "<clinit>", "()V", 3, 0, staticInitializerCode(builder, handleField));
+				builder.addMethod(Modifier.PUBLIC, "<init>", "()V", 1, 1, constructorCode(builder, superClass));
+				builder.addMethod(Modifier.PUBLIC, "read", "(Ljava/lang/Object;)Ljava/lang/Object;", 2, 2,
+						readCode(builder, handleField));
+				return builder.write(0x0030, thisClass, superClass, interfaceClass); // ACC_FINAL | ACC_SUPER
+			} catch (IOException exception) {
+				// never thrown: the class file is written in memory
+				throw new UncheckedIOException(exception);
+			}
+		}
+
+		/**
+		 * The code of the static initializer: HANDLE = classData(lookup(), "_", MethodHandle.class)
+		 */
+		private static byte[] staticInitializerCode(ClassFileBuilder builder, int handleField) throws IOException {
+			int methodHandlesClass = builder.classConstant(ClassFileBuilder.internalName(MethodHandles.class));
+			String lookupDescriptor = MethodHandles.Lookup.class.descriptorString();
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream code = new DataOutputStream(bytes);
+			code.writeByte(0xB8); // invokestatic
+			code.writeShort(builder.memberConstant(10, methodHandlesClass, "lookup", "()" + lookupDescriptor));
+			code.writeByte(0x13); // ldc_w
+			code.writeShort(builder.stringConstant("_"));
+			code.writeByte(0x13); // ldc_w
+			code.writeShort(builder.classConstant(ClassFileBuilder.internalName(MethodHandle.class)));
+			code.writeByte(0xB8); // invokestatic
+			code.writeShort(builder.memberConstant(10, methodHandlesClass, "classData",
+					"(" + lookupDescriptor + "Ljava/lang/String;Ljava/lang/Class;)Ljava/lang/Object;"));
+			code.writeByte(0xC0); // checkcast
+			code.writeShort(builder.classConstant(ClassFileBuilder.internalName(MethodHandle.class)));
+			code.writeByte(0xB3); // putstatic
+			code.writeShort(handleField);
+			code.writeByte(0xB1); // return
+			code.flush();
+			return bytes.toByteArray();
+		}
+
+		/**
+		 * The code of the constructor: super()
+		 */
+		private static byte[] constructorCode(ClassFileBuilder builder, int superClass) throws IOException {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream code = new DataOutputStream(bytes);
+			code.writeByte(0x2A); // aload_0
+			code.writeByte(0xB7); // invokespecial
+			code.writeShort(builder.memberConstant(10, superClass, "<init>", "()V"));
+			code.writeByte(0xB1); // return
+			code.flush();
+			return bytes.toByteArray();
+		}
+
+		/**
+		 * The code of the read method: return HANDLE.invokeExact(object)
+		 */
+		private static byte[] readCode(ClassFileBuilder builder, int handleField) throws IOException {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream code = new DataOutputStream(bytes);
+			code.writeByte(0xB2); // getstatic
+			code.writeShort(handleField);
+			code.writeByte(0x2B); // aload_1
+			code.writeByte(0xB6); // invokevirtual
+			code.writeShort(builder.memberConstant(10, builder.classConstant(ClassFileBuilder.internalName(MethodHandle.class)),
+					"invokeExact", READER_TYPE.toMethodDescriptorString()));
+			code.writeByte(0xB0); // areturn
+			code.flush();
+			return bytes.toByteArray();
+		}
+	}
+
+}
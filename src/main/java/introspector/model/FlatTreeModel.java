@@ -0,0 +1,502 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model;
+
+import introspector.model.traverse.ComparisonEngine;
+import introspector.model.traverse.SymmetricPair;
+import introspector.model.traverse.TraverseHelper;
+
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+import java.util.*;
+
+/**
+ * Compact snapshot of a tree, for very big object graphs.
+ * Instead of one Node object per node, the tree is stored as a structure of arrays: each node is an int index
+ * and its parent, first child, number of children, name and type are stored in int arrays.
+ * Nodes are numbered in breadth-first order, so the children of a node are contiguous
+ * (the next sibling of a node is the next index). Names and types are stored once in tables.
+ * The names of the elements of containers (e.g., list[3]) are not stored, but computed from the name of the
+ * parent and the position of the child.
+ * The whole tree is traversed when the model is created; the objects referenced more than once
+ * (cyclic or alias references) are only expanded the first time they are found.
+ * It implements TreeModel like IntrospectorModel, returning lightweight {@link FlatNode}s created on demand.
+ */
+public class FlatTreeModel implements TreeModel {
+
+	/**
+	 * Name index of the nodes whose name is the name of their parent followed by their position (e.g., list[3])
+	 */
+	private static final int INDEXED_NAME = -1;
+
+	/**
+	 * Initial capacity of the arrays (they grow as nodes are added)
+	 */
+	private static final int INITIAL_CAPACITY = 1024;
+
+	/**
+	 * Number of nodes in the tree
+	 */
+	private int size;
+
+	/**
+	 * The parent of each node (-1 for the root)
+	 */
+	private int[] parents = new int[INITIAL_CAPACITY];
+
+	/**
+	 * The index of the first child of each node
+	 */
+	private int[] firstChildren = new int[INITIAL_CAPACITY];
+
+	/**
+	 * The number of children of each node
+	 */
+	private int[] childrenCounts = new int[INITIAL_CAPACITY];
+
+	/**
+	 * The index of the name of each node in the name table (or INDEXED_NAME)
+	 */
+	private int[] nameIndexes = new int[INITIAL_CAPACITY];
+
+	/**
+	 * The index of the type of each node in the type table
+	 */
+	private int[] typeIndexes = new int[INITIAL_CAPACITY];
+
+	/**
+	 * The object represented by each node
+	 */
+	private Object[] values = new Object[INITIAL_CAPACITY];
+
+	/**
+	 * The nodes that are leaves
+	 */
+	private final BitSet leaves = new BitSet();
+
+	/**
+	 * The nodes that represent an object already expanded in another node (no children are stored for them)
+	 */
+	private final BitSet revisited = new BitSet();
+
+	/**
+	 * The table of names (each name is stored once)
+	 */
+	private final List<String> names = new ArrayList<>();
+
+	/**
+	 * The table of types (each type is stored once)
+	 */
+	private final List<Class<?>> types = new ArrayList<>();
+
+	/**
+	 * Creates the flat tree of an object
+	 * @param name The name of the root node
+	 * @param root The object that will be used as the root node of the tree
+	 */
+	public FlatTreeModel(String name, Object root) {
+		this(NodeFactory.createNode(name, root));
+	}
+
+	/**
+	 * Creates the flat snapshot of a tree. The nodes of the tree are traversed once
+	 * (they are not referenced by the flat tree).
+	 * @param root The root node of the tree to be copied
+	 */
+	public FlatTreeModel(Node root) {
+		Map<String, Integer> nameTable = new HashMap<>();
+		Map<Class<?>, Integer> typeTable = new HashMap<>();
+		Set<Object> expanded = Collections.newSetFromMap(new IdentityHashMap<>());
+		// breadth-first traversal: the nodes in the queue are the ones with indexes nodeIndex, nodeIndex+1...
+		Deque<Node> pending = new ArrayDeque<>();
+		this.add(root, -1, -1, nameTable, typeTable);
+		pending.add(root);
+		for (int nodeIndex = 0; !pending.isEmpty(); nodeIndex++) {
+			Node node = pending.poll();
+			if (this.leaves.get(nodeIndex))
+				continue;
+			Object value = node.getValue();
+			if (value != null && !TypeInfo.of(node.getType()).isBuiltin() && !expanded.add(value)) {
+				this.revisited.set(nodeIndex); // cyclic or alias reference
+				continue;
+			}
+			int childrenCount = node.getChildrenCount();
+			this.firstChildren[nodeIndex] = this.size;
+			this.childrenCounts[nodeIndex] = childrenCount;
+			for (int i = 0; i < childrenCount; i++) {
+				Node child = node.getChild(i);
+				this.add(child, nodeIndex, i, nameTable, typeTable);
+				pending.add(child);
+			}
+		}
+	}
+
+	/**
+	 * Adds one node at the end of the arrays
+	 * @param node The node to be added
+	 * @param parent The index of its parent (-1 for the root)
+	 * @param position The position of the node in the children of its parent
+	 */
+	private void add(Node node, int parent, int position, Map<String, Integer> nameTable, Map<Class<?>, Integer> typeTable) {
+		if (this.size == this.parents.length)
+			this.grow();
+		int index = this.size++;
+		this.parents[index] = parent;
+		String name = node.getName();
+		if (parent >= 0 && isIndexedName(name, this.getName(parent), position))
+			this.nameIndexes[index] = INDEXED_NAME;
+		else
+			this.nameIndexes[index] = nameTable.computeIfAbsent(name, newName -> {
+				this.names.add(newName);
+				return this.names.size() - 1;
+			});
+		this.typeIndexes[index] = typeTable.computeIfAbsent(node.getType(), newType -> {
+			this.types.add(newType);
+			return this.types.size() - 1;
+		});
+		this.values[index] = node.getValue();
+		if (node.isLeaf())
+			this.leaves.set(index);
+	}
+
+	/**
+	 * Whether name is parentName[position], checked without creating that string
+	 */
+	private static boolean isIndexedName(String name, String parentName, int position) {
+		int length = parentName.length();
+		if (name.length() <= length + 2 || !name.startsWith(parentName) || name.charAt(length) != '['
+				|| name.charAt(name.length() - 1) != ']')
+			return false;
+		int number = 0;
+		for (int i = length + 1; i < name.length() - 1; i++) {
+			char digit = name.charAt(i);
+			if (digit < '0' || digit > '9' || (digit == '0' && i == length + 1 && name.length() - length > 3))
+				return false;
+			number = number * 10 + (digit - '0');
+			if (number > position)
+				return false;
+		}
+		return number == position;
+	}
+
+	/**
+	 * Doubles the capacity of the arrays
+	 */
+	private void grow() {
+		int capacity = this.parents.length * 2;
+		this.parents = Arrays.copyOf(this.parents, capacity);
+		this.firstChildren = Arrays.copyOf(this.firstChildren, capacity);
+		this.childrenCounts = Arrays.copyOf(this.childrenCounts, capacity);
+		this.nameIndexes = Arrays.copyOf(this.nameIndexes, capacity);
+		this.typeIndexes = Arrays.copyOf(this.typeIndexes, capacity);
+		this.values = Arrays.copyOf(this.values, capacity);
+	}
+
+	/**
+	 * @return The number of nodes in the tree
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the name of one node
+	 * @param index The index of the node
+	 * @return The name of the node
+	 */
+	public String getName(int index) {
+		int nameIndex = this.nameIndexes[index];
+		if (nameIndex != INDEXED_NAME)
+			return this.names.get(nameIndex);
+		int parent = this.parents[index];
+		return this.getName(parent) + "[" + (index - this.firstChildren[parent]) + "]";
+	}
+
+	/**
+	 * Returns the type of one node
+	 * @param index The index of the node
+	 * @return The type of the object represented by the node
+	 */
+	public Class<?> getType(int index) {
+		return this.types.get(this.typeIndexes[index]);
+	}
+
+	/**
+	 * Returns the object represented by one node
+	 * @param index The index of the node
+	 * @return The object represented by the node
+	 */
+	public Object getValue(int index) {
+		return this.values[index];
+	}
+
+	/**
+	 * Returns the parent of one node
+	 * @param index The index of the node
+	 * @return The index of its parent (-1 for the root)
+	 */
+	public int getParent(int index) {
+		return this.parents[index];
+	}
+
+	/**
+	 * Returns the number of children of one node
+	 * @param index The index of the node
+	 * @return The number of children (zero for leaves and revisited nodes)
+	 */
+	public int getChildrenCount(int index) {
+		return this.childrenCounts[index];
+	}
+
+	/**
+	 * Returns the index of one child of a node
+	 * @param index The index of the node
+	 * @param position The position of the child
+	 * @return The index of the child; -1 if the position is out of bounds
+	 */
+	public int getChild(int index, int position) {
+		if (position < 0 || position >= this.childrenCounts[index])
+			return -1;
+		return this.firstChildren[index] + position;
+	}
+
+	/**
+	 * Returns whether a node represents an object already expanded in another node (a cyclic or alias reference)
+	 * @param index The index of the node
+	 * @return Whether the node is a revisited node
+	 */
+	public boolean isRevisited(int index) {
+		return this.revisited.get(index);
+	}
+
+	/**
+	 * Returns the (lightweight) node object of one index, to be used as a Node
+	 * @param index The index of the node
+	 * @return The node; null if the index is -1
+	 */
+	public FlatNode getNode(int index) {
+		return index < 0 ? null : new FlatNode(index);
+	}
+
+	/**
+	 * @return The root node of the tree.
+	 */
+	@Override
+	public FlatNode getRoot() {
+		return this.getNode(0);
+	}
+
+	/**
+	 * @see TreeModel#getChild(Object, int)
+	 */
+	@Override
+	public Object getChild(Object parent, int index) {
+		return ((Node) parent).getChild(index);
+	}
+
+	/**
+	 * @see TreeModel#getChildCount(Object)
+	 */
+	@Override
+	public int getChildCount(Object parent) {
+		return ((Node) parent).getChildrenCount();
+	}
+
+	/**
+	 * @see TreeModel#isLeaf(Object)
+	 */
+	@Override
+	public boolean isLeaf(Object node) {
+		return ((Node) node).isLeaf();
+	}
+
+	/**
+	 * @see TreeModel#getIndexOfChild(Object, Object)
+	 */
+	@Override
+	public int getIndexOfChild(Object parent, Object child) {
+		return ((Node) parent).getIndexOfChild(child);
+	}
+
+	@Override
+	public void valueForPathChanged(TreePath path, Object newValue) {
+		// nothing to do when the value for path changes
+	}
+
+	@Override
+	public void addTreeModelListener(TreeModelListener l) {
+		// Nothing to do when a tree model listener is added
+	}
+
+	@Override
+	public void removeTreeModelListener(TreeModelListener l) {
+		// Nothing to do when a tree model listener is removed
+	}
+
+	/**
+	 * A node of a flat tree. It just holds its index, so it is created when it is requested.
+	 * Two flat nodes are equal when they have the same index in the same tree.
+	 */
+	public class FlatNode implements Node {
+
+		/**
+		 * The index of the node in the flat tree
+		 */
+		private final int index;
+
+		/**
+		 * @param index The index of the node in the flat tree
+		 */
+		private FlatNode(int index) {
+			this.index = index;
+		}
+
+		/**
+		 * @return The index of the node in the flat tree
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		@Override
+		public String getName() {
+			return FlatTreeModel.this.getName(this.index);
+		}
+
+		@Override
+		public Class<?> getType() {
+			return FlatTreeModel.this.getType(this.index);
+		}
+
+		@Override
+		public Object getValue() {
+			return FlatTreeModel.this.getValue(this.index);
+		}
+
+		@Override
+		public boolean isLeaf() {
+			return FlatTreeModel.this.leaves.get(this.index);
+		}
+
+		@Override
+		public Node getChild(int position) {
+			return FlatTreeModel.this.getNode(FlatTreeModel.this.getChild(this.index, position));
+		}
+
+		@Override
+		public int getChildrenCount() {
+			return FlatTreeModel.this.getChildrenCount(this.index);
+		}
+
+		/**
+		 * Flat nodes are found by index (the rest of nodes, by name)
+		 * @see Node#getIndexOfChild(Object)
+		 */
+		@Override
+		public int getIndexOfChild(Object child) {
+			if (child instanceof FlatNode flatChild && flatChild.getTree() == FlatTreeModel.this &&
+					FlatTreeModel.this.parents[flatChild.index] == this.index)
+				return flatChild.index - FlatTreeModel.this.firstChildren[this.index];
+			if (child instanceof Node childNode)
+				for (int i = 0; i < this.getChildrenCount(); i++)
+					if (this.getChild(i).getName().equals(childNode.getName()))
+						return i;
+			return -1; // no child was found
+		}
+
+		@Override
+		public String getNodeDescription() {
+			Object value = this.getValue();
+			return value == null ? "null" : value.toString();
+		}
+
+		@Override
+		public String getClassName() {
+			return TypeInfo.of(this.getType()).getName();
+		}
+
+		/**
+		 * Compares the two trees with a ComparisonEngine, so that no recursion is used
+		 * @see Node#compareTrees(Node, boolean, Set, Set)
+		 */
+		@Override
+		public Set<Node> compareTrees(Node node2, boolean equalName, Set<Node> modifiedNodes, Set<SymmetricPair<Node, Node>> alreadyTraversed) {
+			return new ComparisonEngine(modifiedNodes, alreadyTraversed).compare(this, node2, equalName);
+		}
+
+		/**
+		 * Compares the two trees as leaf nodes (values) when they are leaves; otherwise, their children
+		 * are compared in order.
+		 * @see Node#compareNode(Node, boolean, ComparisonEngine)
+		 */
+		@Override
+		public void compareNode(Node node2, boolean equalName, ComparisonEngine engine) {
+			if (!TraverseHelper.shouldBeTraversed(this, node2, engine.getAlreadyTraversed()))
+				return; // cycle detected
+			if (!this.getType().equals(node2.getType()) || this.isLeaf() != node2.isLeaf() ||
+					(equalName && !this.getName().equals(node2.getName()))) {
+				engine.modified(this, node2);
+				return;
+			}
+			if (this.isLeaf()) {
+				if (!Objects.equals(this.getValue(), node2.getValue())) {
+					engine.modified(this, node2);
+				}
+				return;
+			}
+			int childrenCount1 = this.getChildrenCount(), childrenCount2 = node2.getChildrenCount();
+			if (childrenCount1 != childrenCount2) {
+				engine.modified(this, node2);
+			}
+			for (int i = 0; i < Math.min(childrenCount1, childrenCount2); i++)
+				engine.schedule(this.getChild(i), node2.getChild(i), equalName);
+			// the new children are modified
+			for (int i = childrenCount2; i < childrenCount1; i++)
+				engine.removed(this.getChild(i));
+			for (int i = childrenCount1; i < childrenCount2; i++)
+				engine.added(node2.getChild(i));
+		}
+
+		/**
+		 * @return The flat tree of the node
+		 */
+		private FlatTreeModel getTree() {
+			return FlatTreeModel.this;
+		}
+
+		/**
+		 * Two flat nodes are equal when they have the same index in the same tree
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof FlatNode node && node.getTree() == FlatTreeModel.this && node.index == this.index;
+		}
+
+		@Override
+		public int hashCode() {
+			return this.index;
+		}
+
+		/**
+		 * A node is represented as "name (type)", followed by the value for built-in types and enums.
+		 * @return The node representation as string.
+		 */
+		@Override
+		public String toString() {
+			TypeInfo typeInfo = TypeInfo.of(this.getType());
+			StringBuilder sb = new StringBuilder(this.getName());
+			sb.append(" (").append(typeInfo.getSimpleName()).append(")");
+			if (typeInfo.isBuiltin() || typeInfo.isEnum())
+				sb.append(": ").append(this.getValue());
+			return sb.toString();
+		}
+
+	}
+
+}
@@ -0,0 +1,198 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HiddenClassExtractors generates, at runtime, one hidden class per class that implements FieldExtractor.
+ * The generated class is a nestmate of the class whose fields are read, so it reads all of them
+ * (including the private ones) with plain getfield instructions that the JIT compiler can inline.
+ * Since one hidden class can only access the private fields of its own nest, one class is generated per
+ * class in the hierarchy that declares fields, and they are combined when the layout contains inherited fields.
+ */
+final class HiddenClassExtractors {
+
+	/**
+	 * Suffix added to the name of the introspected class to name the generated class
+	 */
+	private static final String CLASS_NAME_SUFFIX = "$$IntrospectorFieldExtractor";
+
+	/**
+	 * The maximum number of fields in a generated extractor (the size of a method is limited to 64KB)
+	 */
+	private static final int MAX_FIELDS = 2_000;
+
+	/**
+	 * Utility class
+	 */
+	private HiddenClassExtractors() {}
+
+	/**
+	 * Generates the extractor of the given fields
+	 * @param fields the fields (of one class and its superclasses) to be read, in the order of the buffer
+	 * @return the extractor; null if it cannot be generated (e.g., module restrictions)
+	 */
+	static FieldExtractor generate(Field[] fields) {
+		if (fields.length == 0 || fields.length > MAX_FIELDS)
+			return null;
+		// fields declared by the same class are contiguous in the layout
+		List<FieldExtractor> extractors = new ArrayList<>();
+		int from = 0;
+		while (from < fields.length) {
+			Class<?> declaringClass = fields[from].getDeclaringClass();
+			int to = from;
+			while (to < fields.length && fields[to].getDeclaringClass() == declaringClass)
+				to++;
+			FieldExtractor extractor = generate(declaringClass, fields, from, to);
+			if (extractor == null)
+				return null;
+			extractors.add(extractor);
+			from = to;
+		}
+		if (extractors.size() == 1)
+			return extractors.get(0);
+		FieldExtractor[] extractorArray = extractors.toArray(new FieldExtractor[0]);
+		return (object, values) -> {
+			for (FieldExtractor extractor : extractorArray)
+				extractor.extract(object, values);
+		};
+	}
+
+	/**
+	 * Generates the extractor of the fields declared by one class
+	 * @param declaringClass the class that declares all the fields in [from, to)
+	 * @param fields the fields in the layout
+	 * @param from the index of the first field read by the extractor (and its position in the buffer)
+	 * @param to the index after the last field read by the extractor
+	 * @return the extractor; null if it cannot be generated
+	 */
+	private static FieldExtractor generate(Class<?> declaringClass, Field[] fields, int from, int to) {
+		if (declaringClass.isHidden() || declaringClass.isArray() || declaringClass.isPrimitive())
+			return null;
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(declaringClass, MethodHandles.lookup());
+			if (!lookup.hasFullPrivilegeAccess())
+				return null; // hidden classes can only be defined with full privilege access
+			byte[] classFile = new ClassFileWriter(declaringClass, fields, from, to).write();
+			MethodHandles.Lookup hiddenLookup = lookup.defineHiddenClass(classFile, true, MethodHandles.Lookup.ClassOption.NESTMATE);
+			return (FieldExtractor) hiddenLookup.findConstructor(hiddenLookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+		} catch (Throwable throwable) {
+			// illegal access, verification or linkage errors: the extractor cannot be used for this class
+			return null;
+		}
+	}
+
+
+	/**
+	 * Writes the class file of one extractor. The generated class is equivalent to:
+	 * <pre>
+	 * final class DeclaringClass$$IntrospectorFieldExtractor implements FieldExtractor {
+	 *     public void extract(Object object, Object[] values) {
+	 *         DeclaringClass instance = (DeclaringClass) object;
+	 *         values[from] = instance.field1;  // boxed if primitive
+	 *         values[from+1] = DeclaringClass.staticField2;
+	 *         ...
+	 *     }
+	 * }
+	 * </pre>
+	 */
+	private static class ClassFileWriter {
+
+		private final Class<?> declaringClass;
+		private final Field[] fields;
+		private final int from, to;
+
+		/**
+		 * The class file being written
+		 */
+		private final ClassFileBuilder builder = new ClassFileBuilder();
+
+		ClassFileWriter(Class<?> declaringClass, Field[] fields, int from, int to) {
+			this.declaringClass = declaringClass;
+			this.fields = fields;
+			this.from = from;
+			this.to = to;
+		}
+
+		/**
+		 * @return the bytes of the class file
+		 * @throws IOException never (the class file is written in memory)
+		 */
+		byte[] write() throws IOException {
+			String targetName = ClassFileBuilder.internalName(this.declaringClass);
+			int thisClass = this.builder.classConstant(targetName + CLASS_NAME_SUFFIX);
+			int superClass = this.builder.classConstant("java/lang/Object");
+			int interfaceClass = this.builder.classConstant(ClassFileBuilder.internalName(FieldExtractor.class));
+			this.builder.addMethod(Modifier.PUBLIC, "<init>", "()V", 1, 1, constructorCode(superClass));
+			this.builder.addMethod(Modifier.PUBLIC, "extract", "(Ljava/lang/Object;[Ljava/lang/Object;)V", 5, 4,
+					extractCode(this.builder.classConstant(targetName)));
+			return this.builder.write(0x0030, thisClass, superClass, interfaceClass); // ACC_FINAL | ACC_SUPER
+		}
+
+		/**
+		 * The code of the constructor: super()
+		 */
+		private byte[] constructorCode(int superClass) throws IOException {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream code = new DataOutputStream(bytes);
+			code.writeByte(0x2A); // aload_0
+			code.writeByte(0xB7); // invokespecial
+			code.writeShort(this.builder.memberConstant(10, superClass, "<init>", "()V"));
+			code.writeByte(0xB1); // return
+			code.flush();
+			return bytes.toByteArray();
+		}
+
+		/**
+		 * The code of the extract method
+		 */
+		private byte[] extractCode(int targetClass) throws IOException {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream code = new DataOutputStream(bytes);
+			code.writeByte(0x2B); // aload_1
+			code.writeByte(0xC0); // checkcast
+			code.writeShort(targetClass);
+			code.writeByte(0x4E); // astore_3
+			for (int i = this.from; i < this.to; i++) {
+				Field field = this.fields[i];
+				code.writeByte(0x2C); // aload_2
+				code.writeByte(0x11); // sipush
+				code.writeShort(i);
+				String descriptor = field.getType().descriptorString();
+				int fieldConstant = this.builder.memberConstant(9, targetClass, field.getName(), descriptor);
+				if (Modifier.isStatic(field.getModifiers()))
+					code.writeByte(0xB2); // getstatic
+				else {
+					code.writeByte(0x2D); // aload_3
+					code.writeByte(0xB4); // getfield
+				}
+				code.writeShort(fieldConstant);
+				if (field.getType().isPrimitive()) {
+					String wrapper = ClassFileBuilder.internalName(MethodType.methodType(field.getType()).wrap().returnType());
+					code.writeByte(0xB8); // invokestatic
+					code.writeShort(this.builder.memberConstant(10, this.builder.classConstant(wrapper), "valueOf",
+							"(" + descriptor + ")L" + wrapper + ";"));
+				}
+				code.writeByte(0x53); // aastore
+			}
+			code.writeByte(0xB1); // return
+			code.flush();
+			return bytes.toByteArray();
+		}
+	}
+
+}
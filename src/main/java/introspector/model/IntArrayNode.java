@@ -0,0 +1,68 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model;
+
+/**
+ * IntArrayNode provides a Node implementation to represent arrays of int (int[]).
+ * The elements are read directly from the array, without reflection.
+ */
+public class IntArrayNode extends PrimitiveArrayNode implements Node {
+
+	/**
+	 * @see PrimitiveArrayNode#PrimitiveArrayNode(String, Object)
+	 */
+	public IntArrayNode(String name, int[] value) {
+		super(name, value);
+	}
+
+	/**
+	 * @see PrimitiveArrayNode#PrimitiveArrayNode(String, Object, Class)
+	 */
+	public IntArrayNode(String name, Object value, Class<?> type) {
+		super(name, value, type);
+	}
+
+	/**
+	 * @see PrimitiveArrayNode#PrimitiveArrayNode(String, Object, Class, int)
+	 */
+	public IntArrayNode(String name, Object value, Class<?> type, int pageSize) {
+		super(name, value, type, pageSize);
+	}
+
+	/**
+	 * @see PrimitiveArrayNode#getLength()
+	 */
+	@Override
+	protected int getLength() {
+		return ((int[]) this.getValue()).length;
+	}
+
+	/**
+	 * @see PrimitiveArrayNode#getElementValue(int)
+	 */
+	@Override
+	protected Object getElementValue(int index) {
+		return Integer.valueOf(((int[]) this.getValue())[index]);
+	}
+
+	/**
+	 * Elements are separated by commas.
+	 *
+	 * @see PrimitiveArrayNode#appendRow(StringBuilder, int, int)
+	 */
+	@Override
+	protected void appendRow(StringBuilder sb, int from, int to) {
+		int[] array = (int[]) this.getValue();
+		for (int i = from; i < to; i++) {
+			if (i > from)
+				sb.append(", ");
+			sb.append(array[i]);
+		}
+	}
+
+}
@@ -0,0 +1,23 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model;
+
+import java.lang.annotation.*;
+
+/**
+ * Classes annotated with Introspectable get, at compile time, an {@link IntrospectionAdapter} generated by the
+ * annotation processor in the introspector.processor package. The nodes that wrap instances of those classes
+ * read their fields through the adapter instead of reflection, so setAccessible (i.e., deep reflection)
+ * is not needed to introspect them.
+ * Private fields are read with VarHandles, so getters are never called.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Introspectable {
+}
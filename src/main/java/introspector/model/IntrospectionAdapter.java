@@ -0,0 +1,41 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model;
+
+/**
+ * An IntrospectionAdapter provides the fields declared by one class without using reflection.
+ * Adapters are generated at compile time for the classes annotated with {@link Introspectable}.
+ * The adapter of the class {@code p.C} is the class {@code p.C$IntrospectionAdapter}.
+ * @param <T> the class whose fields are described by the adapter
+ */
+public interface IntrospectionAdapter<T> {
+
+	/**
+	 * Suffix added to the binary name of a class to obtain the name of its adapter
+	 */
+	String CLASS_NAME_SUFFIX = "$IntrospectionAdapter";
+
+	/**
+	 * @return the names of the fields declared by the class (the inherited ones are not included)
+	 */
+	String[] getFieldNames();
+
+	/**
+	 * @return the (erased) types of the fields declared by the class, in the same order as their names
+	 */
+	Class<?>[] getFieldTypes();
+
+	/**
+	 * Reads the value of one field
+	 * @param object the object whose field is read (ignored for static fields)
+	 * @param index the index of the field (in the order returned by getFieldNames)
+	 * @return the value of the field (primitive values are boxed)
+	 */
+	Object getFieldValue(T object, int index);
+
+}
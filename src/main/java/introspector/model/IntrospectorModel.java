@@ -7,9 +7,12 @@
 
 package introspector.model;
 
+import javax.swing.event.TreeModelEvent;
 import javax.swing.event.TreeModelListener;
 import javax.swing.tree.TreeModel;
 import javax.swing.tree.TreePath;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Model object that represents a tree.
@@ -22,6 +25,16 @@ public class IntrospectorModel implements TreeModel {
 	 */
 	private final Node root;
 
+	/**
+	 * The table used to share the nodes of aliased objects in the tree (null if nodes are not interned).
+	 */
+	private final NodeInterner interner;
+
+	/**
+	 * The listeners notified when a subtree is refreshed.
+	 */
+	private final List<TreeModelListener> listeners = new ArrayList<>();
+
 	/**
 	 * Constructs a tres given its name and the root object
 	 * @param name The name used to visualize the tree.
@@ -40,9 +53,48 @@ public class IntrospectorModel implements TreeModel {
 	 *                     show the differences between the two trees.
 	 */
 	public IntrospectorModel(String name, Object root, boolean deepClone) {
+		this(name, root, deepClone, NodeFactory.NO_PAGING);
+	}
+
+	/**
+	 * Constructs a tres given its name, the root object, whether the tree should be cloned deeply and
+	 * the page size used to group the children of big containers.
+	 * @param name The name used to visualize the tree.
+	 * @param root The object that will be used as the root node of the tree.
+	 * @param deepClone Whether the tree should be cloned deeply (see {@link #IntrospectorModel(String, Object, boolean)}).
+	 * @param pageSize The maximum number of children shown for each container (NodeFactory.NO_PAGING to show all of them).
+	 *                 Bigger containers show range nodes whose elements are only created when they are expanded.
+	 */
+	public IntrospectorModel(String name, Object root, boolean deepClone, int pageSize) {
+		this(name, root, deepClone, pageSize, false);
+	}
+
+	/**
+	 * Constructs a tres given its name, the root object, whether the tree should be cloned deeply,
+	 * the page size used to group the children of big containers and whether the nodes of aliased objects
+	 * are shared.
+	 * @param name The name used to visualize the tree.
+	 * @param root The object that will be used as the root node of the tree.
+	 * @param deepClone Whether the tree should be cloned deeply (see {@link #IntrospectorModel(String, Object, boolean)}).
+	 * @param pageSize The maximum number of children shown for each container (NodeFactory.NO_PAGING to show all of them).
+	 * @param internNodes Whether the nodes of aliased objects are shared within this tree, so that their subtrees
+	 *                    are created once. The interner belongs to this model only: it keeps the nodes of the tree
+	 *                    while the model is alive, and the trees of other models (e.g., later snapshots of
+	 *                    mutated objects) do not reuse its nodes.
+	 */
+	public IntrospectorModel(String name, Object root, boolean deepClone, int pageSize, boolean internNodes) {
 		if (deepClone)
 			root = DeepCloner.deepClone(root);
-		this.root = NodeFactory.createNode(name, root, root.getClass());
+		NodeInterner interner = internNodes ? new NodeInterner() : null;
+		this.interner = interner;
+		this.root = NodeFactory.createNode(name, root, root.getClass(), pageSize, interner);
+	}
+
+	/**
+	 * @return The table used to share the nodes of aliased objects in the tree; null if nodes are not interned.
+	 */
+	public NodeInterner getInterner() {
+		return interner;
 	}
 
 	/**
@@ -106,12 +158,26 @@ public class IntrospectorModel implements TreeModel {
 
 	@Override
 	public void addTreeModelListener(TreeModelListener l) {
-		// Nothing to do when a tree model listener is added
+		this.listeners.add(l);
 	}
 
 	@Override
 	public void removeTreeModelListener(TreeModelListener l) {
-		// Nothing to do when a tree model listener is removed
+		this.listeners.remove(l);
+	}
+
+	/**
+	 * Shows the current elements of a container node, whose children are cached when they are first requested
+	 * (see {@link ContainerNode#refresh()}). The listeners (e.g., the JTree that shows the model) are notified
+	 * that the structure of the subtree has changed.
+	 * @param path the path from the root to the node to be refreshed
+	 */
+	public void refresh(TreePath path) {
+		if (path.getLastPathComponent() instanceof ContainerNode containerNode)
+			containerNode.refresh();
+		TreeModelEvent event = new TreeModelEvent(this, path);
+		for (TreeModelListener listener : this.listeners)
+			listener.treeStructureChanged(event);
 	}
 
 }
@@ -7,7 +7,7 @@
 
 package introspector.model;
 
-import introspector.model.traverse.SymmetricPair;
+import introspector.model.traverse.ComparisonEngine;
 import introspector.model.traverse.TraverseHelper;
 
 import java.util.*;
@@ -15,113 +15,194 @@ import java.util.*;
 /**
  * MapNode provides a Node implementation to represent any value whose type is a java.util.Map.
  */
-public class MapNode extends AbstractNode  implements Node {
+public class MapNode extends ContainerNode implements Node {
 
 	/**
-	 * @see AbstractNode#AbstractNode(String, Object)
+	 * @see ContainerNode#ContainerNode(String, Object)
 	 */
 	public MapNode(String name, Object value) {
 		super(name, value);
 	}
 
 	/**
-	 * @see AbstractNode#AbstractNode(String, Object, Class)
+	 * @see ContainerNode#ContainerNode(String, Object, Class)
 	 */
 	public MapNode(String name, Object value, Class<?> type) {
 		super(name, value, type);
 	}
 
+	/**
+	 * @see ContainerNode#ContainerNode(String, Object, Class, int)
+	 */
+	public MapNode(String name, Object value, Class<?> type, int pageSize) {
+		super(name, value, type, pageSize);
+	}
+
 
 	/**
-	 * A map node is not leaf.
+	 * The entries of the map, copied and sorted once when the first child is created
+	 * (null if they have not been computed yet). It is volatile, since other threads may read it: the array
+	 * is assigned once it is sorted, and the arrays sorted by different threads are equal.
+	 */
+	private volatile Map.Entry<?, ?>[] entries;
+
+	/**
+	 * A map node has as many children as entries in the map.
 	 *
-	 * @see AbstractNode#isLeaf()
+	 * @see ContainerNode#getContainerSize()
 	 */
 	@Override
-	public boolean isLeaf() {
-		return false;
+	protected int getContainerSize() {
+		return ((Map<?, ?>) this.getValue()).size();
 	}
 
 	/**
-	 * Collection node has as many children and elements in the collection.
 	 * A node is created for each child, representing the value of each map entry.
 	 * For the key, its toString representation is shown, but it is not expanded.
 	 *
-	 * @see AbstractNode#getChildren()
+	 * @see ContainerNode#createChild(int)
 	 */
 	@Override
-	public List<Node> getChildren() {
-		List<Node> nodes = new ArrayList<>();
-		if (this.getValue() == null)
-			return nodes;
-		// maps are not ordered, so we must define an order to show the map entries and improve its comparison
-		// however, we cannot use the natural order of the keys if one is null
-		Map<?, ?> sortedMap;
-		// does any key hold a null value?
-		if (TraverseHelper.containsNullKey((Map<?, ?>) getValue()))
-			sortedMap = (Map<?, ?>)getValue();  // we cannot sort if it has null in the keys
-		else try {
-			sortedMap = new TreeMap<>((Map<?, ?>) getValue()); // otherwise, we sort by the natural order of the keys
-		} catch (ClassCastException e) {
-			sortedMap = (Map<?, ?>) getValue();  // we cannot sort if the keys are not comparable (e.g., one is Integer and another is String)
-		}
-		for (Map.Entry<?, ?> entry : sortedMap.entrySet()) // we traverse with in the order of the natural order of the keys
-			if (entry.getKey() == null) {
-				//System.err.printf("Introspector: the map \"%s\" has a null key.\n", getName());
-				if (entry.getValue() != null)
-					nodes.add(NodeFactory.createNode(
-							getName() + "[" + null + "]", entry.getValue(), entry.getValue().getClass()));
-				else
-					nodes.add(NodeFactory.createNode(getName() + "[" + null + "]", null, null));
-			} else if (entry.getValue() == null) {
-				//System.err.printf("Introspector: the map \"%s\" has a null value for the key \"%s\".\n", getName(), entry.getKey());
-				nodes.add(NodeFactory.createNode(
-						getName() + "[" + entry.getKey().toString() + "]", null, null));
-			} else
-				nodes.add(NodeFactory.createNode(
-						getName() + "[" + entry.getKey().toString() + "]",
-						entry.getValue(), entry.getValue().getClass()
-				));
-		return nodes;
+	protected Node createChild(int index) {
+		Map.Entry<?, ?> entry = this.getEntries()[index];
+		// the name of the child is the name of the map followed by the key (e.g., map[key]), computed when needed
+		if (entry.getValue() == null)
+			//System.err.printf("Introspector: the map \"%s\" has a null value for the key \"%s\".\n", getName(), entry.getKey());
+			return NodeFactory.createChildNode(this, entry.getKey(), null, null);
+		return NodeFactory.createChildNode(this, entry.getKey(), entry.getValue(), entry.getValue().getClass());
+	}
+
+	/**
+	 * @return The entries of the map in the order of the children, sorted again if the size of the map has changed
+	 */
+	private Map.Entry<?, ?>[] getEntries() {
+		Map.Entry<?, ?>[] entries = this.entries;
+		if (entries == null || entries.length != this.getContainerSize())
+			this.entries = entries = sortedEntries((Map<?, ?>) this.getValue());
+		return entries;
+	}
+
+	/**
+	 * The entries must be sorted again.
+	 *
+	 * @see ContainerNode#containerChanged()
+	 */
+	@Override
+	protected void containerChanged() {
+		this.entries = null;
+	}
+
+	/**
+	 * Order used to show the entries of maps that are not sorted: null keys go first,
+	 * keys of the same comparable class are sorted by their natural order, and keys of different
+	 * classes are sorted by the name of their classes. Since the sort is stable, the rest of keys keep
+	 * the iteration order of the map.
+	 */
+	private static final Comparator<Map.Entry<?, ?>> ENTRY_ORDER = (entry1, entry2) -> compareKeys(entry1.getKey(), entry2.getKey());
+
+	/**
+	 * Compares two keys with no exception, even when they are null or not mutually comparable
+	 */
+	@SuppressWarnings("unchecked")
+	private static int compareKeys(Object key1, Object key2) {
+		if (key1 == key2)
+			return 0;
+		if (key1 == null)
+			return -1;
+		if (key2 == null)
+			return 1;
+		if (key1.getClass() != key2.getClass())
+			return key1.getClass().getName().compareTo(key2.getClass().getName());
+		if (key1 instanceof Comparable<?>)
+			return ((Comparable<Object>) key1).compareTo(key2);
+		return 0; // not comparable: the iteration order of the map is kept
 	}
 
 	/**
-	 * @see Node#compareTrees(Node, boolean, Set, Set)
+	 * Returns the entries of the map in the order used to show them.
+	 * Maps are not ordered, so we must define an order to show the map entries.
+	 * Sorted maps are already in order.
+	 */
+	private static Map.Entry<?, ?>[] sortedEntries(Map<?, ?> map) {
+		// the entries are copied, since the entries of some maps (e.g., IdentityHashMap) are reused by their iterators
+		List<Map.Entry<?, ?>> entryList = new ArrayList<>(map.size());
+		for (Map.Entry<?, ?> entry : map.entrySet())
+			entryList.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue()));
+		Map.Entry<?, ?>[] entries = entryList.toArray(new Map.Entry<?, ?>[0]);
+		if (!(map instanceof SortedMap<?, ?>))
+			Arrays.sort(entries, ENTRY_ORDER);
+		return entries;
+	}
+
+	/**
+	 * Entries are compared by key: the values of the keys with the same name (String.valueOf, as shown in the
+	 * names of the children) are compared, and the entries whose keys are not in the other map are modified nodes.
+	 * Therefore, keys that do not override equals (e.g., created separately for each map) are matched by their names.
+	 * The key names are looked up with a HashMap, so the number of comparisons is proportional to the size of
+	 * the maps (entries inserted or removed do not misalign the rest).
+	 * @see Node#compareNode(Node, boolean, ComparisonEngine)
 	 */
 	@Override
-	public Set<Node> compareTrees(Node node2, boolean equalName, Set<Node> modifiedNodes, Set<SymmetricPair<Node, Node>> alreadyTraversed) {
-		if (!TraverseHelper.shouldBeTraversed(new SymmetricPair<>(this, node2), alreadyTraversed))
-			return modifiedNodes; // cycle detected
+	public void compareNode(Node node2, boolean equalName, ComparisonEngine engine) {
+		if (!TraverseHelper.shouldBeTraversed(this, node2, engine.getAlreadyTraversed()))
+			return; // cycle detected
 		if (node2 instanceof MapNode mapNode2) {
 			// they must have the same types
 			if (!this.getType().equals(mapNode2.getType())) {
-				modifiedNodes.add(this);
-				modifiedNodes.add(mapNode2);
-				return modifiedNodes;
+				engine.modified(this, mapNode2);
+				return;
 			}
 			// if they are not the root nodes, they must have the same names
-			if (equalName && !this.getName().equals(mapNode2.getName())) {
-				modifiedNodes.add(this);
-				modifiedNodes.add(mapNode2);
-				return modifiedNodes;
+			if (equalName && !this.hasSameName(mapNode2)) {
+				engine.modified(this, mapNode2);
+				return;
 			}
-			List<Node> children1 = this.getChildren();
-			List<Node> children2 = mapNode2.getChildren();
+			int size1 = this.getValue() == null ? 0 : this.getContainerSize();
+			int size2 = mapNode2.getValue() == null ? 0 : mapNode2.getContainerSize();
 			// they may have not the same number of children
-			if (children1.size() != children2.size()) {
-				modifiedNodes.add(this);
-				modifiedNodes.add(mapNode2);
+			if (size1 != size2) {
+				engine.modified(this, mapNode2);
+			}
+			if (size1 == 0 || size2 == 0) {
+				// all the entries of the other map are new
+				for (int i = 0; i < size1; i++)
+					engine.removed(this.getElement(i));
+				for (int j = 0; j < size2; j++)
+					engine.added(mapNode2.getElement(j));
+				return;
+			}
+			// the entries with the same key name are compared (hash join); the rest are new.
+			// The entries of the second map with the same key name are chained (the first one is in the map).
+			Map.Entry<?, ?>[] entries2 = mapNode2.getEntries();
+			Map<String, Integer> firstIndexes2 = new HashMap<>(Math.max(16, (int) (size2 / 0.75f) + 1));
+			int[] nextIndexes2 = new int[size2];
+			for (int j = size2 - 1; j >= 0; j--) {
+				Integer next = firstIndexes2.put(String.valueOf(entries2[j].getKey()), j);
+				nextIndexes2[j] = next == null ? -1 : next;
+			}
+			boolean[] matched2 = new boolean[size2];
+			Map.Entry<?, ?>[] entries1 = this.getEntries();
+			for (int i = 0; i < size1; i++) {
+				String keyName = String.valueOf(entries1[i].getKey());
+				Integer j = firstIndexes2.get(keyName);
+				if (j == null) {
+					engine.removed(this.getElement(i));
+					continue;
+				}
+				matched2[j] = true;
+				if (nextIndexes2[j] >= 0)
+					firstIndexes2.put(keyName, nextIndexes2[j]);
+				else
+					firstIndexes2.remove(keyName);
+				engine.schedule(this.getElement(i), mapNode2.getElement(j), equalName);
 			}
-			int minChildrenCount = Math.min(children1.size(), children2.size());
-			for (int i = 0; i < minChildrenCount; i++)
-				children1.get(i).compareTrees(children2.get(i), equalName, modifiedNodes, alreadyTraversed);
-			TraverseHelper.addNewChildren(children1, children2, modifiedNodes);
-			return modifiedNodes;
+			for (int j = 0; j < size2; j++)
+				if (!matched2[j])
+					engine.added(mapNode2.getElement(j));
+			return;
 		}
 		// node2 is not a Map => they are different
-		modifiedNodes.add(this);
-		modifiedNodes.add(node2);
-		return modifiedNodes;
+		engine.modified(this, node2);
 	}
 
 
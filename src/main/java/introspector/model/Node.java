@@ -7,6 +7,7 @@
 
 package introspector.model;
 
+import introspector.model.traverse.ComparisonEngine;
 import introspector.model.traverse.SymmetricPair;
 
 import javax.lang.model.type.NullType;
@@ -14,6 +15,7 @@ import java.io.Serializable;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.OptionalLong;
 import java.util.Set;
 
 /**
@@ -83,6 +85,17 @@ public interface Node extends Serializable {
 
 
 
+	/**
+	 * Returns the structural (Merkle) hash of the subtree of this node: two subtrees with the same structural hash
+	 * are considered equal when compared (the name of this node is not included). It is optional: nodes
+	 * may not provide it, e.g., when it cannot be computed regardless of the path to the node (cycles).
+	 * @return The structural hash; empty if the node has no structural hash
+	 */
+	default OptionalLong getStructuralHash() {
+		return OptionalLong.empty();
+	}
+
+
 	/** Compare two trees and return the list of modified nodes.
 	 * @param node2 The node to compare with the other tree
 	 * @param equalName Whether the node names must be the same or not (important for root nodes)
@@ -92,5 +105,18 @@ public interface Node extends Serializable {
 	 */
 	Set<Node> compareTrees(Node node2, boolean equalName, Set<Node> modifiedNodes, Set<SymmetricPair<Node, Node>> alreadyTraversed);
 
+	/**
+	 * One step of the comparison of two trees performed by a ComparisonEngine: compares this node with node2,
+	 * adds the modified nodes to the engine and schedules the comparison of the children in the engine
+	 * (no recursion is used). The default implementation compares the whole subtrees with
+	 * {@link #compareTrees(Node, boolean, Set, Set)}.
+	 * @param node2 The node to compare with the other tree
+	 * @param equalName Whether the node names must be the same or not (important for root nodes)
+	 * @param engine The engine that performs the comparison
+	 */
+	default void compareNode(Node node2, boolean equalName, ComparisonEngine engine) {
+		this.compareTrees(node2, equalName, engine.getModifiedNodes(), engine.getAlreadyTraversed());
+	}
+
 
 }
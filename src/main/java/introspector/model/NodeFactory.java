@@ -8,17 +8,54 @@
 package introspector.model;
 
 import javax.lang.model.type.NullType;
+import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.util.Collection;
-import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 /**
  * NodeFactory provides a mechanism to create Node instances.
  */
 public class NodeFactory {
 
+	/**
+	 * Page size that indicates that the children of containers are not grouped in pages
+	 */
+	public static final int NO_PAGING = 0;
+
+	/**
+	 * Sets the number of instances of one class whose fields are read (i.e., its ObjectNodes are expanded)
+	 * before generating, at runtime, a hidden class that reads all of its fields in one single call.
+	 * Frequently introspected classes are thus read with code that the JIT compiler can inline.
+	 * @param threshold the number of instances (zero or negative disables the generation of those classes)
+	 */
+	public static void setHotClassThreshold(int threshold) {
+		FieldLayout.setHotClassThreshold(threshold);
+	}
+
+	/**
+	 * Sets the number of elements of an array of primitive types above which the nodes created from now on
+	 * show the array in rows of text (one leaf node per row, not per element), so no node nor boxed value
+	 * is created per element. Compaction is disabled by default, since rows change the textual and HTML
+	 * output and are compared as a whole (not element by element).
+	 * @param threshold the number of elements (zero or negative disables compaction)
+	 */
+	public static void setCompactArrayThreshold(int threshold) {
+		PrimitiveArrayNode.setCompactThreshold(threshold);
+	}
+
+	/**
+	 * Sets the factory of the readers used to obtain the values of the fields shown as children of the objects.
+	 * It applies to the classes whose fields are collected from now on (the fields of each class are collected
+	 * the first time one of its instances is shown); hot classes are not optimized with generated extractors
+	 * when their readers are plugged.
+	 * @param factory returns the reader of a field, or null to use the default reader of that field
+	 *                (null to use the default readers for all the fields)
+	 */
+	public static void setFieldReaderFactory(Function<Field, FieldReader> factory) {
+		FieldReaders.setFactory(factory);
+	}
 
 	/**
 	 * Method to know if the {@code type} parameter is a built-in type.
@@ -27,13 +64,7 @@ public class NodeFactory {
 	 * @return Whether the type is built-in
 	 */
 	public static <T> boolean isBuiltinType(Class<T> type) {
-		return switch (type.getName()) {
-			case "null", "boolean", "byte", "short", "char", "int", "long", "float", "double",
-					"java.lang.Boolean", "java.lang.Byte", "java.lang.Short", "java.lang.Character",
-					"java.lang.Integer", "java.lang.Long", "java.lang.Float", "java.lang.Double", "java.lang.String",
-					"javax.lang.model.type.NullType" -> true;
-			default -> false;
-		};
+		return TypeInfo.of(type).isBuiltin();
 	}
 
 	/**
@@ -43,7 +74,7 @@ public class NodeFactory {
 	 * @return Whether the type is an enum
 	 */
 	static <T> boolean isEnumType(Class<T> type) {
- 		return type.getSuperclass() != null && type.getSuperclass().getName().equals("java.lang.Enum");
+		return TypeInfo.of(type).isEnum();
 	}
 
 	/**
@@ -68,30 +99,148 @@ public class NodeFactory {
 	 * @return The subclass of Node appropriate to represent the name object
 	 */
 	public static Node createNode(String name, Object value, Class<?> type) {
+		return createNode(name, value, type, NO_PAGING);
+	}
+
+	/**
+	 * Factory to create the nodes, grouping the children of big containers in pages.
+	 * When a collection, array or map in the tree has more elements than pageSize, its children are
+	 * range nodes (e.g., list[0..999], list[1000..1999]), nested recursively until each range has, at most,
+	 * pageSize elements. The nodes of the elements are only created when their range is expanded.
+	 * @param name Name of the node
+	 * @param value Runtime object that will be represented as a node
+	 * @param pageSize The maximum number of children shown for each container (NO_PAGING to show all of them)
+	 * @return The subclass of Node appropriate to represent the name object
+	 */
+	public static Node createNode(String name, Object value, int pageSize) {
+		if (value == null)
+			return createNode(name, null, NullType.class, pageSize);
+		if (value instanceof IntrospectorModel model)
+			return createNode(name, model.getRoot().getValue(), model.getRoot().getValue().getClass(), pageSize);
+		return createNode(name, value, value.getClass(), pageSize);
+	}
+
+	/**
+	 * Factory to create the nodes, grouping the children of big containers in pages
+	 * @param name Name of the node
+	 * @param value Runtime object that will be represented as a node
+	 * @param type The object class that will represent the type of the object (value)
+	 * @param pageSize The maximum number of children shown for each container (NO_PAGING to show all of them)
+	 * @return The subclass of Node appropriate to represent the name object
+	 * @see #createNode(String, Object, int)
+	 */
+	public static Node createNode(String name, Object value, Class<?> type, int pageSize) {
+		return createNode(name, value, type, pageSize, null);
+	}
+
+	/**
+	 * Factory to create the nodes, sharing the nodes of aliased objects.
+	 * If interner already holds a node for value with the same name, that node is returned.
+	 * Otherwise, a new node is created (and added to interner); if value is already represented with
+	 * another name, the new node shares the children of the existing one.
+	 * The interner is used to create all the descendants of the node.
+	 * @param name Name of the node
+	 * @param value Runtime object that will be represented as a node
+	 * @param type The object class that will represent the type of the object (value)
+	 * @param pageSize The maximum number of children shown for each container (NO_PAGING to show all of them)
+	 * @param interner The table used to share the nodes of aliased objects (null to create new nodes)
+	 * @return The subclass of Node appropriate to represent the name object
+	 * @see #createNode(String, Object, int)
+	 */
+	public static Node createNode(String name, Object value, Class<?> type, int pageSize, NodeInterner interner) {
+		return internNode(name, value, type, pageSize, interner);
+	}
+
+	/**
+	 * Creates the node of an element of a container. Its name (e.g., list[3]) is not created,
+	 * but computed from the container and the index or key when it is requested.
+	 * The page size and interner of the container are used.
+	 * @param parent The container node
+	 * @param key The index (Integer) or key (any object) of the element in the container
+	 * @param value The element
+	 * @param type The type of the element
+	 * @return The node of the element
+	 */
+	static Node createChildNode(AbstractNode parent, Object key, Object value, Class<?> type) {
+		return internNode(new ChildName(parent, key), value, type, parent.getPageSize(), parent.getInterner());
+	}
+
+	/**
+	 * Creates a node, sharing the nodes of aliased objects if interner is not null
+	 * @param name The name of the node (String or ChildName)
+	 * @see #createNode(String, Object, Class, int, NodeInterner)
+	 */
+	private static Node internNode(Object name, Object value, Class<?> type, int pageSize, NodeInterner interner) {
+		if (interner == null || value == null)
+			return newNode(name, value, type, pageSize);
+		Node node = interner.find(name, value, type, pageSize);
+		if (node != null)
+			return node;
+		node = newNode(name, value, type, pageSize);
+		if (node instanceof AbstractNode abstractNode && !isBuiltinType(type) && !isEnumType(type)) {
+			abstractNode.setInterner(interner);
+			interner.add(abstractNode);
+		}
+		return node;
+	}
+
+	/**
+	 * Creates a new node (no node is shared)
+	 * @param name The name of the node (String or ChildName)
+	 * @see #createNode(String, Object, Class, int)
+	 */
+	private static Node newNode(Object name, Object value, Class<?> type, int pageSize) {
+		if (!(name instanceof ChildName childName))
+			return newNode((String) name, value, type, pageSize);
+		Node node = newNode((String) null, value, type, pageSize);
+		if (node instanceof AbstractNode abstractNode)
+			abstractNode.setChildName(childName);
+		return node;
+	}
+
+	/**
+	 * Creates a new node (no node is shared)
+	 * @see #createNode(String, Object, Class, int)
+	 */
+	private static Node newNode(String name, Object value, Class<?> type, int pageSize) {
+		if (pageSize != NO_PAGING && pageSize < 2)
+			throw new IllegalArgumentException("The page size must be greater than one: " + pageSize);
 		if (type == null)
 			type = NullType.class;
-		if (isBuiltinType(type))
-			return new BuiltinTypeNode(name, value, type);
-		if (isEnumType(type))
-			return new EnumNode(name, value, type);
-		// collections (lists, sets, queues and dequeues
-		if (Collection.class.isAssignableFrom(type))
-			return new CollectionNode(name, value, type);
-		// maps
-		if (Map.class.isAssignableFrom(type))
-			return new MapNode(name, value, type);
-		// arrays
-		if (type.getName().charAt(0) == '[')
-			return new ArrayNode(name, value, type);
-		if (type.getName().equals("java.util.Optional")) {
-			if (value == null)
-				return createNode(name, null, null);
-			Object childValue = ((Optional<?>)value).isPresent() ? ((Optional<?>)value).get() : null;
-			if (childValue == null)
-				return createNode(name, null, null);
-			return createNode(name, childValue, childValue.getClass());
+		// the kind of node of each type is computed once (see TypeInfo)
+		switch (TypeInfo.of(type).getKind()) {
+			case BUILTIN:
+				return new BuiltinTypeNode(name, value, type);
+			case ENUM:
+				return new EnumNode(name, value, type);
+			case COLLECTION: // lists, sets, queues and dequeues
+				return new CollectionNode(name, value, type, pageSize);
+			case MAP:
+				return new MapNode(name, value, type, pageSize);
+			case ARRAY: // the most common arrays of primitive types are read without reflection
+				if (type == int[].class)
+					return new IntArrayNode(name, value, type, pageSize);
+				if (type == long[].class)
+					return new LongArrayNode(name, value, type, pageSize);
+				if (type == double[].class)
+					return new DoubleArrayNode(name, value, type, pageSize);
+				if (type == float[].class)
+					return new FloatArrayNode(name, value, type, pageSize);
+				if (type == byte[].class)
+					return new ByteArrayNode(name, value, type, pageSize);
+				if (type == char[].class)
+					return new CharArrayNode(name, value, type, pageSize);
+				return new ArrayNode(name, value, type, pageSize);
+			case OPTIONAL:
+				if (value == null)
+					return createNode(name, null, null, pageSize);
+				Object childValue = ((Optional<?>)value).isPresent() ? ((Optional<?>)value).get() : null;
+				if (childValue == null)
+					return createNode(name, null, null, pageSize);
+				return createNode(name, childValue, childValue.getClass(), pageSize);
+			default:
+				return new ObjectNode(name, value, type, pageSize);
 		}
-		return new ObjectNode(name, value, type);
 	}
 
 
@@ -0,0 +1,87 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Identity-keyed table of the nodes created for the objects in one tree (e.g., an IntrospectorModel created
+ * with interning). The first node created for an object is its representative.
+ * When the same object is referenced from different places (aliasing), NodeFactory returns the representative
+ * if it has the same name; otherwise, a new node is created with its own name, but it shares the children of
+ * the representative (see {@link #findAlias(AbstractNode)}). Therefore, the subtree of an aliased object is
+ * created only once. Built-in values, enums and null references are not interned.
+ * The table keeps all the nodes while it is alive, and the nodes of an object reflect its state when they were
+ * created, so an interner should not be shared by the trees of different snapshots.
+ */
+public class NodeInterner {
+
+	/**
+	 * The representatives of each object (compared by identity). There is more than one representative
+	 * only when the object is represented with different node classes, types or page sizes.
+	 */
+	private final Map<Object, List<AbstractNode>> nodes = new IdentityHashMap<>();
+
+	/**
+	 * Returns the representative of an object, if it has the same name, type and page size
+	 * @param name The name of the node (String or ChildName)
+	 * @param value The object represented by the node
+	 * @param type The type of the object
+	 * @param pageSize The page size of the node
+	 * @return The representative; null if there is none or it has another name
+	 */
+	synchronized Node find(Object name, Object value, Class<?> type, int pageSize) {
+		List<AbstractNode> valueNodes = this.nodes.get(value);
+		if (valueNodes != null)
+			for (AbstractNode node : valueNodes)
+				if (node.getType() == type && node.getPageSize() == pageSize && node.hasName(name))
+					return node;
+		return null;
+	}
+
+	/**
+	 * Returns the representative of the object wrapped by node, whose children can be shared with node
+	 * (i.e., same class of node, type and page size)
+	 * @param node The node whose alias is searched
+	 * @return The representative; null if there is none or node is the representative
+	 */
+	synchronized AbstractNode findAlias(AbstractNode node) {
+		List<AbstractNode> valueNodes = this.nodes.get(node.getValue());
+		if (valueNodes != null)
+			for (AbstractNode alias : valueNodes)
+				if (alias != node && alias.getClass() == node.getClass() && alias.getType() == node.getType() &&
+						alias.getPageSize() == node.getPageSize())
+					return alias;
+		return null;
+	}
+
+	/**
+	 * Adds a new node to the table, if there is no representative of its object (with its node class,
+	 * type and page size) yet
+	 * @param node The node created (its value is not null)
+	 */
+	synchronized void add(AbstractNode node) {
+		List<AbstractNode> valueNodes = this.nodes.computeIfAbsent(node.getValue(), value -> new ArrayList<>(1));
+		for (AbstractNode representative : valueNodes)
+			if (representative.getClass() == node.getClass() && representative.getType() == node.getType() &&
+					representative.getPageSize() == node.getPageSize())
+				return;
+		valueNodes.add(node);
+	}
+
+	/**
+	 * @return The number of distinct objects with nodes in the table
+	 */
+	public synchronized int size() {
+		return this.nodes.size();
+	}
+
+}
@@ -0,0 +1,338 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model;
+
+import java.util.*;
+
+/**
+ * Set of nodes hashed by the identity of the objects they wrap (System.identityHashCode) and their names,
+ * with open addressing (linear probing). It is used to store the nodes modified in the comparison of two trees.
+ * As in a HashSet, two nodes are the same element when they are equal (they wrap the same object) and have
+ * the same name. However, a node name is hashed to the same bucket for any object, so HashSets of nodes
+ * have many collisions for common names (e.g., value or list[0]); and many nodes may wrap the same object
+ * (e.g., null, cached boxed values or interned strings). Both hashes are combined to avoid both kinds of collisions.
+ * The number of nodes wrapping each object is also kept in another open-addressing table (with no boxing),
+ * so {@link #containsValue(Object)} checks in constant time whether there is any node wrapping an object,
+ * whatever its name. When a node is removed with an iterator, the rest of the table is iterated in a copy,
+ * since the removal may move the following nodes (backward-shift deletion).
+ */
+public class NodeSet extends AbstractSet<Node> {
+
+	/**
+	 * The initial length of the table (a power of two)
+	 */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * The hash table (null means an empty slot); its length is always a power of two
+	 */
+	private Node[] table = new Node[INITIAL_CAPACITY];
+
+	/**
+	 * The number of nodes in the set
+	 */
+	private int size;
+
+	/**
+	 * The number of nodes in the set wrapping each object (compared by identity)
+	 */
+	private final ValueCounts valueCounts = new ValueCounts();
+
+	/**
+	 * Creates an empty set
+	 */
+	public NodeSet() {
+	}
+
+	/**
+	 * Creates a set with the nodes in a collection
+	 * @param nodes The nodes to be added
+	 */
+	public NodeSet(Collection<? extends Node> nodes) {
+		this.addAll(nodes);
+	}
+
+	/**
+	 * @return The index of the first slot where the node could be placed
+	 */
+	private int indexOf(Node node) {
+		int hash = System.identityHashCode(node.getValue()) * 0x9E3779B9 + AbstractNode.nameHashCode(node);
+		// the lower bits are mixed with the upper ones, as in HashMap
+		hash *= 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & (this.table.length - 1);
+	}
+
+	/**
+	 * @return Whether two nodes are the same element of the set: same object wrapped and same name
+	 */
+	private static boolean sameNode(Node node1, Node node2) {
+		return node1 == node2 || (node1.getValue() == node2.getValue() && AbstractNode.sameName(node1, node2));
+	}
+
+	/**
+	 * @return The slot of the node in the table; -1 if it is not in the set
+	 */
+	private int find(Node node) {
+		Node[] table = this.table;
+		for (int i = this.indexOf(node); table[i] != null; i = (i + 1) & (table.length - 1))
+			if (sameNode(table[i], node))
+				return i;
+		return -1;
+	}
+
+	/**
+	 * Whether the set contains any node that wraps the given object (compared by identity), whatever its name
+	 * @param value The object (it may be null)
+	 * @return Whether a node wrapping value is in the set
+	 */
+	public boolean containsValue(Object value) {
+		return this.valueCounts.contains(value);
+	}
+
+	/**
+	 * @see Set#contains(Object)
+	 */
+	@Override
+	public boolean contains(Object object) {
+		return object instanceof Node node && this.find(node) >= 0;
+	}
+
+	/**
+	 * @see Set#add(Object)
+	 */
+	@Override
+	public boolean add(Node node) {
+		Objects.requireNonNull(node);
+		if (this.find(node) >= 0)
+			return false;
+		if (3 * (this.size + 1) > 2 * this.table.length) // load factor 2/3
+			this.resize();
+		this.insert(node);
+		this.valueCounts.increment(node.getValue());
+		this.size++;
+		return true;
+	}
+
+	/**
+	 * Places a node in the first empty slot of its probe sequence
+	 */
+	private void insert(Node node) {
+		int i = this.indexOf(node);
+		while (this.table[i] != null)
+			i = (i + 1) & (this.table.length - 1);
+		this.table[i] = node;
+	}
+
+	/**
+	 * Doubles the length of the table, placing the nodes again
+	 */
+	private void resize() {
+		Node[] oldTable = this.table;
+		this.table = new Node[oldTable.length * 2];
+		for (Node node : oldTable)
+			if (node != null)
+				this.insert(node);
+	}
+
+	/**
+	 * @see Set#remove(Object)
+	 */
+	@Override
+	public boolean remove(Object object) {
+		if (!(object instanceof Node node))
+			return false;
+		int hole = this.find(node);
+		if (hole < 0)
+			return false;
+		// the following nodes in the probe sequence are moved back so that no empty slot breaks their sequences
+		Node[] table = this.table;
+		int mask = table.length - 1;
+		this.valueCounts.decrement(table[hole].getValue());
+		table[hole] = null;
+		for (int i = (hole + 1) & mask; table[i] != null; i = (i + 1) & mask) {
+			int home = this.indexOf(table[i]);
+			// the node is moved if its home slot is not cyclically in (hole, i]
+			if (((i - home) & mask) >= ((i - hole) & mask)) {
+				table[hole] = table[i];
+				table[i] = null;
+				hole = i;
+			}
+		}
+		this.size--;
+		return true;
+	}
+
+	/**
+	 * Removes the nodes in a collection, one by one (no copy of the table is iterated)
+	 * @see Set#removeAll(Collection)
+	 */
+	@Override
+	public boolean removeAll(Collection<?> nodes) {
+		boolean modified = false;
+		for (Object node : nodes)
+			modified |= this.remove(node);
+		return modified;
+	}
+
+	/**
+	 * @see Set#clear()
+	 */
+	@Override
+	public void clear() {
+		Arrays.fill(this.table, null);
+		this.valueCounts.clear();
+		this.size = 0;
+	}
+
+	/**
+	 * @see Set#size()
+	 */
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @see Set#iterator()
+	 */
+	@Override
+	public Iterator<Node> iterator() {
+		return new Iterator<>() {
+			private Node[] table = NodeSet.this.table;
+			private int index = this.skipEmptySlots(0);
+			private Node last;
+			private boolean copied;
+
+			private int skipEmptySlots(int index) {
+				while (index < this.table.length && this.table[index] == null)
+					index++;
+				return index;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return this.index < this.table.length;
+			}
+
+			@Override
+			public Node next() {
+				if (!this.hasNext())
+					throw new NoSuchElementException();
+				Node node = this.last = this.table[this.index];
+				this.index = this.skipEmptySlots(this.index + 1);
+				return node;
+			}
+
+			@Override
+			public void remove() {
+				if (this.last == null)
+					throw new IllegalStateException();
+				// a node already returned could be moved to a slot not iterated yet
+				if (!this.copied) {
+					this.table = this.table.clone();
+					this.copied = true;
+				}
+				NodeSet.this.remove(this.last);
+				this.last = null;
+			}
+		};
+	}
+
+	/**
+	 * Open-addressing table (linear probing) with the number of nodes that wrap each object, compared by identity.
+	 * The objects and their counts are stored in parallel arrays, so no count is boxed.
+	 */
+	private static final class ValueCounts {
+
+		/**
+		 * Represents the null value in the table (null means an empty slot)
+		 */
+		private static final Object NULL = new Object();
+
+		private Object[] values = new Object[INITIAL_CAPACITY];
+
+		private int[] counts = new int[INITIAL_CAPACITY];
+
+		private int size;
+
+		private static int indexOf(Object value, int length) {
+			int hash = System.identityHashCode(value) * 0x9E3779B9;
+			return (hash ^ (hash >>> 16)) & (length - 1);
+		}
+
+		/**
+		 * @return The slot of the value; the empty slot where it should be placed if it is not in the table
+		 */
+		private int slotOf(Object value) {
+			Object[] values = this.values;
+			int i = indexOf(value, values.length);
+			while (values[i] != null && values[i] != value)
+				i = (i + 1) & (values.length - 1);
+			return i;
+		}
+
+		boolean contains(Object value) {
+			return this.values[this.slotOf(value == null ? NULL : value)] != null;
+		}
+
+		void increment(Object value) {
+			value = value == null ? NULL : value;
+			int i = this.slotOf(value);
+			if (this.values[i] != null) {
+				this.counts[i]++;
+				return;
+			}
+			if (3 * (this.size + 1) > 2 * this.values.length) { // load factor 2/3
+				this.resize();
+				i = this.slotOf(value);
+			}
+			this.values[i] = value;
+			this.counts[i] = 1;
+			this.size++;
+		}
+
+		void decrement(Object value) {
+			int hole = this.slotOf(value == null ? NULL : value);
+			if (this.values[hole] == null || --this.counts[hole] > 0)
+				return;
+			// backward-shift deletion, as in NodeSet.remove
+			Object[] values = this.values;
+			int mask = values.length - 1;
+			values[hole] = null;
+			for (int i = (hole + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+				int home = indexOf(values[i], values.length);
+				if (((i - home) & mask) >= ((i - hole) & mask)) {
+					values[hole] = values[i];
+					this.counts[hole] = this.counts[i];
+					values[i] = null;
+					hole = i;
+				}
+			}
+			this.size--;
+		}
+
+		private void resize() {
+			Object[] oldValues = this.values;
+			int[] oldCounts = this.counts;
+			this.values = new Object[oldValues.length * 2];
+			this.counts = new int[oldValues.length * 2];
+			for (int j = 0; j < oldValues.length; j++)
+				if (oldValues[j] != null) {
+					int i = this.slotOf(oldValues[j]);
+					this.values[i] = oldValues[j];
+					this.counts[i] = oldCounts[j];
+				}
+		}
+
+		void clear() {
+			Arrays.fill(this.values, null);
+			this.size = 0;
+		}
+	}
+
+}
@@ -7,10 +7,11 @@
 
 package introspector.model;
 
-import introspector.model.traverse.SymmetricPair;
+import introspector.model.traverse.ComparisonEngine;
 import introspector.model.traverse.TraverseHelper;
 
-import java.lang.reflect.Field;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -34,131 +35,148 @@ public class ObjectNode extends AbstractNode  implements Node {
 		super(name, value, type);
 	}
 
+	/**
+	 * @see AbstractNode#AbstractNode(String, Object, Class, int)
+	 */
+	public ObjectNode(String name, Object value, Class<?> type, int pageSize) {
+		super(name, value, type, pageSize);
+	}
+
 
 	/**
-	 * Indicates if the isLeaf method has been previously called, and hence cached.
+	 * The cached value for getChildren (null if it has not been computed yet).
+	 * Optimization to avoid computing getChildren with reflection any time it is invoked;
+	 * it is published with compare-and-exchange, so the threads that compare the node share the same children.
 	 */
-	private boolean hasBeenIsLeafCached = false;
+	private volatile List<Node> getChildrenCache;
+
 	/**
-	 * The cached value for isLeaf. Optimization to avoid computing isLeaf with reflection any time
-	 * it is invoked;
+	 * Handle to publish the cached children
 	 */
-	private boolean isLeafCache;
+	private static final VarHandle GET_CHILDREN_CACHE;
+
+	static {
+		try {
+			GET_CHILDREN_CACHE = MethodHandles.lookup().findVarHandle(ObjectNode.class, "getChildrenCache", List.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	public static final String FIELD_NAME_ADDED_BY_INTELLIJ = "__$lineHits$__";
 
 	/**
 	 * An object is a leaf node when it has no fields
 	 *
 	 * @see AbstractNode#isLeaf()
 	 */
-
 	@Override
 	public boolean isLeaf() {
-		// returns the cache if it has been already computed
-		if (this.hasBeenIsLeafCached)
-			return this.isLeafCache;
-		this.hasBeenIsLeafCached = true;
-		// checks if there are fields in the given object
-		Class<?> klass = this.getType();
-		do {
-			boolean hasIntelliJField = Arrays.stream(klass.getDeclaredFields())
-					.anyMatch(field -> field.getName().equals(FIELD_NAME_ADDED_BY_INTELLIJ));
-			int minNumberOfFields = hasIntelliJField ? 2 : 1;
-			if (klass.getDeclaredFields().length >= minNumberOfFields)
-				return this.isLeafCache = false;  // the object has children (without considering the one added by IntelliJ)
-			klass = klass.getSuperclass(); // check in the superclasses
-		} while (klass != null);
-		return this.isLeafCache = true;
+		return FieldLayout.of(this.getType()).getFieldCount() == 0;
 	}
 
-
-	/**
-	 * Indicates if the isChildren method has been previously called, and hence cached.
-	 */
-	private boolean hasBeenGetChildrenCached = false;
-	/**
-	 * The cached value for getChildren.
-	 * Optimization to avoid computing getChildren with reflection any time it is invoked;
-	 */
-	private List<Node> getChildrenCache;
-
-	public static final String FIELD_NAME_ADDED_BY_INTELLIJ = "__$lineHits$__";
-
 	/**
 	 * An object has as many child nodes as fields.
+	 * The fields of each class (and their readers) are computed once and cached in {@link FieldLayout}.
+	 * When nodes are interned, the children are shared by all the nodes of the same object.
 	 *
 	 * @see AbstractNode#getChildren()
 	 */
 	@Override
 	public List<Node> getChildren() {
 		// use the cache when necessary
-		if (this.hasBeenGetChildrenCached)
-			return this.getChildrenCache;
-		this.hasBeenGetChildrenCached = true;
-		// compute the children
-		List<Node> nodes = new ArrayList<>();
+		List<Node> children = this.getChildrenCache;
+		if (children != null)
+			return children;
 		if (this.getValue() == null)
-			return this.getChildrenCache = nodes; // no child when the object reference is null
-		List<Field> fields = new ArrayList<>();
-		Class<?> klass = this.getType();
-		do {
-			for (Field field : klass.getDeclaredFields()) {
-				if (field.getName().equals(FIELD_NAME_ADDED_BY_INTELLIJ))
-					// one field is added by IntelliJ to store the number of lines covered (should not be included)
-					continue;
-				field.setAccessible(true);
-				if (!fields.contains(field))
-					fields.add(field);
-			}
-			klass = klass.getSuperclass();
-		} while (klass != null);
-
-		for (Field field : fields)
-			try {
-				String name = field.getName();
-				if (nodes.stream().filter(node -> node.getName().equals(field.getName())).toArray().length >0)
-					// the field name is repeated (inherited from a superclass)
-					name += ":" + field.getDeclaringClass().getName();
-				if (this.getValue() == null)
-					nodes.add(NodeFactory.createNode(name, null, field.getType()));
-				else {
-					Object fieldValue = field.get(this.getValue());
-					nodes.add(NodeFactory.createNode(name, fieldValue, fieldValue==null ? field.getType() : fieldValue.getClass()));
+			return this.cacheChildren(new ArrayList<>()); // no child when the object reference is null
+		// the children of an aliased object are shared with the node that represents it
+		if (this.getInterner() != null && this.getInterner().findAlias(this) instanceof ObjectNode representative)
+			return this.cacheChildren(representative.getChildren());
+		FieldLayout layout = FieldLayout.of(this.getType());
+		List<Node> nodes = new ArrayList<>(layout.getFieldCount());
+		FieldExtractor extractor = layout.getExtractor();
+		// hot class: all the fields are read in one call; otherwise, they are read one by one
+		if (extractor == null || !this.extractChildren(layout, extractor, nodes))
+			for (int i = 0; i < layout.getFieldCount(); i++)
+				try {
+					nodes.add(createChildNode(layout, i, layout.getReader(i).read(this.getValue())));
+				} catch (Exception e) {
+					System.err.println("Introspector: " + e);
+					//e.printStackTrace(System.err);
 				}
-			} catch (Exception e) {
-				System.err.println("Introspector: " + e);
-				//e.printStackTrace(System.err);
-			}
-		return this.getChildrenCache = nodes;
+		return this.cacheChildren(nodes);
+	}
+
+	/**
+	 * Creates the children of a hot class, reading all the fields with its extractor
+	 * @param layout the field layout of the object
+	 * @param extractor the extractor of the class
+	 * @param nodes where the child nodes are added
+	 * @return whether the fields were read (if not, no node is added and they must be read with the readers)
+	 */
+	private boolean extractChildren(FieldLayout layout, FieldExtractor extractor, List<Node> nodes) {
+		Object[] values = layout.getBuffer();
+		try {
+			extractor.extract(this.getValue(), values);
+			for (int i = 0; i < layout.getFieldCount(); i++)
+				nodes.add(createChildNode(layout, i, values[i]));
+			return true;
+		} catch (Exception e) {
+			System.err.println("Introspector: " + e);
+			nodes.clear();
+			return false;
+		} finally {
+			Arrays.fill(values, null); // the buffer must not keep the objects alive
+		}
+	}
+
+	/**
+	 * Caches the children, unless another thread has cached them first
+	 * @return The children cached
+	 */
+	private List<Node> cacheChildren(List<Node> children) {
+		Object witness = GET_CHILDREN_CACHE.compareAndExchange(this, (List<Node>) null, children);
+		return witness == null ? children : this.getChildrenCache;
+	}
+
+	/**
+	 * Creates the node that represents one field
+	 * @param layout the field layout of the object
+	 * @param index the index of the field in the layout
+	 * @param fieldValue the value of the field
+	 * @return the child node
+	 */
+	private Node createChildNode(FieldLayout layout, int index, Object fieldValue) {
+		return NodeFactory.createNode(layout.getName(index), fieldValue,
+				fieldValue == null ? layout.getFieldType(index) : fieldValue.getClass(), this.getPageSize(), this.getInterner());
 	}
 
 
 	/**
-	 * @see Node#compareTrees(Node, boolean, Set, Set)
+	 * @see Node#compareNode(Node, boolean, ComparisonEngine)
 	 */
 	@Override
-	public Set<Node> compareTrees(Node node2, boolean equalName, Set<Node> modifiedNodes, Set<SymmetricPair<Node, Node>> alreadyTraversed) {
-		if (!TraverseHelper.shouldBeTraversed(new SymmetricPair<>(this, node2), alreadyTraversed))
-			return modifiedNodes; // cycle detected
+	public void compareNode(Node node2, boolean equalName, ComparisonEngine engine) {
+		if (!TraverseHelper.shouldBeTraversed(this, node2, engine.getAlreadyTraversed()))
+			return; // cycle detected
 		if (node2 instanceof ObjectNode objectNode2) {
 			// they must have the same types
 			if (!this.getType().equals(objectNode2.getType())) {
-				modifiedNodes.add(this);
-				modifiedNodes.add(objectNode2);
-				return modifiedNodes;
+				engine.modified(this, objectNode2);
+				return;
 			}
 			if (this.getValue() == null && objectNode2.getValue() == null)
-				return modifiedNodes;
+				return;
 			if (this.getValue() == null || objectNode2.getValue() == null) {
 				// one of them is null but not the other (first condition above)
-				modifiedNodes.add(this);
-				modifiedNodes.add(objectNode2);
-				return modifiedNodes;
+				engine.modified(this, objectNode2);
+				return;
 			}
 			// if they are not the root nodes, they must have the same names
-			if (equalName && !this.getName().equals(objectNode2.getName())) {
-				modifiedNodes.add(this);
-				modifiedNodes.add(objectNode2);
-				return modifiedNodes;
+			if (equalName && !this.hasSameName(objectNode2)) {
+				engine.modified(this, objectNode2);
+				return;
 			}
 			Map<String, Node> children1 = this.getChildren().stream().collect(Collectors.toMap(node -> node.getName(), node -> node));
 			Map<String, Node> children2 = objectNode2.getChildren().stream().collect(Collectors.toMap(node -> node.getName(), node -> node));
@@ -166,21 +184,19 @@ public class ObjectNode extends AbstractNode  implements Node {
 			Set<String> children1NotInChildren2 = new HashSet<>(children1.keySet());
 			children1NotInChildren2.removeAll(children2.keySet());
 			for (String childName : children1NotInChildren2)
-				modifiedNodes.add(children1.get(childName));
+				engine.removed(children1.get(childName));
 			// children in children2 but not in children1
 			Set<String> children2NotInChildren1 = new HashSet<>(children2.keySet());
 			children2NotInChildren1.removeAll(children1.keySet());
 			for (String childName : children2NotInChildren1)
-				modifiedNodes.add(children2.get(childName));
-			// children in both nodes (recursively compare them)
+				engine.added(children2.get(childName));
+			// children in both nodes (their comparison is scheduled)
 			for (String childName : children1.keySet())
-				children1.get(childName).compareTrees(children2.get(childName), true, modifiedNodes, alreadyTraversed);
-			return modifiedNodes;
+				engine.schedule(children1.get(childName), children2.get(childName), true);
+			return;
 		}
 		// node2 is not an ObjectNode => they are different
-		modifiedNodes.add(this);
-		modifiedNodes.add(node2);
-		return modifiedNodes;
+		engine.modified(this, node2);
 	}
 
 }
@@ -0,0 +1,137 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model;
+
+/**
+ * PrimitiveArrayNode is the base class of the nodes that represent arrays of primitive types.
+ * The elements are read directly from the typed array (no reflection is used).
+ * By default, arrays have one child per element. When compaction is enabled (see
+ * {@link NodeFactory#setCompactArrayThreshold(int)}), arrays with more elements than the threshold are shown
+ * in rows: each child is a leaf node whose value is one line of text with ELEMENTS_PER_ROW elements
+ * (e.g., "array[0..31] (String): 1, 2, 3, ..."), so no node (nor boxed value) is created per element.
+ * Rows are compared (and shown as modified) as a whole.
+ * When the node is paged, the ranges group rows, but they are named with the indexes of the elements.
+ */
+public abstract class PrimitiveArrayNode extends ArrayNode implements Node {
+
+	/**
+	 * The number of elements shown in each row of a compact array
+	 */
+	static final int ELEMENTS_PER_ROW = 32;
+
+	/**
+	 * Arrays created from now on with more elements than this threshold are shown in rows
+	 * (zero or negative to show one child per element)
+	 */
+	private static volatile int defaultCompactThreshold = 0;
+
+	/**
+	 * Arrays with more elements than this threshold are shown in rows (zero or negative if never).
+	 * It is taken when the node is created, so the children of one node do not change with the setting.
+	 */
+	private final int compactThreshold = defaultCompactThreshold;
+
+	/**
+	 * @see ArrayNode#ArrayNode(String, Object)
+	 */
+	protected PrimitiveArrayNode(String name, Object value) {
+		super(name, value);
+	}
+
+	/**
+	 * @see ArrayNode#ArrayNode(String, Object, Class)
+	 */
+	protected PrimitiveArrayNode(String name, Object value, Class<?> type) {
+		super(name, value, type);
+	}
+
+	/**
+	 * @see ArrayNode#ArrayNode(String, Object, Class, int)
+	 */
+	protected PrimitiveArrayNode(String name, Object value, Class<?> type, int pageSize) {
+		super(name, value, type, pageSize);
+	}
+
+	/**
+	 * Returns the length of the array
+	 * @return The length of the array (the value is not null)
+	 */
+	protected abstract int getLength();
+
+	/**
+	 * Returns one element of the array, boxed to be wrapped by a node
+	 * @param index The index of the element
+	 * @return The boxed element
+	 */
+	protected abstract Object getElementValue(int index);
+
+	/**
+	 * Appends the textual representation of some consecutive elements, in one line
+	 * @param sb Where the elements are appended
+	 * @param from The index of the first element
+	 * @param to The index of the last element (exclusive)
+	 */
+	protected abstract void appendRow(StringBuilder sb, int from, int to);
+
+	/**
+	 * @return Whether the elements are shown in rows (the value is not null)
+	 */
+	private boolean isCompact() {
+		return this.compactThreshold > 0 && this.getLength() > this.compactThreshold;
+	}
+
+	/**
+	 * @see NodeFactory#setCompactArrayThreshold(int)
+	 */
+	static void setCompactThreshold(int threshold) {
+		defaultCompactThreshold = threshold;
+	}
+
+	/**
+	 * A primitive array has as many children as elements or, when it is compact, rows.
+	 *
+	 * @see ContainerNode#getContainerSize()
+	 */
+	@Override
+	protected int getContainerSize() {
+		int length = this.getLength();
+		return this.isCompact() ? (length + ELEMENTS_PER_ROW - 1) / ELEMENTS_PER_ROW : length;
+	}
+
+	/**
+	 * The child is either the element in the index position, or the index-th row of elements.
+	 *
+	 * @see ContainerNode#createChild(int)
+	 */
+	@Override
+	protected Node createChild(int index) {
+		if (!this.isCompact()) {
+			Object element = this.getElementValue(index);
+			return NodeFactory.createChildNode(this, index, element, element.getClass());
+		}
+		int from = index * ELEMENTS_PER_ROW, to = Math.min(this.getLength(), from + ELEMENTS_PER_ROW);
+		StringBuilder sb = new StringBuilder();
+		this.appendRow(sb, from, to);
+		// the key of a row is its range of elements (e.g., array[32..63])
+		return NodeFactory.createChildNode(this, new RangeNode.Range(from, to - 1), sb.toString(), String.class);
+	}
+
+	/**
+	 * Ranges of rows are named with the indexes of their first and last elements.
+	 *
+	 * @see ContainerNode#getRangeName(int, int)
+	 */
+	@Override
+	String getRangeName(int from, int to) {
+		if (!this.isCompact())
+			return super.getRangeName(from, to);
+		return super.getRangeName(from * ELEMENTS_PER_ROW,
+				(int) Math.min(this.getLength() - 1, (long) to * ELEMENTS_PER_ROW + ELEMENTS_PER_ROW - 1));
+	}
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model;
+
+import introspector.model.traverse.ComparisonEngine;
+import introspector.model.traverse.TraverseHelper;
+
+import java.util.List;
+
+/**
+ * RangeNode is a synthetic node that groups a page of consecutive elements of a big container
+ * (collection, array or map), when the tree is created with a page size (see NodeFactory).
+ * Its name is the name of the container followed by the range of indexes (e.g., list[1000..1999]).
+ * Its children are the nodes of the elements, or nested ranges when the range has more elements than the page size.
+ */
+public class RangeNode extends ContainerNode implements Node {
+
+	/**
+	 * The value wrapped by a range node: the (inclusive) indexes of the first and last elements in the range.
+	 * A new object is created for each range node, since nodes are compared by identity of their values.
+	 * @param from The index of the first element
+	 * @param to The index of the last element
+	 */
+	public record Range(int from, int to) {
+
+		/**
+		 * @return The range represented as from..to
+		 */
+		@Override
+		public String toString() {
+			return from + ".." + to;
+		}
+
+	}
+
+	/**
+	 * The container node whose elements are grouped
+	 */
+	private final ContainerNode container;
+
+	/**
+	 * The number of elements grouped by each child (1 when the children are the elements of the container)
+	 */
+	private final int elementsPerChild;
+
+	/**
+	 * Creates a range of the elements of a container
+	 * @param container The container node whose elements are grouped
+	 * @param from The index of the first element in the range
+	 * @param to The index of the last element in the range
+	 * @param elementsPerChild The number of elements grouped by each child (1 for no nested ranges)
+	 */
+	RangeNode(ContainerNode container, int from, int to, int elementsPerChild) {
+		super(container.getRangeName(from, to), new Range(from, to), Range.class);
+		this.container = container;
+		// the last range of a container may be smaller, so it does not need as many nesting levels
+		while (elementsPerChild > 1 && to - from < elementsPerChild)
+			elementsPerChild /= container.getPageSize();
+		this.elementsPerChild = elementsPerChild;
+	}
+
+	/**
+	 * @return The indexes of the first and last elements in the range
+	 */
+	public Range getRange() {
+		return (Range) this.getValue();
+	}
+
+	/**
+	 * A range has as many children as elements (or nested ranges) it groups.
+	 *
+	 * @see ContainerNode#getContainerSize()
+	 */
+	@Override
+	protected int getContainerSize() {
+		Range range = this.getRange();
+		return (range.to() - range.from()) / this.elementsPerChild + 1;
+	}
+
+	/**
+	 * The children are the nodes of the elements (shared with the container) or nested ranges.
+	 *
+	 * @see ContainerNode#createChild(int)
+	 */
+	@Override
+	protected Node createChild(int index) {
+		Range range = this.getRange();
+		int from = range.from() + index * this.elementsPerChild;
+		if (this.elementsPerChild == 1)
+			return this.container.getElement(from);
+		int to = (int) Math.min(range.to(), (long) from + this.elementsPerChild - 1);
+		return new RangeNode(this.container, from, to, this.elementsPerChild / this.container.getPageSize());
+	}
+
+	/**
+	 * @see Node#compareNode(Node, boolean, ComparisonEngine)
+	 */
+	@Override
+	public void compareNode(Node node2, boolean equalName, ComparisonEngine engine) {
+		if (!TraverseHelper.shouldBeTraversed(this, node2, engine.getAlreadyTraversed()))
+			return; // cycle detected
+		if (node2 instanceof RangeNode rangeNode2) {
+			// if they are not the root nodes, they must have the same names
+			if (equalName && !this.hasSameName(rangeNode2)) {
+				engine.modified(this, rangeNode2);
+				return;
+			}
+			List<Node> children1 = this.getChildren();
+			List<Node> children2 = rangeNode2.getChildren();
+			// they may not have the same number of children
+			if (children1.size() != children2.size()) {
+				engine.modified(this, rangeNode2);
+			}
+			int minChildrenCount = Math.min(children1.size(), children2.size());
+			for (int i = 0; i < minChildrenCount; i++)
+				engine.schedule(children1.get(i), children2.get(i), equalName);
+			engine.addNewChildren(children1, children2);
+			return;
+		}
+		// node2 is not a range => they are different
+		engine.modified(this, node2);
+	}
+
+}
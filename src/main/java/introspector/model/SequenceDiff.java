@@ -0,0 +1,304 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model;
+
+import introspector.model.traverse.ComparisonEngine;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Compares the elements of two sequences (lists and arrays) with a minimal edit script, instead of by position.
+ * The elements are represented by their structural hashes (fingerprints, see {@link Node#getStructuralHash()}),
+ * and the longest common subsequence of elements is found with the linear-space variant of the O(ND) algorithm of
+ * Myers: after removing the common prefix and suffix, the middle snake of the edit script is found searching
+ * forward and backward at the same time, and the elements before and after it are compared in the same way.
+ * Then, the elements deleted from one sequence that are inserted in another position of the other one are
+ * matched as moved elements, which are modified nodes (see {@link ComparisonEngine#moved(Node, Node)}).
+ * Finally, the elements that remain between two common ones (replaced elements) are compared by position,
+ * and the rest of them are new (modified nodes).
+ * Different elements may have the same fingerprint, so the matched elements (common and moved) are compared
+ * too; when the engine skips the subtrees with the same structural hash, these comparisons are skipped.
+ * Elements with no structural hash (cyclic references) are never equal, so they are compared as replaced elements.
+ * If the edit distance is bigger than MAX_EDIT_DISTANCE, the elements not in the common prefix and suffix
+ * are compared by position (no element is matched as moved).
+ */
+final class SequenceDiff {
+
+	/**
+	 * The maximum edit distance computed with the algorithm of Myers (it takes O((N+M)D) time)
+	 */
+	static final int MAX_EDIT_DISTANCE = 2048;
+
+	/**
+	 * The two containers whose elements are compared
+	 */
+	private final ContainerNode sequence1, sequence2;
+
+	/**
+	 * The number of elements of each sequence
+	 */
+	private final int size1, size2;
+
+	/**
+	 * The fingerprints of the elements of each sequence
+	 */
+	private final long[] fingerprints1, fingerprints2;
+
+	/**
+	 * Whether the elements of each sequence have a fingerprint
+	 */
+	private final boolean[] hashed1, hashed2;
+
+	/**
+	 * The index of the element of the second sequence matched with each element of the first one (-1 if none)
+	 */
+	private final int[] matches1;
+
+	/**
+	 * Whether each element of the second sequence has been matched
+	 */
+	private final boolean[] matched2;
+
+	/**
+	 * Whether each element of the first sequence has been matched as a moved element
+	 */
+	private final boolean[] moved1;
+
+	/**
+	 * Whether the edit distance is bigger than MAX_EDIT_DISTANCE, so the common subsequence was not computed
+	 */
+	private boolean editDistanceExceeded;
+
+	private SequenceDiff(ContainerNode sequence1, ContainerNode sequence2) {
+		this.sequence1 = sequence1;
+		this.sequence2 = sequence2;
+		this.size1 = sequence1.getValue() == null ? 0 : sequence1.getContainerSize();
+		this.size2 = sequence2.getValue() == null ? 0 : sequence2.getContainerSize();
+		this.fingerprints1 = new long[this.size1];
+		this.fingerprints2 = new long[this.size2];
+		this.hashed1 = fingerprints(sequence1, this.fingerprints1);
+		this.hashed2 = fingerprints(sequence2, this.fingerprints2);
+		this.matches1 = new int[this.size1];
+		Arrays.fill(this.matches1, -1);
+		this.matched2 = new boolean[this.size2];
+		this.moved1 = new boolean[this.size1];
+	}
+
+	/**
+	 * Compares the elements of two sequences with a minimal edit script
+	 * @param sequence1 The first container (list or array)
+	 * @param sequence2 The second container (list or array)
+	 * @param engine The engine where the comparisons of the replaced elements are scheduled
+	 */
+	static void compare(ContainerNode sequence1, ContainerNode sequence2, ComparisonEngine engine) {
+		SequenceDiff diff = new SequenceDiff(sequence1, sequence2);
+		diff.matchCommonSubsequence();
+		boolean moved = diff.matchMovedElements();
+		// the containers are modified when elements are added, removed or moved
+		if (diff.size1 != diff.size2 || moved)
+			engine.modified(sequence1, sequence2);
+		diff.compareReplacedElements(engine);
+	}
+
+	/**
+	 * Computes the fingerprints of the elements of a sequence
+	 * @return Whether each element has a fingerprint
+	 */
+	private static boolean[] fingerprints(ContainerNode sequence, long[] fingerprints) {
+		boolean[] hashed = new boolean[fingerprints.length];
+		for (int i = 0; i < fingerprints.length; i++) {
+			OptionalLong hash = sequence.getElement(i).getStructuralHash();
+			hashed[i] = hash.isPresent();
+			fingerprints[i] = hash.orElse(0);
+		}
+		return hashed;
+	}
+
+	private boolean equal(int index1, int index2) {
+		return this.hashed1[index1] && this.hashed2[index2] && this.fingerprints1[index1] == this.fingerprints2[index2];
+	}
+
+	private void match(int index1, int index2) {
+		this.matches1[index1] = index2;
+		this.matched2[index2] = true;
+	}
+
+	/**
+	 * Matches the elements in the longest common subsequence (unless the edit distance is too big)
+	 */
+	private void matchCommonSubsequence() {
+		if (!this.matchCommonSubsequence(0, this.size1, 0, this.size2))
+			this.editDistanceExceeded = true;
+	}
+
+	/**
+	 * Matches the elements in the longest common subsequence of two ranges: the common prefix and suffix,
+	 * and then the rest of elements with the algorithm of Myers
+	 * @return Whether the edit distance is not bigger than MAX_EDIT_DISTANCE
+	 */
+	private boolean matchCommonSubsequence(int start1, int end1, int start2, int end2) {
+		while (start1 < end1 && start2 < end2 && this.equal(start1, start2))
+			this.match(start1++, start2++);
+		while (end1 > start1 && end2 > start2 && this.equal(end1 - 1, end2 - 1))
+			this.match(--end1, --end2);
+		if (start1 == end1 || start2 == end2)
+			return true; // only insertions or deletions
+		return this.myers(start1, end1, start2, end2);
+	}
+
+	/**
+	 * Linear-space algorithm of Myers: finds the middle snake of the shortest edit script between two ranges
+	 * (with no common prefix nor suffix) and matches the common elements before and after it.
+	 * The furthest reaching x of each diagonal k (x - y) is stored in forward, for the paths from the start
+	 * of the ranges, and in backward, for the paths from their end (x counted from the end); the search ends
+	 * when a forward and a backward path overlap. Only these two arrays are stored (O(N+M) memory).
+	 * @return Whether the edit distance is not bigger than MAX_EDIT_DISTANCE
+	 */
+	private boolean myers(int start1, int end1, int start2, int end2) {
+		int n = end1 - start1, m = end2 - start2;
+		// each path takes half of the edit distance
+		int maxSteps = (Math.min(n + m, MAX_EDIT_DISTANCE) + 1) / 2 + 1;
+		int offset = maxSteps, length = 2 * maxSteps + 1;
+		int[] forward = new int[length], backward = new int[length];
+		Arrays.fill(forward, -1);
+		Arrays.fill(backward, -1);
+		forward[offset + 1] = backward[offset + 1] = 0;
+		int delta = n - m;
+		// when delta is odd, the paths overlap in a forward step; otherwise, in a backward one
+		boolean overlapForward = (delta & 1) != 0;
+		// the diagonals that go beyond the ranges are no longer extended
+		int forwardStart = 0, forwardEnd = 0, backwardStart = 0, backwardEnd = 0;
+		for (int d = 0; d < maxSteps; d++) {
+			for (int k = -d + forwardStart; k <= d - forwardEnd; k += 2) {
+				int x = k == -d || (k != d && forward[offset + k - 1] < forward[offset + k + 1]) ?
+						forward[offset + k + 1] : forward[offset + k - 1] + 1;
+				int y = x - k;
+				while (x < n && y < m && this.equal(start1 + x, start2 + y)) {
+					x++;
+					y++;
+				}
+				forward[offset + k] = x;
+				if (x > n)
+					forwardEnd += 2;
+				else if (y > m)
+					forwardStart += 2;
+				else if (overlapForward) {
+					int backwardK = offset + delta - k;
+					if (backwardK >= 0 && backwardK < length && backward[backwardK] != -1 && x >= n - backward[backwardK])
+						return this.matchCommonSubsequence(start1, start1 + x, start2, start2 + y) &&
+								this.matchCommonSubsequence(start1 + x, end1, start2 + y, end2);
+				}
+			}
+			for (int k = -d + backwardStart; k <= d - backwardEnd; k += 2) {
+				int x = k == -d || (k != d && backward[offset + k - 1] < backward[offset + k + 1]) ?
+						backward[offset + k + 1] : backward[offset + k - 1] + 1;
+				int y = x - k;
+				while (x < n && y < m && this.equal(end1 - x - 1, end2 - y - 1)) {
+					x++;
+					y++;
+				}
+				backward[offset + k] = x;
+				if (x > n)
+					backwardEnd += 2;
+				else if (y > m)
+					backwardStart += 2;
+				else if (!overlapForward) {
+					int forwardK = offset + delta - k;
+					if (forwardK >= 0 && forwardK < length && forward[forwardK] != -1 && forward[forwardK] >= n - x) {
+						int forwardX = forward[forwardK], forwardY = forwardX - (forwardK - offset);
+						return this.matchCommonSubsequence(start1, start1 + forwardX, start2, start2 + forwardY) &&
+								this.matchCommonSubsequence(start1 + forwardX, end1, start2 + forwardY, end2);
+					}
+				}
+			}
+		}
+		// no overlap: either no element is common, or the edit distance is too big
+		return n + m <= MAX_EDIT_DISTANCE;
+	}
+
+	/**
+	 * Matches the elements deleted from the first sequence with equal elements inserted in the second one
+	 * (unless the edit distance is too big, since the elements are then compared by position)
+	 * @return Whether any element has been moved
+	 */
+	private boolean matchMovedElements() {
+		if (this.editDistanceExceeded)
+			return false;
+		// the unmatched elements of the second sequence with the same fingerprint are chained
+		Map<Long, Integer> firstIndexes2 = new HashMap<>();
+		int[] nextIndexes2 = new int[this.size2];
+		for (int j = this.size2 - 1; j >= 0; j--)
+			if (!this.matched2[j] && this.hashed2[j]) {
+				Integer next = firstIndexes2.put(this.fingerprints2[j], j);
+				nextIndexes2[j] = next == null ? -1 : next;
+			}
+		if (firstIndexes2.isEmpty())
+			return false;
+		boolean moved = false;
+		for (int i = 0; i < this.size1; i++) {
+			if (this.matches1[i] >= 0 || !this.hashed1[i])
+				continue;
+			Integer j = firstIndexes2.get(this.fingerprints1[i]);
+			if (j == null)
+				continue;
+			this.match(i, j);
+			this.moved1[i] = moved = true;
+			if (nextIndexes2[j] >= 0)
+				firstIndexes2.put(this.fingerprints1[i], nextIndexes2[j]);
+			else
+				firstIndexes2.remove(this.fingerprints1[i]);
+		}
+		return moved;
+	}
+
+	/**
+	 * The unmatched elements between two common elements are compared by position; the rest are new.
+	 * The matched elements are compared with their matches, in order.
+	 */
+	private void compareReplacedElements(ComparisonEngine engine) {
+		int i = 0, j = 0;
+		while (i < this.size1 || j < this.size2) {
+			// the next common element (not moved) delimits the gap
+			int anchor1 = i;
+			while (anchor1 < this.size1 && (this.matches1[anchor1] < 0 || this.moved1[anchor1]))
+				anchor1++;
+			int anchor2 = anchor1 < this.size1 ? this.matches1[anchor1] : this.size2;
+			while (i < anchor1 || j < anchor2) {
+				while (i < anchor1 && this.matches1[i] >= 0) {
+					// moved element
+					engine.moved(this.sequence1.getElement(i), this.sequence2.getElement(this.matches1[i]));
+					this.compareMatched(i++, engine);
+				}
+				while (j < anchor2 && this.matched2[j])
+					j++;
+				if (i < anchor1 && j < anchor2)
+					engine.schedule(this.sequence1.getElement(i++), this.sequence2.getElement(j++), false);
+				else if (i < anchor1)
+					engine.removed(this.sequence1.getElement(i++));
+				else if (j < anchor2)
+					engine.added(this.sequence2.getElement(j++));
+			}
+			if (anchor1 < this.size1)
+				this.compareMatched(anchor1, engine);
+			i = anchor1 + 1;
+			j = anchor2 + 1;
+		}
+	}
+
+	/**
+	 * Schedules the comparison of a matched element with its match (their names are not compared, since
+	 * they may be in different positions)
+	 */
+	private void compareMatched(int index1, ComparisonEngine engine) {
+		engine.schedule(this.sequence1.getElement(index1), this.sequence2.getElement(this.matches1[index1]), false);
+	}
+
+}
@@ -0,0 +1,223 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model;
+
+import introspector.model.traverse.TraverseHelper;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Computes the structural (Merkle) hashes of the nodes in a subtree. The hash of a node combines its type,
+ * whether it is a leaf, the hash of its value (leaves), and the names and hashes of its children, in order.
+ * Strings (values, names and keys) are hashed by their content in 64 bits.
+ * The name of the node itself is not included, so that the subtrees of roots with different names can be
+ * compared; the names of the container elements are represented by their index or key.
+ * The subtree is traversed iteratively. A reference to an object that is being hashed (a cycle) is hashed as
+ * the distance to that object in the branch. Therefore, the hash of a node whose subtree has a cycle to one
+ * of its ancestors depends on the path it is reached from: these nodes have no structural hash.
+ */
+final class StructuralHash {
+
+	/**
+	 * Hash of a cyclic reference, combined with the distance to the object referenced
+	 */
+	private static final long CYCLE = 0x6A09E667F3BCC909L;
+
+	/**
+	 * The multiplier used to combine hashes
+	 */
+	private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+	/**
+	 * The nodes in the branch being hashed (the index is the depth in the subtree)
+	 */
+	private Node[] nodes = new Node[64];
+
+	/**
+	 * The index of the next child of each node in the branch
+	 */
+	private int[] nextChildren = new int[64];
+
+	/**
+	 * The hash of each node in the branch, combined with the children hashed so far
+	 */
+	private long[] hashes = new long[64];
+
+	/**
+	 * The minimum depth of the objects referenced by cycles in the subtree of each node in the branch
+	 */
+	private int[] lowestCycles = new int[64];
+
+	/**
+	 * The depth in the branch of the objects being hashed (compared by identity)
+	 */
+	private final Map<Object, Integer> depths = new IdentityHashMap<>();
+
+	/**
+	 * The nodes already hashed for each object, used for other nodes of the same class wrapping them (aliases)
+	 */
+	private final Map<Object, AbstractNode> hashedNodes = new IdentityHashMap<>();
+
+	/**
+	 * Computes the structural hashes of a subtree, storing them in its nodes
+	 * @param root The root of the subtree
+	 */
+	static void compute(AbstractNode root) {
+		new StructuralHash().hashSubtree(root);
+	}
+
+	private void hashSubtree(Node root) {
+		int top = this.push(root, 0);
+		while (top >= 0) {
+			Node node = this.nodes[top];
+			if (this.nextChildren[top] < node.getChildrenCount()) {
+				Node child = node.getChild(this.nextChildren[top]++);
+				this.hashes[top] = combine(this.hashes[top], nameHash(child));
+				Long childHash = this.knownHash(child);
+				Integer cycleDepth = TraverseHelper.couldBeVisitedTwice(child) ? this.depths.get(child.getValue()) : null;
+				if (childHash != null)
+					this.hashes[top] = combine(this.hashes[top], childHash);
+				else if (cycleDepth != null) {
+					// cyclic reference to an object in the branch
+					this.hashes[top] = combine(this.hashes[top], CYCLE + top + 1 - cycleDepth);
+					this.lowestCycles[top] = Math.min(this.lowestCycles[top], cycleDepth);
+				}
+				else
+					top = this.push(child, top + 1);
+			}
+			else {
+				// all the children have been hashed
+				long hash = finish(this.hashes[top]);
+				boolean closed = this.lowestCycles[top] >= top; // no cycle to an ancestor
+				if (TraverseHelper.couldBeVisitedTwice(node))
+					this.depths.remove(node.getValue());
+				if (node instanceof AbstractNode abstractNode) {
+					abstractNode.setStructuralHash(closed ? hash : null);
+					if (closed && TraverseHelper.couldBeVisitedTwice(node))
+						this.hashedNodes.put(node.getValue(), abstractNode);
+				}
+				this.nodes[top] = null;
+				if (--top >= 0) {
+					this.hashes[top] = combine(this.hashes[top], hash);
+					this.lowestCycles[top] = Math.min(this.lowestCycles[top], this.lowestCycles[top + 1]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Pushes a node in the branch
+	 * @return The depth of the node
+	 */
+	private int push(Node node, int depth) {
+		if (depth == this.nodes.length) {
+			this.nodes = Arrays.copyOf(this.nodes, 2 * depth);
+			this.nextChildren = Arrays.copyOf(this.nextChildren, 2 * depth);
+			this.hashes = Arrays.copyOf(this.hashes, 2 * depth);
+			this.lowestCycles = Arrays.copyOf(this.lowestCycles, 2 * depth);
+		}
+		this.nodes[depth] = node;
+		this.nextChildren[depth] = 0;
+		this.lowestCycles[depth] = Integer.MAX_VALUE;
+		long hash = combine(Objects.hashCode(node.getType()), node.isLeaf() ? 1 : 2);
+		if (node.isLeaf())
+			hash = combine(hash, leafHash(node.getValue()));
+		this.hashes[depth] = combine(hash, node.getChildrenCount());
+		if (TraverseHelper.couldBeVisitedTwice(node))
+			this.depths.put(node.getValue(), depth);
+		return depth;
+	}
+
+	/**
+	 * @return The structural hash of a node computed before; null if it is not known
+	 */
+	private Long knownHash(Node node) {
+		if (!(node instanceof AbstractNode abstractNode))
+			return null;
+		if (abstractNode.hasStructuralHash())
+			return abstractNode.getStructuralHash().getAsLong();
+		AbstractNode alias = TraverseHelper.couldBeVisitedTwice(node) ? this.hashedNodes.get(node.getValue()) : null;
+		if (alias != null && alias.getClass() == node.getClass() && alias.getType() == node.getType() &&
+				alias.getPageSize() == abstractNode.getPageSize())
+			return alias.getStructuralHash().getAsLong();
+		return null;
+	}
+
+	/**
+	 * The value of a leaf is hashed by its content in 64 bits when it is a string (including the rows of
+	 * primitive arrays), a long, a double or an enum, since their 32-bit hash codes collide easily
+	 * (e.g., "Aa" and "BB"). The other values are hashed with their hash code.
+	 * @return The hash of the value of a leaf
+	 */
+	private static long leafHash(Object value) {
+		if (value instanceof String string)
+			return stringHash(string);
+		if (value instanceof Long longValue)
+			return longValue;
+		if (value instanceof Double doubleValue)
+			return Double.doubleToLongBits(doubleValue);
+		if (value instanceof Enum<?> enumValue)
+			return enumValue.ordinal();
+		return Objects.hashCode(value);
+	}
+
+	/**
+	 * Hashes the content of a string in 64 bits: blocks of 4 characters are mixed with the rounds of MurmurHash3
+	 * (the rotations avoid the collisions of polynomial hashes modulo 2^64, such as those of Thue-Morse strings)
+	 * @return The hash of the string
+	 */
+	static long stringHash(String string) {
+		int length = string.length(), i = 0;
+		long hash = length;
+		for (; i + 4 <= length; i += 4)
+			hash = mixBlock(hash, string.charAt(i) | (long) string.charAt(i + 1) << 16 |
+					(long) string.charAt(i + 2) << 32 | (long) string.charAt(i + 3) << 48);
+		long block = 0;
+		for (int shift = 0; i < length; i++, shift += 16)
+			block |= (long) string.charAt(i) << shift;
+		return mixBlock(hash, block);
+	}
+
+	/**
+	 * Mixes a block of 64 bits into a hash (round of MurmurHash3)
+	 */
+	private static long mixBlock(long hash, long block) {
+		block *= 0x87C37B91114253D5L;
+		block = Long.rotateLeft(block, 31);
+		block *= 0x4CF5AD432745937FL;
+		hash ^= block;
+		return Long.rotateLeft(hash, 27) * 5 + 0x52DCE729;
+	}
+
+	/**
+	 * @return The 64-bit hash of the name of a child: its index or key for container elements
+	 */
+	private static long nameHash(Node child) {
+		String name = child instanceof AbstractNode abstractNode ? abstractNode.getLocalName() : child.getName();
+		return name == null ? 0 : stringHash(name);
+	}
+
+	private static long combine(long hash, long value) {
+		return (hash + value) * MULTIPLIER;
+	}
+
+	/**
+	 * Spreads the bits of the hash (finalizer of MurmurHash3)
+	 */
+	private static long finish(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		hash *= 0xC4CEB93FE1A85A53L;
+		return hash ^ (hash >>> 33);
+	}
+
+}
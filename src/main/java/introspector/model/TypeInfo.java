@@ -0,0 +1,147 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Information about a type used to create and show nodes: its kind of node and names.
+ * It is computed once per class and cached with a ClassValue, so the checks
+ * (type names, subtyping) are not repeated for every node.
+ */
+public final class TypeInfo {
+
+	/**
+	 * The kinds of nodes created by NodeFactory
+	 */
+	public enum Kind {
+		/** Primitive types, their wrappers, String and null */
+		BUILTIN,
+		/** Enumerations */
+		ENUM,
+		/** java.util.Collection (lists, sets, queues and deques) */
+		COLLECTION,
+		/** java.util.Map */
+		MAP,
+		/** Arrays */
+		ARRAY,
+		/** java.util.Optional (represented by the node of its content) */
+		OPTIONAL,
+		/** Any other object */
+		OBJECT
+	}
+
+	/**
+	 * The names of the built-in types
+	 */
+	private static final Set<String> BUILTIN_TYPE_NAMES = Set.of(
+			"null", "boolean", "byte", "short", "char", "int", "long", "float", "double",
+			"java.lang.Boolean", "java.lang.Byte", "java.lang.Short", "java.lang.Character",
+			"java.lang.Integer", "java.lang.Long", "java.lang.Float", "java.lang.Double", "java.lang.String",
+			"javax.lang.model.type.NullType");
+
+	/**
+	 * The information of each class, computed the first time it is requested
+	 */
+	private static final ClassValue<TypeInfo> TYPE_INFOS = new ClassValue<>() {
+		@Override
+		protected TypeInfo computeValue(Class<?> type) {
+			return new TypeInfo(type);
+		}
+	};
+
+	/**
+	 * The kind of node used to represent the objects of the type
+	 */
+	private final Kind kind;
+
+	/**
+	 * The name of the type (Class.getName)
+	 */
+	private final String name;
+
+	/**
+	 * The simple name of the type (Class.getSimpleName)
+	 */
+	private final String simpleName;
+
+	/**
+	 * Computes the information of one type
+	 */
+	private TypeInfo(Class<?> type) {
+		this.kind = kindOf(type);
+		this.name = type.getName();
+		this.simpleName = type.getSimpleName();
+	}
+
+	/**
+	 * Returns the (cached) information of a type
+	 * @param type The type
+	 * @return The information of the type
+	 */
+	public static TypeInfo of(Class<?> type) {
+		return TYPE_INFOS.get(type);
+	}
+
+	/**
+	 * Computes the kind of node used to represent the objects of a type
+	 */
+	private static Kind kindOf(Class<?> type) {
+		if (BUILTIN_TYPE_NAMES.contains(type.getName()))
+			return Kind.BUILTIN;
+		if (type.getSuperclass() == Enum.class)
+			return Kind.ENUM;
+		if (Collection.class.isAssignableFrom(type))
+			return Kind.COLLECTION;
+		if (Map.class.isAssignableFrom(type))
+			return Kind.MAP;
+		if (type.isArray())
+			return Kind.ARRAY;
+		if (type.getName().equals("java.util.Optional"))
+			return Kind.OPTIONAL;
+		return Kind.OBJECT;
+	}
+
+	/**
+	 * @return The kind of node used to represent the objects of the type
+	 */
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * @return Whether the type is built-in (primitive types, their wrappers, String and null)
+	 */
+	public boolean isBuiltin() {
+		return kind == Kind.BUILTIN;
+	}
+
+	/**
+	 * @return Whether the type is an enumeration
+	 */
+	public boolean isEnum() {
+		return kind == Kind.ENUM;
+	}
+
+	/**
+	 * @return The name of the type (Class.getName)
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return The simple name of the type (Class.getSimpleName)
+	 */
+	public String getSimpleName() {
+		return simpleName;
+	}
+
+}
@@ -0,0 +1,659 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model.traverse;
+
+import introspector.model.Node;
+import introspector.model.NodeSet;
+
+import java.util.*;
+
+/**
+ * Work-list driven comparison of two trees. Instead of recursing into the children, each node compares itself
+ * with the other node ({@link Node#compareNode(Node, boolean, ComparisonEngine)}) and schedules the comparison
+ * of its children in the engine. Pending comparisons are stored in an explicit stack, so trees of any depth
+ * can be compared, and the work can be performed step by step.
+ * Comparisons are performed in the same (depth-first) order as the recursive traversal: the children
+ * scheduled by one node are compared, in order, before the pending siblings of that node.
+ */
+public class ComparisonEngine {
+
+	/**
+	 * The comparison of two subtrees
+	 * @param node1 The node of the first tree
+	 * @param node2 The node of the second tree
+	 * @param equalName Whether the node names must be the same
+	 */
+	public record Comparison(Node node1, Node node2, boolean equalName) {}
+
+	/**
+	 * The initial number of pending comparisons in the stack
+	 */
+	private static final int INITIAL_STACK_SIZE = 64;
+
+	/**
+	 * The nodes that have been modified
+	 */
+	private final Set<Node> modifiedNodes;
+
+	/**
+	 * The pairs of nodes that have been visited in this traversal
+	 */
+	private final Set<SymmetricPair<Node, Node>> alreadyTraversed;
+
+	/**
+	 * Nodes of the first tree in the pending comparisons (the top of the stack is at the end)
+	 */
+	private Node[] pendingNodes1 = new Node[INITIAL_STACK_SIZE];
+
+	/**
+	 * Nodes of the second tree in the pending comparisons
+	 */
+	private Node[] pendingNodes2 = new Node[INITIAL_STACK_SIZE];
+
+	/**
+	 * Whether the names must be compared in the pending comparisons
+	 */
+	private boolean[] pendingEqualNames = new boolean[INITIAL_STACK_SIZE];
+
+	/**
+	 * The number of pending comparisons
+	 */
+	private int pendingCount;
+
+	/**
+	 * The number of pending comparisons when the current node started scheduling its children
+	 * (the scheduled children are reversed, so that the first one is compared first)
+	 */
+	private int scheduledFrom;
+
+	/**
+	 * Whether the comparison of two subtrees with the same structural hash is skipped
+	 */
+	private boolean skipEqualSubtrees;
+
+	/**
+	 * The listener that receives the differences found (null if they are only added to the modified nodes)
+	 */
+	private final DiffListener listener;
+
+	/**
+	 * The paths of the nodes in the pending comparisons (only when there is a listener)
+	 */
+	private PathEntry[] pendingPaths = new PathEntry[INITIAL_STACK_SIZE];
+
+	/**
+	 * The path of the nodes being compared (only when there is a listener)
+	 */
+	private PathEntry currentPath;
+
+	/**
+	 * The nodes compared from the roots of both trees to the ones in one comparison
+	 */
+	private record PathEntry(PathEntry parent, Node node1, Node node2) {}
+
+	/**
+	 * Whether lists and arrays are compared with a minimal edit script, instead of by position
+	 */
+	private boolean diffSequences;
+
+	/**
+	 * The nodes added to the modified nodes in the current step, by the nodes that compare whole subtrees
+	 * (only when there is a listener; see {@link #reportChangedNodes(Node)})
+	 */
+	private final List<Node> changedNodes = new ArrayList<>();
+
+	/**
+	 * The innermost confirmation in progress (see {@link #confirmEqual(Node, Node)}); null if none
+	 */
+	private Confirmation confirmation;
+
+	/**
+	 * The check that two subtrees are equal, performed with the pending comparisons of this engine.
+	 * The differences found are not added to the engine, and the pairs of nodes traversed are added to
+	 * the enclosing set of pairs only when the subtrees are equal.
+	 */
+	private static final class Confirmation {
+
+		/**
+		 * Records whether a difference has been found
+		 */
+		private final DifferenceDetector detector = new DifferenceDetector();
+
+		/**
+		 * The pairs traversed in the confirmation
+		 */
+		private final ConfirmationPairSet alreadyTraversed;
+
+		/**
+		 * The number of pending comparisons of the engine when the confirmation started
+		 */
+		private final int pendingBase;
+
+		Confirmation(Set<SymmetricPair<Node, Node>> enclosing, int pendingBase) {
+			this.alreadyTraversed = new ConfirmationPairSet(enclosing);
+			this.pendingBase = pendingBase;
+		}
+	}
+
+	/**
+	 * Pairs of nodes traversed in a confirmation. The pairs of the enclosing set are also considered to be in
+	 * this set (they are being compared, so cycles are not traversed again), but new pairs are only added here.
+	 */
+	private static final class ConfirmationPairSet extends NodePairSet {
+
+		private final Set<SymmetricPair<Node, Node>> enclosing;
+
+		ConfirmationPairSet(Set<SymmetricPair<Node, Node>> enclosing) {
+			this.enclosing = enclosing;
+		}
+
+		@Override
+		public boolean contains(Node node1, Node node2) {
+			return super.contains(node1, node2) || TraverseHelper.hasBeenVisited(new SymmetricPair<>(node1, node2), this.enclosing);
+		}
+
+		@Override
+		public boolean add(Node node1, Node node2) {
+			return !TraverseHelper.hasBeenVisited(new SymmetricPair<>(node1, node2), this.enclosing) && super.add(node1, node2);
+		}
+
+		/**
+		 * Adds the pairs traversed in the confirmation to the enclosing set
+		 */
+		void commit() {
+			for (SymmetricPair<Node, Node> pair : this)
+				TraverseHelper.shouldBeTraversed(pair.getFirst(), pair.getSecond(), this.enclosing);
+		}
+	}
+
+	/**
+	 * Creates an engine that adds the modified nodes to the given set
+	 * @param modifiedNodes The set of modified nodes
+	 * @param alreadyTraversed The pairs of nodes that have been visited in this traversal
+	 */
+	public ComparisonEngine(Set<Node> modifiedNodes, Set<SymmetricPair<Node, Node>> alreadyTraversed) {
+		this.modifiedNodes = modifiedNodes;
+		this.alreadyTraversed = alreadyTraversed;
+		this.listener = null;
+	}
+
+	/**
+	 * Creates an engine that passes the differences to a listener as soon as they are found, with no modified
+	 * node stored. The nodes that nodes comparing whole subtrees add to {@link #getModifiedNodes()} are reported
+	 * as removed (first tree) or added (second tree), or as changed when they come with their counterpart.
+	 * @param alreadyTraversed The pairs of nodes that have been visited in this traversal
+	 * @param listener The listener that receives the differences
+	 */
+	public ComparisonEngine(Set<SymmetricPair<Node, Node>> alreadyTraversed, DiffListener listener) {
+		this.alreadyTraversed = alreadyTraversed;
+		this.listener = Objects.requireNonNull(listener);
+		this.modifiedNodes = new AbstractSet<>() {
+			@Override
+			public boolean add(Node node) {
+				// reported when the step finishes, once the tree of each node is known
+				changedNodes.add(node);
+				return true;
+			}
+
+			@Override
+			public Iterator<Node> iterator() {
+				return Collections.emptyIterator();
+			}
+
+			@Override
+			public int size() {
+				return 0;
+			}
+		};
+	}
+
+	/**
+	 * Creates an engine that only checks whether two trees are equal (see {@link #equal(Node, Node, boolean)}):
+	 * no modified node is stored
+	 * @param alreadyTraversed The pairs of nodes that have been visited in this traversal
+	 */
+	public ComparisonEngine(Set<SymmetricPair<Node, Node>> alreadyTraversed) {
+		this(new DifferenceDetector(), alreadyTraversed);
+	}
+
+	/**
+	 * Set of modified nodes that stores none of them; it just records whether any node has been added
+	 */
+	private static class DifferenceDetector extends AbstractSet<Node> {
+
+		private boolean differenceFound;
+
+		@Override
+		public boolean add(Node node) {
+			this.differenceFound = true;
+			return true;
+		}
+
+		@Override
+		public Iterator<Node> iterator() {
+			return Collections.emptyIterator();
+		}
+
+		@Override
+		public int size() {
+			return 0;
+		}
+	}
+
+	/**
+	 * @return The set of modified nodes
+	 */
+	public Set<Node> getModifiedNodes() {
+		return this.confirmation != null ? this.confirmation.detector : this.modifiedNodes;
+	}
+
+	/**
+	 * @return The pairs of nodes that have been visited in this traversal
+	 */
+	public Set<SymmetricPair<Node, Node>> getAlreadyTraversed() {
+		return this.confirmation != null ? this.confirmation.alreadyTraversed : this.alreadyTraversed;
+	}
+
+	/**
+	 * @return Whether the comparison of two subtrees with the same structural hash is skipped
+	 */
+	public boolean isSkipEqualSubtrees() {
+		return this.skipEqualSubtrees;
+	}
+
+	/**
+	 * Sets whether two subtrees with the same structural hash ({@link Node#getStructuralHash()}) are considered
+	 * equal without comparing them. Hashes are computed (and cached) in the nodes the first time they are used,
+	 * so this is worthwhile when the trees are compared more than once (e.g., snapshots compared with the next
+	 * ones) or big subtrees are expected to be equal.
+	 * @param skipEqualSubtrees Whether the comparison of subtrees with the same structural hash is skipped
+	 */
+	public void setSkipEqualSubtrees(boolean skipEqualSubtrees) {
+		this.skipEqualSubtrees = skipEqualSubtrees;
+	}
+
+	/**
+	 * @return Whether lists and arrays are compared with a minimal edit script, instead of by position
+	 */
+	public boolean isDiffSequences() {
+		return this.diffSequences;
+	}
+
+	/**
+	 * Sets whether the elements of lists and arrays are compared with a minimal edit script (see SequenceDiff
+	 * in the model package) instead of by position. Then, the elements inserted, removed, replaced or moved
+	 * (see {@link #moved(Node, Node)}) are the only modified nodes, and the rest of elements are not misaligned.
+	 * @param diffSequences Whether lists and arrays are compared with a minimal edit script
+	 */
+	public void setDiffSequences(boolean diffSequences) {
+		this.diffSequences = diffSequences;
+	}
+
+	/**
+	 * Adds two nodes to the modified nodes
+	 * @param node1 The node of the first tree
+	 * @param node2 The node of the second tree
+	 */
+	public void modified(Node node1, Node node2) {
+		if (this.confirmation != null) {
+			this.confirmation.detector.add(node1);
+			return;
+		}
+		if (this.listener != null) {
+			this.report(changeKind(node1, node2), node1, node2);
+			return;
+		}
+		this.modifiedNodes.add(node1);
+		this.modifiedNodes.add(node2);
+	}
+
+	/**
+	 * The kind of difference between two modified nodes
+	 */
+	private static Difference.Kind changeKind(Node node1, Node node2) {
+		boolean typeChanged = node1.getClass() != node2.getClass() || !Objects.equals(node1.getType(), node2.getType());
+		return typeChanged ? Difference.Kind.TYPE_CHANGED : Difference.Kind.CHANGED;
+	}
+
+	/**
+	 * Adds a node of the second tree that is not in the first one to the modified nodes
+	 * @param node2 The node of the second tree
+	 */
+	public void added(Node node2) {
+		if (this.confirmation != null)
+			this.confirmation.detector.add(node2);
+		else if (this.listener != null)
+			this.report(Difference.Kind.ADDED, null, node2);
+		else
+			this.modifiedNodes.add(node2);
+	}
+
+	/**
+	 * Adds a node of the first tree that is not in the second one to the modified nodes
+	 * @param node1 The node of the first tree
+	 */
+	public void removed(Node node1) {
+		if (this.confirmation != null)
+			this.confirmation.detector.add(node1);
+		else if (this.listener != null)
+			this.report(Difference.Kind.REMOVED, node1, null);
+		else
+			this.modifiedNodes.add(node1);
+	}
+
+	/**
+	 * Adds two equal elements found in different positions of two sequences (lists or arrays) to the modified
+	 * nodes. The listener receives them as a MOVED difference.
+	 * @param node1 The element of the first tree
+	 * @param node2 The element of the second tree
+	 */
+	public void moved(Node node1, Node node2) {
+		if (this.confirmation != null)
+			this.confirmation.detector.add(node1);
+		else if (this.listener != null)
+			this.report(Difference.Kind.MOVED, node1, node2);
+		else {
+			this.modifiedNodes.add(node1);
+			this.modifiedNodes.add(node2);
+		}
+	}
+
+	/**
+	 * Adds the children of the biggest list (beyond the size of the smallest one) to the modified nodes
+	 * @param children1 The children of a node of the first tree
+	 * @param children2 The children of a node of the second tree
+	 */
+	public void addNewChildren(List<Node> children1, List<Node> children2) {
+		for (int i = children2.size(); i < children1.size(); i++)
+			this.removed(children1.get(i));
+		for (int i = children1.size(); i < children2.size(); i++)
+			this.added(children2.get(i));
+	}
+
+	/**
+	 * Passes a difference to the listener, with the path of the node
+	 */
+	private void report(Difference.Kind kind, Node node1, Node node2) {
+		String path;
+		PathEntry current = this.currentPath;
+		if (current == null)
+			path = (node1 != null ? node1 : node2).getName();
+		else if (node1 != null && node1 == current.node1() || node2 != null && node2 == current.node2())
+			path = path(current, node1 != null, null);
+		else
+			path = path(current, node1 != null, node1 != null ? node1 : node2);
+		this.listener.difference(new Difference(kind, path, node1, node2));
+	}
+
+	/**
+	 * Builds the path of a node from the root of its tree. The names of container elements already include the
+	 * name of the container (e.g., list[3]), so only their index or key is appended.
+	 * @param entry The path of the comparison
+	 * @param first Whether the path is the one of the first tree
+	 * @param last A child of the last node in the path (null if none)
+	 */
+	private static String path(PathEntry entry, boolean first, Node last) {
+		Deque<String> names = new ArrayDeque<>();
+		if (last != null)
+			names.push(last.getName());
+		for (; entry != null; entry = entry.parent())
+			names.push((first ? entry.node1() : entry.node2()).getName());
+		StringBuilder path = new StringBuilder();
+		String previous = null;
+		for (String name : names) {
+			if (previous != null && name.length() > previous.length() && name.startsWith(previous) && name.charAt(previous.length()) == '[')
+				path.append(name, previous.length(), name.length());
+			else {
+				if (previous != null)
+					path.append('.');
+				path.append(name);
+			}
+			previous = name;
+		}
+		return path.toString();
+	}
+
+	/**
+	 * Schedules the comparison of two subtrees (called by the nodes while they are compared)
+	 * @param node1 The node of the first tree
+	 * @param node2 The node of the second tree
+	 * @param equalName Whether the node names must be the same
+	 */
+	public void schedule(Node node1, Node node2, boolean equalName) {
+		if (this.pendingCount == this.pendingNodes1.length) {
+			int newLength = this.pendingCount * 2;
+			this.pendingNodes1 = Arrays.copyOf(this.pendingNodes1, newLength);
+			this.pendingNodes2 = Arrays.copyOf(this.pendingNodes2, newLength);
+			this.pendingEqualNames = Arrays.copyOf(this.pendingEqualNames, newLength);
+			this.pendingPaths = Arrays.copyOf(this.pendingPaths, newLength);
+		}
+		if (this.listener != null)
+			this.pendingPaths[this.pendingCount] = new PathEntry(this.currentPath, node1, node2);
+		this.pendingNodes1[this.pendingCount] = node1;
+		this.pendingNodes2[this.pendingCount] = node2;
+		this.pendingEqualNames[this.pendingCount] = equalName;
+		this.pendingCount++;
+	}
+
+	/**
+	 * @return Whether there are comparisons to be performed
+	 */
+	public boolean hasPendingComparisons() {
+		return this.pendingCount > 0;
+	}
+
+	/**
+	 * Performs the next pending comparison, which may schedule new ones
+	 */
+	public void step() {
+		this.performStep();
+	}
+
+	/**
+	 * Performs the next pending comparison (subclasses cannot take the comparisons scheduled by
+	 * the steps of a confirmation)
+	 */
+	private void performStep() {
+		int top = --this.pendingCount;
+		Node node1 = this.pendingNodes1[top], node2 = this.pendingNodes2[top];
+		this.pendingNodes1[top] = this.pendingNodes2[top] = null;
+		this.currentPath = this.pendingPaths[top];
+		this.pendingPaths[top] = null;
+		this.scheduledFrom = top;
+		if (this.skipEqualSubtrees && this.confirmation == null && haveSameStructuralHash(node1, node2, this.pendingEqualNames[top]))
+			return; // equal subtrees
+		node1.compareNode(node2, this.pendingEqualNames[top], this);
+		if (!this.changedNodes.isEmpty() && this.confirmation == null)
+			this.reportChangedNodes(node1);
+		this.reverseScheduled();
+	}
+
+	/**
+	 * Reports to the listener the nodes added to the modified nodes in one step. They belong to the subtrees of
+	 * the nodes compared (the nodes that compare whole subtrees add both nodes of a modified pair, in order):
+	 * a node of the first tree followed by a node of the second one is reported as a change; otherwise, nodes
+	 * are reported as removed (first tree) or added (second tree).
+	 * @param node1 The node of the first tree compared in the step
+	 */
+	private void reportChangedNodes(Node node1) {
+		List<Node> nodes = new ArrayList<>(this.changedNodes);
+		this.changedNodes.clear();
+		Set<Node> firstTreeNodes = findInSubtree(node1, nodes);
+		for (int i = 0; i < nodes.size(); i++) {
+			Node node = nodes.get(i);
+			if (!firstTreeNodes.contains(node))
+				this.report(Difference.Kind.ADDED, null, node);
+			else if (i + 1 < nodes.size() && !firstTreeNodes.contains(nodes.get(i + 1))) {
+				Node counterpart = nodes.get(++i);
+				this.report(changeKind(node, counterpart), node, counterpart);
+			}
+			else
+				this.report(Difference.Kind.REMOVED, node, null);
+		}
+	}
+
+	/**
+	 * Finds some nodes in a subtree, traversed with no recursion (cycles and aliases are traversed once)
+	 * @param root The root of the subtree
+	 * @param nodes The nodes searched
+	 * @return The nodes found in the subtree (compared by identity)
+	 */
+	private static Set<Node> findInSubtree(Node root, List<Node> nodes) {
+		Set<Node> searched = Collections.newSetFromMap(new IdentityHashMap<>());
+		searched.addAll(nodes);
+		searched.remove(root);
+		Set<Node> found = Collections.newSetFromMap(new IdentityHashMap<>());
+		found.add(root);
+		Set<Node> visited = new NodeSet();
+		Deque<Node> stack = new ArrayDeque<>();
+		stack.push(root);
+		while (!stack.isEmpty() && !searched.isEmpty()) {
+			Node node = stack.pop();
+			if (searched.remove(node))
+				found.add(node);
+			if (TraverseHelper.hasBeenVisited(node, visited))
+				continue;
+			if (TraverseHelper.couldBeVisitedTwice(node))
+				visited.add(node);
+			for (int i = 0; i < node.getChildrenCount(); i++)
+				stack.push(node.getChild(i));
+		}
+		return found;
+	}
+
+	/**
+	 * Whether two subtrees have the same structural hash (and the same names, if they must be compared)
+	 */
+	private static boolean haveSameStructuralHash(Node node1, Node node2, boolean equalName) {
+		OptionalLong hash1 = node1.getStructuralHash();
+		if (hash1.isEmpty())
+			return false;
+		OptionalLong hash2 = node2.getStructuralHash();
+		return hash2.isPresent() && hash1.getAsLong() == hash2.getAsLong() &&
+				(!equalName || node1.getName().equals(node2.getName()));
+	}
+
+	/**
+	 * Reverses the comparisons scheduled in the last step, so that they are performed in order
+	 */
+	private void reverseScheduled() {
+		for (int i = this.scheduledFrom, j = this.pendingCount - 1; i < j; i++, j--) {
+			Node node1 = this.pendingNodes1[i], node2 = this.pendingNodes2[i];
+			boolean equalName = this.pendingEqualNames[i];
+			PathEntry path = this.pendingPaths[i];
+			this.pendingNodes1[i] = this.pendingNodes1[j];
+			this.pendingNodes2[i] = this.pendingNodes2[j];
+			this.pendingEqualNames[i] = this.pendingEqualNames[j];
+			this.pendingNodes1[j] = node1;
+			this.pendingNodes2[j] = node2;
+			this.pendingEqualNames[j] = equalName;
+			this.pendingPaths[i] = this.pendingPaths[j];
+			this.pendingPaths[j] = path;
+		}
+	}
+
+	/**
+	 * Removes the comparisons scheduled in the last step, if there are at least minCount of them.
+	 * It must be called right after {@link #step()}, and it is used to compare the children of wide nodes
+	 * in other engines (e.g., in parallel).
+	 * @param minCount The minimum number of scheduled comparisons to be removed
+	 * @return The scheduled comparisons, in order; null if there are fewer than minCount
+	 */
+	protected List<Comparison> takeScheduled(int minCount) {
+		if (this.pendingCount - this.scheduledFrom < minCount)
+			return null;
+		List<Comparison> comparisons = new ArrayList<>(this.pendingCount - this.scheduledFrom);
+		// the scheduled comparisons have been reversed: the first one is on the top of the stack
+		for (int i = this.pendingCount - 1; i >= this.scheduledFrom; i--) {
+			comparisons.add(new Comparison(this.pendingNodes1[i], this.pendingNodes2[i], this.pendingEqualNames[i]));
+			this.pendingNodes1[i] = this.pendingNodes2[i] = null;
+			this.pendingPaths[i] = null;
+		}
+		this.pendingCount = this.scheduledFrom;
+		return comparisons;
+	}
+
+	/**
+	 * Checks whether two trees are equal, stopping at the first difference. The engine must have been
+	 * created with {@link #ComparisonEngine(Set)}, so no modified node is stored.
+	 * @param node1 The root of the first tree
+	 * @param node2 The root of the second tree
+	 * @param equalName Whether the names of the roots must be the same
+	 * @return Whether the trees are equal
+	 */
+	public boolean equal(Node node1, Node node2, boolean equalName) {
+		if (!(this.modifiedNodes instanceof DifferenceDetector detector))
+			throw new IllegalStateException("The engine stores the modified nodes; use compare instead.");
+		this.schedule(node1, node2, equalName);
+		while (!detector.differenceFound && this.hasPendingComparisons())
+			this.step();
+		// the comparisons not performed are discarded
+		Arrays.fill(this.pendingNodes1, 0, this.pendingCount, null);
+		Arrays.fill(this.pendingNodes2, 0, this.pendingCount, null);
+		Arrays.fill(this.pendingPaths, 0, this.pendingCount, null);
+		this.pendingCount = 0;
+		this.currentPath = null;
+		boolean equal = !detector.differenceFound;
+		detector.differenceFound = false;
+		return equal;
+	}
+
+	/**
+	 * Checks whether two subtrees are equal, with no difference added to this engine. It is used to confirm
+	 * that two nodes matched by their structural hashes are actually equal, since different subtrees may have
+	 * the same hash (the subtrees are not skipped by their hashes in this check).
+	 * The subtrees are compared with the pending comparisons of this engine (no other engine is created),
+	 * stopping at the first difference. The pairs of nodes being compared by this engine are not traversed
+	 * again (so cycles through the subtrees end), and the pairs traversed in the check are added to
+	 * {@link #getAlreadyTraversed()} only when the subtrees are equal.
+	 * @param node1 The node of the first tree
+	 * @param node2 The node of the second tree
+	 * @return Whether the subtrees are equal (their names are not compared)
+	 */
+	public boolean confirmEqual(Node node1, Node node2) {
+		Confirmation enclosing = this.confirmation;
+		Confirmation confirmation = new Confirmation(this.getAlreadyTraversed(), this.pendingCount);
+		PathEntry path = this.currentPath;
+		int scheduledFrom = this.scheduledFrom;
+		this.confirmation = confirmation;
+		try {
+			this.schedule(node1, node2, false);
+			while (!confirmation.detector.differenceFound && this.pendingCount > confirmation.pendingBase)
+				this.performStep();
+		} finally {
+			// the comparisons not performed are discarded
+			Arrays.fill(this.pendingNodes1, confirmation.pendingBase, this.pendingCount, null);
+			Arrays.fill(this.pendingNodes2, confirmation.pendingBase, this.pendingCount, null);
+			Arrays.fill(this.pendingPaths, confirmation.pendingBase, this.pendingCount, null);
+			this.pendingCount = confirmation.pendingBase;
+			this.confirmation = enclosing;
+			this.currentPath = path;
+			this.scheduledFrom = scheduledFrom;
+		}
+		if (confirmation.detector.differenceFound)
+			return false;
+		confirmation.alreadyTraversed.commit();
+		return true;
+	}
+
+	/**
+	 * Compares two trees, performing all the pending comparisons
+	 * @param node1 The root of the first tree
+	 * @param node2 The root of the second tree
+	 * @param equalName Whether the names of the roots must be the same
+	 * @return The set of modified nodes
+	 */
+	public Set<Node> compare(Node node1, Node node2, boolean equalName) {
+		this.schedule(node1, node2, equalName);
+		while (this.hasPendingComparisons())
+			this.step();
+		this.currentPath = null;
+		return this.modifiedNodes;
+	}
+
+}
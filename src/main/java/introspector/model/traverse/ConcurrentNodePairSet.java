@@ -0,0 +1,122 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model.traverse;
+
+import introspector.model.Node;
+
+import java.util.*;
+
+/**
+ * Thread-safe set of the pairs of nodes already traversed, used to detect cycles when two trees are compared
+ * in parallel. The pairs are distributed among STRIPES NodePairSets by the identity hash of their values,
+ * and each NodePairSet is locked independently. Pairs are compared as in NodePairSet.
+ */
+public class ConcurrentNodePairSet extends AbstractSet<SymmetricPair<Node, Node>> {
+
+	/**
+	 * The number of independent sets (a power of two)
+	 */
+	private static final int STRIPES = 64;
+
+	/**
+	 * The sets where the pairs are stored; each one is used as its own lock
+	 */
+	private final NodePairSet[] stripes = new NodePairSet[STRIPES];
+
+	/**
+	 * Creates an empty set
+	 */
+	public ConcurrentNodePairSet() {
+		for (int i = 0; i < STRIPES; i++)
+			this.stripes[i] = new NodePairSet();
+	}
+
+	/**
+	 * @return The set where the pair of values is stored (the same for both orders)
+	 */
+	private NodePairSet stripe(Object value1, Object value2) {
+		int hash = NodePairSet.hash(value1, value2);
+		return this.stripes[(hash >>> 26) & (STRIPES - 1)];
+	}
+
+	/**
+	 * @see NodePairSet#contains(Node, Node)
+	 */
+	public boolean contains(Node node1, Node node2) {
+		NodePairSet stripe = this.stripe(node1.getValue(), node2.getValue());
+		synchronized (stripe) {
+			return stripe.contains(node1, node2);
+		}
+	}
+
+	/**
+	 * @see NodePairSet#add(Node, Node)
+	 */
+	public boolean add(Node node1, Node node2) {
+		NodePairSet stripe = this.stripe(node1.getValue(), node2.getValue());
+		synchronized (stripe) {
+			return stripe.add(node1, node2);
+		}
+	}
+
+	/**
+	 * @see Set#contains(Object)
+	 */
+	@Override
+	public boolean contains(Object object) {
+		return object instanceof SymmetricPair<?, ?> pair && pair.getFirst() instanceof Node node1 &&
+				pair.getSecond() instanceof Node node2 && this.contains(node1, node2);
+	}
+
+	/**
+	 * @see Set#add(Object)
+	 */
+	@Override
+	public boolean add(SymmetricPair<Node, Node> pair) {
+		return this.add(pair.getFirst(), pair.getSecond());
+	}
+
+	/**
+	 * @see Set#clear()
+	 */
+	@Override
+	public void clear() {
+		for (NodePairSet stripe : this.stripes)
+			synchronized (stripe) {
+				stripe.clear();
+			}
+	}
+
+	/**
+	 * @see Set#size()
+	 */
+	@Override
+	public int size() {
+		int size = 0;
+		for (NodePairSet stripe : this.stripes)
+			synchronized (stripe) {
+				size += stripe.size();
+			}
+		return size;
+	}
+
+	/**
+	 * Iterates over a snapshot of the pairs (it does not support removal)
+	 * @see Set#iterator()
+	 */
+	@Override
+	public Iterator<SymmetricPair<Node, Node>> iterator() {
+		List<SymmetricPair<Node, Node>> pairs = new ArrayList<>();
+		for (NodePairSet stripe : this.stripes)
+			synchronized (stripe) {
+				pairs.addAll(stripe);
+			}
+		return Collections.unmodifiableList(pairs).iterator();
+	}
+
+}
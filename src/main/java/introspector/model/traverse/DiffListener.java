@@ -0,0 +1,23 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model.traverse;
+
+/**
+ * Receives the differences between two trees while they are compared
+ * (e.g., to write them to a file without holding all of them in memory)
+ */
+@FunctionalInterface
+public interface DiffListener {
+
+	/**
+	 * Called when a difference is found
+	 * @param difference The difference found
+	 */
+	void difference(Difference difference);
+
+}
@@ -0,0 +1,109 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model.traverse;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Summary of the comparison of two trees: the number of differences of each kind and of each type.
+ * The differences are not stored; they are passed to another listener (if any) as they are found.
+ */
+public class DiffReport implements DiffListener {
+
+	/**
+	 * The listener that receives the differences (null if they are just counted)
+	 */
+	private final DiffListener listener;
+
+	/**
+	 * The number of differences of each kind
+	 */
+	private final long[] kindCounts = new long[Difference.Kind.values().length];
+
+	/**
+	 * The number of differences of each type
+	 */
+	private final Map<Class<?>, Long> typeCounts = new HashMap<>();
+
+	/**
+	 * Creates a report that counts the differences
+	 */
+	public DiffReport() {
+		this(null);
+	}
+
+	/**
+	 * Creates a report that counts the differences and passes them to another listener
+	 * @param listener The listener that receives the differences (null if they are just counted)
+	 */
+	public DiffReport(DiffListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * @see DiffListener#difference(Difference)
+	 */
+	@Override
+	public void difference(Difference difference) {
+		this.kindCounts[difference.kind().ordinal()]++;
+		this.typeCounts.merge(difference.getType(), 1L, Long::sum);
+		if (this.listener != null)
+			this.listener.difference(difference);
+	}
+
+	/**
+	 * @param kind The kind of change
+	 * @return The number of differences of that kind
+	 */
+	public long getCount(Difference.Kind kind) {
+		return this.kindCounts[kind.ordinal()];
+	}
+
+	/**
+	 * @return The number of differences of each kind
+	 */
+	public Map<Difference.Kind, Long> getKindCounts() {
+		Map<Difference.Kind, Long> counts = new EnumMap<>(Difference.Kind.class);
+		for (Difference.Kind kind : Difference.Kind.values())
+			counts.put(kind, this.kindCounts[kind.ordinal()]);
+		return counts;
+	}
+
+	/**
+	 * @return The number of differences of each type (the type of the node in the first tree, unless it was added)
+	 */
+	public Map<Class<?>, Long> getTypeCounts() {
+		return Collections.unmodifiableMap(this.typeCounts);
+	}
+
+	/**
+	 * @return The number of differences
+	 */
+	public long getTotalCount() {
+		long total = 0;
+		for (long count : this.kindCounts)
+			total += count;
+		return total;
+	}
+
+	/**
+	 * @return Whether the trees are equal
+	 */
+	public boolean isEmpty() {
+		return this.getTotalCount() == 0;
+	}
+
+	@Override
+	public String toString() {
+		return this.getKindCounts().toString();
+	}
+
+}
@@ -0,0 +1,63 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model.traverse;
+
+import introspector.model.Node;
+
+/**
+ * A difference found when two trees are compared, reported to a DiffListener as soon as it is found
+ * @param kind The kind of change
+ * @param path The path of the node from the root of its tree (e.g., root.list[3].name)
+ * @param node1 The node of the first tree (null if the node has been added)
+ * @param node2 The node of the second tree (null if the node has been removed)
+ */
+public record Difference(Kind kind, String path, Node node1, Node node2) {
+
+	/**
+	 * The kinds of changes
+	 */
+	public enum Kind {
+		/** A node of the second tree that is not in the first one */
+		ADDED,
+		/** A node of the first tree that is not in the second one */
+		REMOVED,
+		/** Two nodes with the same type but different values, names or children */
+		CHANGED,
+		/** Two nodes with different types */
+		TYPE_CHANGED,
+		/** An element of a list or array found in another position of the other sequence (see diffSequences) */
+		MOVED
+	}
+
+	/**
+	 * @return The value in the first tree (null if the node has been added)
+	 */
+	public Object getOldValue() {
+		return this.node1 == null ? null : this.node1.getValue();
+	}
+
+	/**
+	 * @return The value in the second tree (null if the node has been removed)
+	 */
+	public Object getNewValue() {
+		return this.node2 == null ? null : this.node2.getValue();
+	}
+
+	/**
+	 * @return The type of the node: the one in the first tree, unless it has been added
+	 */
+	public Class<?> getType() {
+		return this.node1 != null ? this.node1.getType() : this.node2.getType();
+	}
+
+	@Override
+	public String toString() {
+		return this.kind + " " + this.path + ": " + this.getOldValue() + " -> " + this.getNewValue();
+	}
+
+}
@@ -8,16 +8,17 @@
 package introspector.model.traverse;
 
 import introspector.model.Node;
+import introspector.model.NodeSet;
+import introspector.model.TypeInfo;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.util.HashSet;
 import java.util.Set;
 
 /**
  * Stores a tree as a html file
  */
-public class HtmlTreeSerializer implements TreeSerializer {
+public class HtmlTreeSerializer implements SplittableTreeSerializer {
 
     /**
      * The text stream where the information is to be written
@@ -33,7 +34,7 @@ public class HtmlTreeSerializer implements TreeSerializer {
      * Used when two trees have been compared. The nodes in this set indicates that nodes that have been modified.
      * These nodes must be written in red to indicate that they have are different from the other tree.
      */
-    private final Set<Node> modifiedNodes = new HashSet<>();
+    private final NodeSet modifiedNodes;
 
     /**
      * This constructor creates an object to write the tree in a file
@@ -44,6 +45,7 @@ public class HtmlTreeSerializer implements TreeSerializer {
     public HtmlTreeSerializer(String fileName, boolean allInfo) throws IOException {
         this.outputTxtFile = new FileWriter(fileName);
         this.allInfo = allInfo;
+        this.modifiedNodes = new NodeSet();
     }
 
     /**
@@ -56,7 +58,7 @@ public class HtmlTreeSerializer implements TreeSerializer {
     public HtmlTreeSerializer(String fileName, boolean allInfo, Set<Node> modifiedNodes) throws IOException {
         this.outputTxtFile = new FileWriter(fileName);
         this.allInfo = allInfo;
-        this.modifiedNodes.addAll(modifiedNodes);
+        this.modifiedNodes = new NodeSet(modifiedNodes);
     }
 
     /**
@@ -74,8 +76,19 @@ public class HtmlTreeSerializer implements TreeSerializer {
      * @param allInfo if all the info in the nodes must be displayed (i.e., toString() method of objects wrapped by nodes)
      */
     HtmlTreeSerializer(Writer writer, boolean allInfo) {
+        this(writer, allInfo, new NodeSet());
+    }
+
+    /**
+     * This constructor creates an object to write the tree in a textual output stream
+     * @param writer the textual output stream
+     * @param allInfo if all the info in the nodes must be displayed (i.e., toString() method of objects wrapped by nodes)
+     * @param modifiedNodes the nodes that have been modified (the set is shared, not copied)
+     */
+    private HtmlTreeSerializer(Writer writer, boolean allInfo, NodeSet modifiedNodes) {
         this.outputTxtFile = writer;
         this.allInfo = allInfo;
+        this.modifiedNodes = modifiedNodes;
     }
 
     /**
@@ -105,6 +118,23 @@ public class HtmlTreeSerializer implements TreeSerializer {
         this.outputTxtFile.flush();
     }
 
+    /**
+     * The new serializer shares the set of modified nodes with this one
+     * @see SplittableTreeSerializer#split(Writer)
+     */
+    @Override
+    public TreeSerializer split(Writer writer) {
+        return new HtmlTreeSerializer(writer, this.allInfo, this.modifiedNodes);
+    }
+
+    /**
+     * @see SplittableTreeSerializer#append(String)
+     */
+    @Override
+    public void append(String text) throws IOException {
+        this.write(text);
+    }
+
     /**
      * Reads the contents of a file in a resource folder
      * @param resourceName the name of the resource
@@ -182,7 +212,7 @@ public class HtmlTreeSerializer implements TreeSerializer {
      */
     @Override
     public void traversing(Node node, int depth, boolean hasBeenVisited) throws IOException {
-        boolean modified = this.modifiedNodes.stream().anyMatch(eachNode -> eachNode.getValue() == node.getValue());
+        boolean modified = this.modifiedNodes.containsValue(node.getValue());
         if (node.isLeaf()) {
             if (modified)
                 write(String.format("%s<li class=\"modified\">%s</li>\n", this.prefix(depth), this.nodeDescription(node, hasBeenVisited)));
@@ -223,7 +253,7 @@ public class HtmlTreeSerializer implements TreeSerializer {
         if (this.allInfo) {
             sb.append(node.getName());
             Class<?> type = node.getType();
-            sb.append(" (").append(type.getSimpleName()).append(")");
+            sb.append(" (").append(TypeInfo.of(type).getSimpleName()).append(")");
             if (cycle)
                     sb.append(" &lt;revisited node&gt;");
             sb.append(": ");
@@ -0,0 +1,192 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model.traverse;
+
+import introspector.model.Node;
+
+import java.util.*;
+
+/**
+ * Set of the pairs of nodes already traversed in the comparison of two trees, used to detect cycles.
+ * As in TraverseHelper, two pairs are the same element when they wrap the same objects (compared by identity),
+ * in any order. The pairs are not stored as SymmetricPair objects: the two nodes are packed in consecutive
+ * positions of one array, hashed by the identity of their values with open addressing (linear probing),
+ * so {@link #add(Node, Node)} and {@link #contains(Node, Node)} take constant time and allocate no objects.
+ * The iterators of this set create the SymmetricPairs and do not support removal.
+ */
+public class NodePairSet extends AbstractSet<SymmetricPair<Node, Node>> {
+
+	/**
+	 * The initial number of slots (a power of two)
+	 */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * The hash table: the pair in the slot i is stored in the positions 2*i and 2*i+1 (null means an empty slot)
+	 */
+	private Node[] table = new Node[2 * INITIAL_CAPACITY];
+
+	/**
+	 * The number of pairs in the set
+	 */
+	private int size;
+
+	/**
+	 * @return The slot where the pair of the two values is placed first (the same for both orders)
+	 */
+	private static int indexOf(Object value1, Object value2, int mask) {
+		int hash = hash(value1, value2);
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	/**
+	 * @return The hash code of a pair of values, compared by identity (the same for both orders)
+	 */
+	static int hash(Object value1, Object value2) {
+		return mix(System.identityHashCode(value1)) + mix(System.identityHashCode(value2));
+	}
+
+	/**
+	 * Spreads the bits of a hash code
+	 */
+	private static int mix(int hash) {
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 15);
+	}
+
+	/**
+	 * @return The slot of the pair of nodes; -1 if it is not in the set
+	 */
+	private int find(Object value1, Object value2) {
+		Node[] table = this.table;
+		int mask = table.length / 2 - 1;
+		for (int i = indexOf(value1, value2, mask); table[2 * i] != null; i = (i + 1) & mask) {
+			Object first = table[2 * i].getValue(), second = table[2 * i + 1].getValue();
+			if ((first == value1 && second == value2) || (first == value2 && second == value1))
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Whether a pair of nodes wrapping the same objects (in any order) is in the set
+	 * @param node1 One node
+	 * @param node2 Another node
+	 * @return Whether the pair is in the set
+	 */
+	public boolean contains(Node node1, Node node2) {
+		return this.find(node1.getValue(), node2.getValue()) >= 0;
+	}
+
+	/**
+	 * Adds a pair of nodes, if no pair wrapping the same objects (in any order) is in the set
+	 * @param node1 One node (not null)
+	 * @param node2 Another node (not null)
+	 * @return Whether the pair was added (it was not in the set)
+	 */
+	public boolean add(Node node1, Node node2) {
+		Objects.requireNonNull(node1);
+		Objects.requireNonNull(node2);
+		if (this.find(node1.getValue(), node2.getValue()) >= 0)
+			return false;
+		if (3 * (this.size + 1) > this.table.length) // load factor 2/3
+			this.resize();
+		this.insert(node1, node2);
+		this.size++;
+		return true;
+	}
+
+	/**
+	 * Places a pair in the first empty slot of its probe sequence
+	 */
+	private void insert(Node node1, Node node2) {
+		int mask = this.table.length / 2 - 1;
+		int i = indexOf(node1.getValue(), node2.getValue(), mask);
+		while (this.table[2 * i] != null)
+			i = (i + 1) & mask;
+		this.table[2 * i] = node1;
+		this.table[2 * i + 1] = node2;
+	}
+
+	/**
+	 * Doubles the number of slots, placing the pairs again
+	 */
+	private void resize() {
+		Node[] oldTable = this.table;
+		this.table = new Node[oldTable.length * 2];
+		for (int i = 0; i < oldTable.length; i += 2)
+			if (oldTable[i] != null)
+				this.insert(oldTable[i], oldTable[i + 1]);
+	}
+
+	/**
+	 * @see Set#contains(Object)
+	 */
+	@Override
+	public boolean contains(Object object) {
+		return object instanceof SymmetricPair<?, ?> pair && pair.getFirst() instanceof Node node1 &&
+				pair.getSecond() instanceof Node node2 && this.contains(node1, node2);
+	}
+
+	/**
+	 * @see Set#add(Object)
+	 */
+	@Override
+	public boolean add(SymmetricPair<Node, Node> pair) {
+		return this.add(pair.getFirst(), pair.getSecond());
+	}
+
+	/**
+	 * @see Set#clear()
+	 */
+	@Override
+	public void clear() {
+		Arrays.fill(this.table, null);
+		this.size = 0;
+	}
+
+	/**
+	 * @see Set#size()
+	 */
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @see Set#iterator()
+	 */
+	@Override
+	public Iterator<SymmetricPair<Node, Node>> iterator() {
+		return new Iterator<>() {
+			private final Node[] table = NodePairSet.this.table;
+			private int index = this.skipEmptySlots(0);
+
+			private int skipEmptySlots(int index) {
+				while (index < this.table.length && this.table[index] == null)
+					index += 2;
+				return index;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return this.index < this.table.length;
+			}
+
+			@Override
+			public SymmetricPair<Node, Node> next() {
+				if (!this.hasNext())
+					throw new NoSuchElementException();
+				SymmetricPair<Node, Node> pair = new SymmetricPair<>(this.table[this.index], this.table[this.index + 1]);
+				this.index = this.skipEmptySlots(this.index + 2);
+				return pair;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,151 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model.traverse;
+
+
+import introspector.model.Node;
+import introspector.model.NodeSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Compares two trees in parallel. Each task compares subtrees with its own ComparisonEngine; when a node
+ * schedules the comparison of at least splitThreshold children (e.g., big collections, arrays and objects
+ * with many fields), the children are divided into chunks compared by new fork/join tasks.
+ * The pairs of nodes traversed are shared by all the tasks in a ConcurrentNodePairSet, so every pair is
+ * compared once (cycles are detected as in TreeComparator). Each task collects its modified nodes in its own
+ * NodeSet, which is merged into the one of its parent task when it is joined.
+ * The trees must not be modified while they are compared.
+ * Different tasks may expand the same node (e.g., nodes shared by a NodeInterner) and compute its structural
+ * hash. The nodes created by NodeFactory (ObjectNode, the container nodes and their ranges, and the leaves)
+ * are safe to compare in parallel: their lazy caches of children are published safely, so every task uses the
+ * same child nodes, and the structural hashes are published through a volatile field. The nodes of a
+ * FlatTreeModel are also safe, since they are not modified once the model is built. Other implementations
+ * of Node are only safe if they are immutable or thread-safe.
+ */
+public class ParallelTreeComparator extends TreeComparator {
+
+	/**
+	 * The default minimum number of children of a node to compare them in parallel
+	 */
+	public static final int DEFAULT_SPLIT_THRESHOLD = 256;
+
+	/**
+	 * The pool where the comparisons are performed
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * The minimum number of children of a node to compare them in parallel (also the size of each chunk)
+	 */
+	private final int splitThreshold;
+
+	/**
+	 * Creates a comparator that uses the common ForkJoinPool and DEFAULT_SPLIT_THRESHOLD
+	 */
+	public ParallelTreeComparator() {
+		this(ForkJoinPool.commonPool(), DEFAULT_SPLIT_THRESHOLD);
+	}
+
+	/**
+	 * Creates a comparator that uses a given pool
+	 * @param pool the pool where the comparisons are performed
+	 * @param splitThreshold the minimum number of children of a node to compare them in parallel (at least 2)
+	 */
+	public ParallelTreeComparator(ForkJoinPool pool, int splitThreshold) {
+		this(pool, splitThreshold, false);
+	}
+
+	/**
+	 * Creates a comparator that uses a given pool and may use structural hashes to skip equal subtrees
+	 * @param pool the pool where the comparisons are performed
+	 * @param splitThreshold the minimum number of children of a node to compare them in parallel (at least 2)
+	 * @param useStructuralHashes whether the comparison of subtrees with the same structural hash is skipped
+	 * @see TreeComparator#TreeComparator(boolean)
+	 */
+	public ParallelTreeComparator(ForkJoinPool pool, int splitThreshold, boolean useStructuralHashes) {
+		super(useStructuralHashes);
+		if (splitThreshold < 2)
+			throw new IllegalArgumentException("The split threshold must be at least 2.");
+		this.pool = pool;
+		this.splitThreshold = splitThreshold;
+	}
+
+	/**
+	 * Compares the two trees in parallel
+	 * @see TreeComparator#compareNodes(Node, Node, boolean, Set, Set)
+	 */
+	@Override
+	protected Set<Node> compareNodes(Node node1, Node node2, boolean equalName, Set<Node> modifiedNodes, Set<SymmetricPair<Node, Node>> alreadyTraversed) {
+		ConcurrentNodePairSet traversed = new ConcurrentNodePairSet();
+		traversed.addAll(alreadyTraversed);
+		List<ComparisonEngine.Comparison> roots = List.of(new ComparisonEngine.Comparison(node1, node2, equalName));
+		modifiedNodes.addAll(this.pool.invoke(new ComparisonTask(roots, traversed)));
+		return modifiedNodes;
+	}
+
+	/**
+	 * Compares some pairs of subtrees, forking new tasks for the children of wide nodes
+	 */
+	private class ComparisonTask extends RecursiveTask<NodeSet> {
+
+		private final List<ComparisonEngine.Comparison> comparisons;
+		private final ConcurrentNodePairSet alreadyTraversed;
+
+		ComparisonTask(List<ComparisonEngine.Comparison> comparisons, ConcurrentNodePairSet alreadyTraversed) {
+			this.comparisons = comparisons;
+			this.alreadyTraversed = alreadyTraversed;
+		}
+
+		@Override
+		protected NodeSet compute() {
+			NodeSet modifiedNodes = new NodeSet();
+			List<ComparisonTask> forkedTasks = new ArrayList<>();
+			ComparisonEngine engine = new ComparisonEngine(modifiedNodes, this.alreadyTraversed) {
+				@Override
+				public void step() {
+					super.step();
+					List<Comparison> children = this.takeScheduled(splitThreshold);
+					if (children == null)
+						return;
+					// the first chunk is compared by this task; the other ones are forked
+					for (int from = splitThreshold; from < children.size(); from += splitThreshold) {
+						ComparisonTask task = new ComparisonTask(
+								children.subList(from, Math.min(children.size(), from + splitThreshold)), alreadyTraversed);
+						task.fork();
+						forkedTasks.add(task);
+					}
+					scheduleAll(children.subList(0, splitThreshold), this);
+				}
+			};
+			engine.setSkipEqualSubtrees(isUseStructuralHashes());
+			engine.setDiffSequences(isDiffSequences());
+			scheduleAll(this.comparisons, engine);
+			while (engine.hasPendingComparisons())
+				engine.step();
+			for (ComparisonTask task : forkedTasks)
+				modifiedNodes.addAll(task.join());
+			return modifiedNodes;
+		}
+
+		/**
+		 * Schedules some comparisons in an engine, so that they are performed in order
+		 */
+		private static void scheduleAll(List<ComparisonEngine.Comparison> comparisons, ComparisonEngine engine) {
+			for (int i = comparisons.size() - 1; i >= 0; i--) {
+				ComparisonEngine.Comparison comparison = comparisons.get(i);
+				engine.schedule(comparison.node1(), comparison.node2(), comparison.equalName());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,317 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model.traverse;
+
+
+import introspector.model.Node;
+import introspector.model.NodeSet;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Writes trees with different formats, rendering independent subtrees in parallel.
+ * First, the tree is traversed sequentially (without writing) in the same order as WriteTreeTraversal, to find
+ * the revisited nodes (cyclic or alias references) and the size of each subtree. Therefore, revisited nodes are
+ * detected deterministically: the first occurrence of an object in document order is the one expanded.
+ * Then, subtrees with no more than subtreeSize nodes are rendered to in-memory buffers by tasks run in a
+ * ForkJoinPool, while the nodes of bigger subtrees are written by the calling thread. The buffers are written
+ * in document order as soon as the previous text has been written, so the output is the same as the one
+ * written by WriteTreeTraversal. At most maxPendingTasks subtrees are rendered or waiting to be written at
+ * the same time, so big documents are not held in memory.
+ */
+public class ParallelWriteTreeTraversal {
+
+	/**
+	 * The default maximum number of nodes of the subtrees rendered by one task
+	 */
+	public static final int DEFAULT_SUBTREE_SIZE = 4096;
+
+	/**
+	 * The pool where the subtrees are rendered
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * The maximum number of nodes of the subtrees rendered by one task
+	 */
+	private final int subtreeSize;
+
+	/**
+	 * The maximum number of subtrees being rendered or waiting to be written (the rest of the document is
+	 * not divided until some of them have been written, so the memory used does not depend on the tree size)
+	 */
+	private final int maxPendingTasks;
+
+	/**
+	 * Creates a traversal that renders subtrees of DEFAULT_SUBTREE_SIZE nodes in the common ForkJoinPool
+	 */
+	public ParallelWriteTreeTraversal() {
+		this(ForkJoinPool.commonPool(), DEFAULT_SUBTREE_SIZE);
+	}
+
+	/**
+	 * Creates a traversal that renders the subtrees in a given pool
+	 * @param pool the pool where the subtrees are rendered
+	 * @param subtreeSize the maximum number of nodes of the subtrees rendered by one task (at least 1)
+	 */
+	public ParallelWriteTreeTraversal(ForkJoinPool pool, int subtreeSize) {
+		this(pool, subtreeSize, 4 * pool.getParallelism());
+	}
+
+	/**
+	 * Creates a traversal that renders the subtrees in a given pool, with a bounded number of pending subtrees
+	 * @param pool the pool where the subtrees are rendered
+	 * @param subtreeSize the maximum number of nodes of the subtrees rendered by one task (at least 1)
+	 * @param maxPendingTasks the maximum number of subtrees being rendered or waiting to be written (at least 1)
+	 */
+	public ParallelWriteTreeTraversal(ForkJoinPool pool, int subtreeSize, int maxPendingTasks) {
+		if (subtreeSize < 1)
+			throw new IllegalArgumentException("The subtree size must be at least 1.");
+		if (maxPendingTasks < 1)
+			throw new IllegalArgumentException("The maximum number of pending tasks must be at least 1.");
+		this.pool = pool;
+		this.subtreeSize = subtreeSize;
+		this.maxPendingTasks = maxPendingTasks;
+	}
+
+	/**
+	 * The result of the sequential traversal of a tree, indexed by the position of each node in document
+	 * order (preorder)
+	 */
+	private static class TreeLayout {
+
+		/**
+		 * Whether the node in each position has been visited before
+		 */
+		private final BitSet revisited = new BitSet();
+
+		/**
+		 * The number of nodes in the subtree of each position (including the node)
+		 */
+		private int[] subtreeSizes = new int[64];
+
+		/**
+		 * Traverses the tree as WriteTreeTraversal does, with an explicit stack
+		 * @param root the root node of the tree
+		 */
+		TreeLayout(Node root) {
+			Set<Node> alreadyTraversed = new NodeSet();
+			FrameStack stack = new FrameStack();
+			int count = 0;
+			Node node = root;
+			while (node != null || stack.size > 0) {
+				if (node != null) {
+					// the node is visited
+					boolean hasBeenVisited = TraverseHelper.hasBeenVisited(node, alreadyTraversed);
+					if (!hasBeenVisited && TraverseHelper.couldBeVisitedTwice(node))
+						alreadyTraversed.add(node);
+					if (hasBeenVisited)
+						this.revisited.set(count);
+					stack.push(node, count++, hasBeenVisited);
+					node = stack.nextChild();
+				}
+				else {
+					// all the children of the top node have been visited
+					int position = stack.positions[--stack.size];
+					stack.nodes[stack.size] = null;
+					if (position >= this.subtreeSizes.length)
+						this.subtreeSizes = Arrays.copyOf(this.subtreeSizes, Math.max(position + 1, 2 * this.subtreeSizes.length));
+					this.subtreeSizes[position] = count - position;
+					node = stack.nextChild();
+				}
+			}
+		}
+
+		boolean isRevisited(int position) {
+			return this.revisited.get(position);
+		}
+
+		int getSubtreeSize(int position) {
+			return this.subtreeSizes[position];
+		}
+	}
+
+	/**
+	 * Explicit stack of the nodes in the branch being traversed (the stack index is the relative depth)
+	 */
+	private static class FrameStack {
+		Node[] nodes = new Node[64];
+		int[] positions = new int[64], nextChildren = new int[64], childrenCounts = new int[64];
+		int size;
+
+		/**
+		 * Pushes a node; the children of leaves and revisited nodes are not traversed
+		 */
+		void push(Node node, int position, boolean hasBeenVisited) {
+			if (this.size == this.nodes.length) {
+				this.nodes = Arrays.copyOf(this.nodes, 2 * this.size);
+				this.positions = Arrays.copyOf(this.positions, 2 * this.size);
+				this.nextChildren = Arrays.copyOf(this.nextChildren, 2 * this.size);
+				this.childrenCounts = Arrays.copyOf(this.childrenCounts, 2 * this.size);
+			}
+			this.nodes[this.size] = node;
+			this.positions[this.size] = position;
+			this.nextChildren[this.size] = 0;
+			this.childrenCounts[this.size] = !node.isLeaf() && !hasBeenVisited ? node.getChildrenCount() : 0;
+			this.size++;
+		}
+
+		/**
+		 * @return The next child of the top node to be traversed; null if all of them have been traversed
+		 */
+		Node nextChild() {
+			int top = this.size - 1;
+			if (top < 0 || this.nextChildren[top] == this.childrenCounts[top])
+				return null;
+			return this.nodes[top].getChild(this.nextChildren[top]++);
+		}
+	}
+
+	/**
+	 * Renders one subtree in a buffer, in the same order as WriteTreeTraversal
+	 */
+	private static class SubtreeTask extends RecursiveTask<String> {
+
+		private final Node root;
+		private final int depth, position;
+		private final TreeLayout layout;
+		private final SplittableTreeSerializer treeSerializer;
+
+		SubtreeTask(Node root, int depth, int position, TreeLayout layout, SplittableTreeSerializer treeSerializer) {
+			this.root = root;
+			this.depth = depth;
+			this.position = position;
+			this.layout = layout;
+			this.treeSerializer = treeSerializer;
+		}
+
+		@Override
+		protected String compute() {
+			StringWriter buffer = new StringWriter();
+			TreeSerializer serializer = this.treeSerializer.split(buffer);
+			FrameStack stack = new FrameStack();
+			int next = this.position;
+			Node node = this.root;
+			try {
+				while (node != null || stack.size > 0) {
+					if (node != null) {
+						boolean hasBeenVisited = this.layout.isRevisited(next);
+						serializer.beforeTraversing(node, this.depth + stack.size, hasBeenVisited);
+						serializer.traversing(node, this.depth + stack.size, hasBeenVisited);
+						stack.push(node, next++, hasBeenVisited);
+					}
+					else {
+						int top = --stack.size;
+						serializer.afterTraversing(stack.nodes[top], this.depth + top, this.layout.isRevisited(stack.positions[top]));
+						stack.nodes[top] = null;
+					}
+					node = stack.nextChild();
+				}
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+			return buffer.toString();
+		}
+	}
+
+	/**
+	 * Writing a node that is not rendered by a task: its beginning (beforeTraversing and traversing)
+	 * or its end (afterTraversing). These nodes have big subtrees, so they are not revisited.
+	 */
+	private record NodeEvent(Node node, int depth, boolean end) {}
+
+	/**
+	 * Main method to traverse a tree and perform the actions delegated in the tree serializer
+	 * @param root the root node to traverse
+	 * @param treeSerializer the strategy that specifies what to do with each traversal step
+	 * @throws IOException a textual file is written
+	 */
+	public void traverse(Node root, SplittableTreeSerializer treeSerializer) throws IOException {
+		TreeLayout layout = new TreeLayout(root);
+		// the document is divided into node events and subtrees (in document order), which are queued and written
+		// as soon as the previous parts have been written; the subtrees pending are bounded by maxPendingTasks
+		Deque<Object> parts = new ArrayDeque<>();
+		int pendingTasks = 0;
+		treeSerializer.beginTraverse();
+		try {
+			FrameStack stack = new FrameStack();
+			int next = 0;
+			Node node = root;
+			while (node != null || stack.size > 0) {
+				if (node != null) {
+					int size = layout.getSubtreeSize(next);
+					if (size <= this.subtreeSize) {
+						if (pendingTasks == this.maxPendingTasks)
+							pendingTasks -= writeParts(parts, treeSerializer, 1);
+						parts.addLast(this.pool.submit(new SubtreeTask(node, stack.size, next, layout, treeSerializer)));
+						pendingTasks++;
+						next += size;
+					}
+					else {
+						parts.addLast(new NodeEvent(node, stack.size, false));
+						stack.push(node, next++, false);
+					}
+				}
+				else {
+					int top = --stack.size;
+					parts.addLast(new NodeEvent(stack.nodes[top], top, true));
+					stack.nodes[top] = null;
+				}
+				pendingTasks -= writeParts(parts, treeSerializer, 0);
+				node = stack.nextChild();
+			}
+			writeParts(parts, treeSerializer, pendingTasks);
+		} catch (UncheckedIOException exception) {
+			throw exception.getCause();
+		} finally {
+			for (Object part : parts)
+				if (part instanceof ForkJoinTask<?> task)
+					task.cancel(false); // no effect on the tasks already completed
+		}
+		treeSerializer.endTraverse();
+	}
+
+	/**
+	 * Writes (and removes) the parts at the head of the queue: the node events and the subtrees already rendered.
+	 * The rendered subtrees are not referenced once they are written.
+	 * @param parts the parts not written yet, in document order
+	 * @param treeSerializer the serializer where the parts are written
+	 * @param minTasks the minimum number of subtrees to be written, waiting for their tasks if necessary
+	 * @return the number of subtrees written
+	 */
+	private static int writeParts(Deque<Object> parts, SplittableTreeSerializer treeSerializer, int minTasks) throws IOException {
+		int written = 0;
+		for (Object part; (part = parts.peekFirst()) != null; parts.removeFirst()) {
+			if (part instanceof NodeEvent event && !event.end()) {
+				treeSerializer.beforeTraversing(event.node(), event.depth(), false);
+				treeSerializer.traversing(event.node(), event.depth(), false);
+			}
+			else if (part instanceof NodeEvent event)
+				treeSerializer.afterTraversing(event.node(), event.depth(), false);
+			else {
+				ForkJoinTask<?> task = (ForkJoinTask<?>) part;
+				if (written >= minTasks && !task.isDone())
+					break;
+				treeSerializer.append(task.join().toString());
+				written++;
+			}
+		}
+		return written;
+	}
+
+}
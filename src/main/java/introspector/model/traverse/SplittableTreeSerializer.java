@@ -0,0 +1,36 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model.traverse;
+
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A tree serializer whose subtrees can be rendered separately (e.g., in parallel) and then stitched together
+ * in document order (see ParallelWriteTreeTraversal). The textual representation of each node must depend
+ * only on the node, its depth and whether it has been visited.
+ */
+public interface SplittableTreeSerializer extends TreeSerializer {
+
+    /**
+     * Creates a serializer with the same configuration that writes the nodes in another output.
+     * Only the traversing methods of the new serializer are called (not beginTraverse nor endTraverse).
+     * @param writer the output where the nodes are written
+     * @return the new serializer
+     */
+    TreeSerializer split(Writer writer);
+
+    /**
+     * Writes in the output the text rendered by a serializer created with {@link #split(Writer)}
+     * @param text the rendered text
+     * @throws IOException if there is an error writing the tree
+     */
+    void append(String text) throws IOException;
+
+}
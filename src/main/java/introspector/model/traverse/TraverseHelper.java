@@ -8,7 +8,8 @@
 package introspector.model.traverse;
 
 import introspector.model.Node;
-import introspector.model.NodeFactory;
+import introspector.model.NodeSet;
+import introspector.model.TypeInfo;
 
 import java.util.List;
 import java.util.Map;
@@ -37,9 +38,9 @@ public class TraverseHelper {
 	 * @param node the node traversed
 	 * @return whether the node could be visited twice or more
 	 */
-	static boolean couldBeVisitedTwice(Node node) {
+	public static boolean couldBeVisitedTwice(Node node) {
 		return node.getValue() != null &&  // null is not considered as a repeated object
-				!NodeFactory.isBuiltinType(node.getType()) && // builtin objects could be repeated
+				!TypeInfo.of(node.getType()).isBuiltin() && // builtin objects could be repeated
 				!node.isLeaf(); // leaf nodes can only be visited once
 	}
 
@@ -60,8 +61,11 @@ public class TraverseHelper {
 	 * @return whether the node is a cyclic or alias reference
 	 */
 	static boolean hasBeenVisited(Node node, Set<Node> alreadyTraversed) {
-		return couldBeVisitedTwice(node) &&
-				alreadyTraversed.stream().anyMatch(eachNode -> eachNode.getValue() == node.getValue());
+		if (!couldBeVisitedTwice(node))
+			return false;
+		if (alreadyTraversed instanceof NodeSet nodeSet) // constant time
+			return nodeSet.containsValue(node.getValue());
+		return alreadyTraversed.stream().anyMatch(eachNode -> eachNode.getValue() == node.getValue());
 	}
 
 	/**
@@ -73,9 +77,14 @@ public class TraverseHelper {
 	 */
 	static boolean hasBeenVisited(SymmetricPair<Node, Node> nodePair, Set<SymmetricPair<Node, Node>> alreadyTraversed) {
 		// they could be visited twice and they have been visited and...
-		return couldBeVisitedTwice(nodePair.getFirst()) && couldBeVisitedTwice(nodePair.getSecond()) &&
-				// ... they have been visited as a pair
-				alreadyTraversed.stream().anyMatch(pair -> (pair.getFirst().getValue() == nodePair.getFirst().getValue() && pair.getSecond().getValue() == nodePair.getSecond().getValue()) ||
+		if (!couldBeVisitedTwice(nodePair))
+			return false;
+		// ... they have been visited as a pair
+		if (alreadyTraversed instanceof NodePairSet nodePairSet) // constant time
+			return nodePairSet.contains(nodePair.getFirst(), nodePair.getSecond());
+		if (alreadyTraversed instanceof ConcurrentNodePairSet nodePairSet)
+			return nodePairSet.contains(nodePair.getFirst(), nodePair.getSecond());
+		return alreadyTraversed.stream().anyMatch(pair -> (pair.getFirst().getValue() == nodePair.getFirst().getValue() && pair.getSecond().getValue() == nodePair.getSecond().getValue()) ||
 						(pair.getFirst().getValue() == nodePair.getSecond().getValue() && pair.getSecond().getValue() == nodePair.getFirst().getValue()));
 	}
 
@@ -105,6 +114,8 @@ public class TraverseHelper {
 	 * @return whether the node should be traversed
 	 */
 	static public boolean shouldBeTraversed(SymmetricPair<Node, Node> nodePair, Set<SymmetricPair<Node, Node>> alreadyTraversed) {
+		if (alreadyTraversed instanceof NodePairSet || alreadyTraversed instanceof ConcurrentNodePairSet)
+			return shouldBeTraversed(nodePair.getFirst(), nodePair.getSecond(), alreadyTraversed);
 		boolean hasBeenVisited = hasBeenVisited(nodePair, alreadyTraversed);
 		if (!hasBeenVisited && TraverseHelper.couldBeVisitedTwice(nodePair)) {
 			alreadyTraversed.add(nodePair);
@@ -117,6 +128,25 @@ public class TraverseHelper {
 	}
 
 
+	/**
+	 * Returns whether two nodes in a comparison (two trees) should be traversed. That is, it has not been traversed yet as a pair.
+	 * When alreadyTraversed is a NodePairSet or a ConcurrentNodePairSet, no SymmetricPair is created.
+	 * @param node1 the node of the first tree
+	 * @param node2 the node of the second tree
+	 * @param alreadyTraversed a set of previously traversed pairs of nodes
+	 * @return whether the nodes should be traversed
+	 */
+	static public boolean shouldBeTraversed(Node node1, Node node2, Set<SymmetricPair<Node, Node>> alreadyTraversed) {
+		if (!couldBeVisitedTwice(node1) || !couldBeVisitedTwice(node2))
+			return true; // if it could be traversed once (no loop) then it should be traversed
+		if (alreadyTraversed instanceof NodePairSet nodePairSet)
+			return nodePairSet.add(node1, node2); // it was not added when it has been visited
+		if (alreadyTraversed instanceof ConcurrentNodePairSet nodePairSet)
+			return nodePairSet.add(node1, node2); // atomic: only one thread traverses the pair
+		return shouldBeTraversed(new SymmetricPair<>(node1, node2), alreadyTraversed);
+	}
+
+
 	/**
 	 * Adds the new children to the modified nodes.
 	 * @param children1 One list of nodes
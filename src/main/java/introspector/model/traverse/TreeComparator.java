@@ -10,6 +10,7 @@ package introspector.model.traverse;
 
 import introspector.model.Node;
 import introspector.model.NodeFactory;
+import introspector.model.NodeSet;
 
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.TreeNode;
@@ -21,8 +22,41 @@ import java.util.*;
  */
 public class TreeComparator {
 
+	/**
+	 * Whether the comparison of subtrees with the same structural hash is skipped
+	 */
+	private final boolean useStructuralHashes;
 
+	/**
+	 * Whether lists and arrays are compared with a minimal edit script, instead of by position
+	 */
+	private boolean diffSequences;
 
+	/**
+	 * Creates a comparator that compares all the nodes of both trees
+	 */
+	public TreeComparator() {
+		this(false);
+	}
+
+	/**
+	 * Creates a comparator that may use structural hashes to skip equal subtrees
+	 * @param useStructuralHashes whether the comparison of subtrees with the same structural hash
+	 * (see {@link Node#getStructuralHash()}) is skipped. This comparison is probabilistic: two different subtrees
+	 * with the same 64-bit hash (a collision) are reported as equal. Besides, the hashes are cached in the nodes
+	 * the first time they are compared, so it is only correct for immutable snapshots: neither the trees nor the
+	 * objects they wrap may be modified after they are compared.
+	 */
+	public TreeComparator(boolean useStructuralHashes) {
+		this.useStructuralHashes = useStructuralHashes;
+	}
+
+	/**
+	 * @return Whether the comparison of subtrees with the same structural hash is skipped
+	 */
+	protected boolean isUseStructuralHashes() {
+		return this.useStructuralHashes;
+	}
 
 	/**
 	 * Compares two trees and returns true if they are equal, false otherwise
@@ -32,7 +66,7 @@ public class TreeComparator {
 	 * newNodes, deletedNodes and modifiedNodes.
 	 */
 	public Set<Node> compareTrees(TreePath path1, TreePath path2) {
-		return compareNode(path1.getLastPathComponent(), path2.getLastPathComponent(), false, new HashSet<>(), new HashSet<>());
+		return compareNode(path1.getLastPathComponent(), path2.getLastPathComponent(), false, new NodeSet(), new NodePairSet());
 	}
 
 	/**
@@ -43,16 +77,86 @@ public class TreeComparator {
 	 */
 	public Set<Node> compareTrees(Object tree1, Object tree2) {
 		if (tree1 == null && tree2 == null)
-			return new HashSet<>();  // both null => equal trees
+			return new NodeSet();  // both null => equal trees
 		if (tree1 == null || tree2 == null) { // one null and the other not null => different trees
-			Set<Node> modifiedNodes = new HashSet<>();
-			modifiedNodes.add(createNodeIfNeeded(tree1));
-			modifiedNodes.add(createNodeIfNeeded(tree2));
+			Set<Node> modifiedNodes = new NodeSet();
+			modifiedNodes.add(createNodeIfNeeded(tree1 != null ? tree1 : tree2)); // the tree that is not null
 			return modifiedNodes;
 		}
 		return compareTrees(new TreePath(tree1), new TreePath(tree2));
 	}
 
+	/**
+	 * @return Whether lists and arrays are compared with a minimal edit script, instead of by position
+	 */
+	public boolean isDiffSequences() {
+		return this.diffSequences;
+	}
+
+	/**
+	 * Sets whether lists and arrays are compared with a minimal edit script, instead of by position
+	 * @param diffSequences whether the elements inserted, removed or moved are the only modified elements
+	 * @see ComparisonEngine#setDiffSequences(boolean)
+	 */
+	public void setDiffSequences(boolean diffSequences) {
+		this.diffSequences = diffSequences;
+	}
+
+	/**
+	 * Compares two trees, passing each difference to a listener as soon as it is found. The differences are not
+	 * stored, so millions of them can be written (e.g., to a file) with no memory overhead.
+	 * The trees are compared sequentially.
+	 * @param tree1 the root of the first tree
+	 * @param tree2 the root of the second tree
+	 * @param listener the listener that receives the differences (null if they are just counted)
+	 * @return the report with the number of differences of each kind and type
+	 */
+	public DiffReport compareTrees(Object tree1, Object tree2, DiffListener listener) {
+		DiffReport report = new DiffReport(listener);
+		if (tree1 == null && tree2 == null)
+			return report;  // both null => equal trees
+		Node node1 = createNodeIfNeeded(tree1), node2 = createNodeIfNeeded(tree2);
+		if (node1 == null || node2 == null) { // one null and the other not null => different trees
+			Node node = node1 != null ? node1 : node2;
+			report.difference(new Difference(node1 != null ? Difference.Kind.REMOVED : Difference.Kind.ADDED,
+					node.getName(), node1, node2));
+			return report;
+		}
+		ComparisonEngine engine = new ComparisonEngine(new NodePairSet(), report);
+		engine.setSkipEqualSubtrees(this.useStructuralHashes);
+		engine.setDiffSequences(this.diffSequences);
+		engine.compare(node1, node2, false);
+		return report;
+	}
+
+	/**
+	 * Checks whether two trees are equal. Unlike compareTrees, it stops at the first difference and
+	 * does not collect the different nodes.
+	 * @param tree1 the root of the first tree
+	 * @param tree2 the root of the second tree
+	 * @return true if the trees are equal, false otherwise
+	 */
+	public boolean areEqual(Object tree1, Object tree2) {
+		if (tree1 == null || tree2 == null)
+			return tree1 == tree2; // both null => equal trees
+		return this.equalNodes(createNodeIfNeeded(tree1), createNodeIfNeeded(tree2), false, new NodePairSet());
+	}
+
+	/**
+	 * Checks whether two trees whose roots are nodes (not null) are equal, stopping at the first difference
+	 * @param node1 the root of the first tree
+	 * @param node2 the root of the second tree
+	 * @param equalName whether the names of the nodes should be compared
+	 * @param alreadyTraversed the list of nodes that have been visited in this traversal
+	 * @return true if the trees are equal, false otherwise
+	 */
+	protected boolean equalNodes(Node node1, Node node2, boolean equalName, Set<SymmetricPair<Node, Node>> alreadyTraversed) {
+		ComparisonEngine engine = new ComparisonEngine(alreadyTraversed);
+		engine.setSkipEqualSubtrees(this.useStructuralHashes);
+		engine.setDiffSequences(this.diffSequences);
+		return engine.equal(node1, node2, equalName);
+	}
+
 	/**
 	 * Compares two trees and returns the list of different nodes
 	 * @param object1 the root of the first tree
@@ -74,7 +178,23 @@ public class TreeComparator {
 		// they are not null, but they might be not Node objects; we make sure they are by creating them when needed
 		Node node1 = createNodeIfNeeded(object1);
 		Node node2 = createNodeIfNeeded(object2);
-		return node1.compareTrees(node2, equalName, modifiedNodes, alreadyTraversed);
+		return this.compareNodes(node1, node2, equalName, modifiedNodes, alreadyTraversed);
+	}
+
+	/**
+	 * Compares two trees whose roots are nodes (not null) and returns the list of different nodes
+	 * @param node1 the root of the first tree
+	 * @param node2 the root of the second tree
+	 * @param equalName whether the names of the nodes should be compared
+	 * @param modifiedNodes the list of modified nodes
+	 * @param alreadyTraversed the list of nodes that have been visited in this traversal
+	 * @return the set of different nodes
+	 */
+	protected Set<Node> compareNodes(Node node1, Node node2, boolean equalName, Set<Node> modifiedNodes, Set<SymmetricPair<Node, Node>> alreadyTraversed) {
+		ComparisonEngine engine = new ComparisonEngine(modifiedNodes, alreadyTraversed);
+		engine.setSkipEqualSubtrees(this.useStructuralHashes);
+		engine.setDiffSequences(this.diffSequences);
+		return engine.compare(node1, node2, equalName);
 	}
 
 
@@ -9,17 +9,18 @@ package introspector.model.traverse;
 
 
 import introspector.model.Node;
+import introspector.model.NodeSet;
+import introspector.model.TypeInfo;
 
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Writer;
-import java.util.HashSet;
 import java.util.Set;
 
 /**
  * Stores a tree as a txt file
  */
-public class TxtTreeSerializer implements TreeSerializer {
+public class TxtTreeSerializer implements SplittableTreeSerializer {
 
     /**
      * The text stream where the information is to be written
@@ -35,7 +36,7 @@ public class TxtTreeSerializer implements TreeSerializer {
      * Used when two trees have been compared. The nodes in this set indicates that nodes that have been modified.
      * These nodes must be written between ** and ** to indicate that they have are different from the other tree.
      */
-    private final Set<Node> modifiedNodes = new HashSet<>();
+    private final NodeSet modifiedNodes;
 
     /**
      * This constructor creates an object to write the tree in a file
@@ -46,6 +47,7 @@ public class TxtTreeSerializer implements TreeSerializer {
     public TxtTreeSerializer(String fileName, boolean allInfo) throws IOException {
         this.outputTxtFile = new FileWriter(fileName);
         this.allInfo = allInfo;
+        this.modifiedNodes = new NodeSet();
     }
 
     /**
@@ -58,7 +60,7 @@ public class TxtTreeSerializer implements TreeSerializer {
     public TxtTreeSerializer(String fileName, boolean allInfo, Set<Node> modifiedNodes) throws IOException {
         this.outputTxtFile = new FileWriter(fileName);
         this.allInfo = allInfo;
-        this.modifiedNodes.addAll(modifiedNodes);
+        this.modifiedNodes = new NodeSet(modifiedNodes);
     }
 
     /**
@@ -76,8 +78,19 @@ public class TxtTreeSerializer implements TreeSerializer {
      * @param allInfo if all the info in the nodes must be displayed (i.e., toString() method of objects wrapped by nodes)
      */
     TxtTreeSerializer(Writer writer, boolean allInfo) {
+        this(writer, allInfo, new NodeSet());
+    }
+
+    /**
+     * This constructor creates an object to write the tree in a textual output stream
+     * @param writer the textual output stream
+     * @param allInfo if all the info in the nodes must be displayed (i.e., toString() method of objects wrapped by nodes)
+     * @param modifiedNodes the nodes that have been modified (the set is shared, not copied)
+     */
+    private TxtTreeSerializer(Writer writer, boolean allInfo, NodeSet modifiedNodes) {
         this.outputTxtFile = writer;
         this.allInfo = allInfo;
+        this.modifiedNodes = modifiedNodes;
     }
 
     /**
@@ -109,6 +122,23 @@ public class TxtTreeSerializer implements TreeSerializer {
         this.outputTxtFile.flush();
     }
 
+    /**
+     * The new serializer shares the set of modified nodes with this one
+     * @see SplittableTreeSerializer#split(Writer)
+     */
+    @Override
+    public TreeSerializer split(Writer writer) {
+        return new TxtTreeSerializer(writer, this.allInfo, this.modifiedNodes);
+    }
+
+    /**
+     * @see SplittableTreeSerializer#append(String)
+     */
+    @Override
+    public void append(String text) throws IOException {
+        this.write(text);
+    }
+
     /**
      * @see TreeSerializer#beginTraverse
      */
@@ -145,7 +175,7 @@ public class TxtTreeSerializer implements TreeSerializer {
      */
     @Override
     public void traversing(Node node, int depth, boolean hasBeenVisited) throws IOException {
-        boolean modifiedNode = this.modifiedNodes.stream().anyMatch(eachNode -> eachNode.getValue() == node.getValue());
+        boolean modifiedNode = this.modifiedNodes.containsValue(node.getValue());
         if (this.allInfo) {
             StringBuilder sb = new StringBuilder();
             if (modifiedNode)
@@ -154,7 +184,7 @@ public class TxtTreeSerializer implements TreeSerializer {
             if (modifiedNode)
                 sb.append("**");
             Class<?> type = node.getType();
-            sb.append(" (").append(type.getSimpleName()).append(")");
+            sb.append(" (").append(TypeInfo.of(type).getSimpleName()).append(")");
             if (hasBeenVisited)
                 sb.append(" <revisited node>"); // there is a cycle in the data structure (it is a graph)
             sb.append(": ");
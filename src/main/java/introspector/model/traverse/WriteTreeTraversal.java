@@ -9,38 +9,70 @@ package introspector.model.traverse;
 
 
 import introspector.model.Node;
+import introspector.model.NodeSet;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Set;
 
 /**
  * Writes trees with different formats.
+ * The traversal is iterative: instead of recursion, it uses an explicit stack of frames (one per level of the
+ * branch being traversed), so that deep trees (e.g., long linked structures) do not overflow the call stack.
+ * The frame stack is reused in subsequent traversals of the same object.
  */
 public class WriteTreeTraversal {
 
+	/**
+	 * The initial number of frames in the stack
+	 */
+	private static final int INITIAL_STACK_SIZE = 64;
 
 	/**
-	 * Main method to traverse a tree and perform the actions delegated in the tree serializer
-	 * @param node the root node to traverse
+	 * The nodes in the branch being traversed; the index of each frame is the depth of its node
+	 */
+	private Node[] stackNodes = new Node[INITIAL_STACK_SIZE];
+
+	/**
+	 * The index of the next child to be traversed in each frame
+	 */
+	private int[] stackNextChildren = new int[INITIAL_STACK_SIZE];
+
+	/**
+	 * The number of children to be traversed in each frame (zero for leaves and revisited nodes)
+	 */
+	private int[] stackChildrenCounts = new int[INITIAL_STACK_SIZE];
+
+	/**
+	 * Whether the node in each frame has been visited before (cyclic or alias reference)
+	 */
+	private boolean[] stackVisited = new boolean[INITIAL_STACK_SIZE];
+
+	/**
+	 * Pushes a new frame for a node and performs the actions before traversing its children
+	 * @param node the node to traverse
+	 * @param depth the depth of the node (the index of its frame)
 	 * @param treeSerializer the strategy that specifies what to do with each traversal step
-	 * @param depth the depth of the traversed node (zero for the root node)
 	 * @param alreadyTraversed the list of nodes that have been visited in this traversal
 	 * @throws IOException a textual file is written
 	 */
-	private void traverse(Node node, TreeSerializer treeSerializer, int depth, Set<Node> alreadyTraversed) throws IOException {
+	private void push(Node node, int depth, TreeSerializer treeSerializer, Set<Node> alreadyTraversed) throws IOException {
+		if (depth == this.stackNodes.length) {
+			int newLength = depth * 2;
+			this.stackNodes = Arrays.copyOf(this.stackNodes, newLength);
+			this.stackNextChildren = Arrays.copyOf(this.stackNextChildren, newLength);
+			this.stackChildrenCounts = Arrays.copyOf(this.stackChildrenCounts, newLength);
+			this.stackVisited = Arrays.copyOf(this.stackVisited, newLength);
+		}
 		boolean hasBeenVisited = TraverseHelper.hasBeenVisited(node, alreadyTraversed);
 		if (!hasBeenVisited && TraverseHelper.couldBeVisitedTwice(node))
 			alreadyTraversed.add(node);
+		this.stackNodes[depth] = node;
+		this.stackVisited[depth] = hasBeenVisited;
+		this.stackNextChildren[depth] = 0;
+		this.stackChildrenCounts[depth] = !node.isLeaf() && !hasBeenVisited ? node.getChildrenCount() : 0;
 		treeSerializer.beforeTraversing(node, depth, hasBeenVisited);
 		treeSerializer.traversing(node, depth, hasBeenVisited);
-		if (!node.isLeaf() && !hasBeenVisited) {
- 			for (int i=0; i<node.getChildrenCount(); i++)
-				traverse(node.getChild(i), treeSerializer, depth + 1, alreadyTraversed);
-		}
-		treeSerializer.afterTraversing(node, depth, hasBeenVisited);
 	}
 
 	/**
@@ -51,7 +83,26 @@ public class WriteTreeTraversal {
 	 */
 	public void traverse(Node node, TreeSerializer treeSerializer) throws IOException {
 		treeSerializer.beginTraverse();
-		this.traverse(node, treeSerializer, 0, new HashSet<>());
+		Set<Node> alreadyTraversed = new NodeSet();
+		int top = 0; // the frame on the top of the stack
+		try {
+			this.push(node, 0, treeSerializer, alreadyTraversed);
+			while (top >= 0) {
+				if (this.stackNextChildren[top] < this.stackChildrenCounts[top]) {
+					// the next child of the node on the top is traversed
+					Node child = this.stackNodes[top].getChild(this.stackNextChildren[top]++);
+					this.push(child, ++top, treeSerializer, alreadyTraversed);
+				}
+				else {
+					// all the children have been traversed
+					treeSerializer.afterTraversing(this.stackNodes[top], top, this.stackVisited[top]);
+					this.stackNodes[top--] = null;
+				}
+			}
+		} finally {
+			// the nodes are not retained when the traversal is interrupted by an exception
+			Arrays.fill(this.stackNodes, 0, Math.min(top + 1, this.stackNodes.length), null);
+		}
 		treeSerializer.endTraverse();
 	}
 
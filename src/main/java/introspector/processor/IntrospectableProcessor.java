@@ -0,0 +1,203 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.processor;
+
+import introspector.model.IntrospectionAdapter;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Annotation processor that generates an {@link IntrospectionAdapter} for each class annotated with
+ * {@link introspector.model.Introspectable}. The adapter is generated in the package of the class, so it
+ * reads the non-private fields directly. Private fields are read with VarHandles obtained with
+ * MethodHandles.privateLookupIn, so the tree shows the state of the fields (not what their getters compute)
+ * and no user code is run to introspect an object.
+ */
+@SupportedAnnotationTypes("introspector.model.Introspectable")
+public class IntrospectableProcessor extends AbstractProcessor {
+
+	/**
+	 * @see AbstractProcessor#getSupportedSourceVersion()
+	 */
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	/**
+	 * @see AbstractProcessor#process(Set, RoundEnvironment)
+	 */
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (TypeElement annotation : annotations)
+			for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				if (element.getKind() != ElementKind.CLASS && element.getKind() != ElementKind.RECORD) {
+					error(element, "@Introspectable can only be applied to classes and records");
+					continue;
+				}
+				TypeElement type = (TypeElement) element;
+				if (!isAccessibleFromPackage(type)) {
+					error(type, "@Introspectable classes (and their enclosing classes) cannot be private");
+					continue;
+				}
+				try {
+					writeAdapter(type);
+				} catch (IOException exception) {
+					error(type, "the introspection adapter could not be written: " + exception.getMessage());
+				}
+			}
+		return true;
+	}
+
+	/**
+	 * Whether the type (and the types it is nested in) can be used from the code of its package
+	 */
+	private static boolean isAccessibleFromPackage(TypeElement type) {
+		for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement())
+			if (element.getModifiers().contains(Modifier.PRIVATE))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Writes the source code of the adapter of one class
+	 * @param type the class annotated with Introspectable
+	 * @throws IOException if the source file cannot be written
+	 */
+	private void writeAdapter(TypeElement type) throws IOException {
+		String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+		String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+		String adapterName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+				+ IntrospectionAdapter.CLASS_NAME_SUFFIX;
+		String typeName = typeName(type);
+		List<VariableElement> fields = ElementFilter.fieldsIn(type.getEnclosedElements());
+
+		StringBuilder names = new StringBuilder(), types = new StringBuilder(), cases = new StringBuilder(),
+				handles = new StringBuilder();
+		for (int i = 0; i < fields.size(); i++) {
+			VariableElement field = fields.get(i);
+			names.append(i == 0 ? "" : ", ").append('"').append(field.getSimpleName()).append('"');
+			types.append(i == 0 ? "" : ", ").append(classLiteral(field.asType()));
+			cases.append("\t\t\tcase ").append(i).append(" -> ").append(valueExpression(type, field, i, handles))
+					.append(";\n");
+		}
+
+		StringBuilder source = new StringBuilder();
+		if (!packageName.isEmpty())
+			source.append("package ").append(packageName).append(";\n\n");
+		source.append("/**\n * Introspection adapter of ").append(type.getQualifiedName())
+				.append(", generated by ").append(IntrospectableProcessor.class.getName()).append(".\n */\n");
+		source.append("public final class ").append(adapterName).append(" implements ")
+				.append(IntrospectionAdapter.class.getCanonicalName()).append("<").append(typeName).append("> {\n\n");
+		source.append("\tprivate static final String[] FIELD_NAMES = {").append(names).append("};\n\n");
+		source.append("\tprivate static final Class<?>[] FIELD_TYPES = {").append(types).append("};\n\n");
+		source.append(handles);
+		source.append("\t@Override\n\tpublic String[] getFieldNames() {\n\t\treturn FIELD_NAMES.clone();\n\t}\n\n");
+		source.append("\t@Override\n\tpublic Class<?>[] getFieldTypes() {\n\t\treturn FIELD_TYPES.clone();\n\t}\n\n");
+		source.append("\t@Override\n\tpublic Object getFieldValue(").append(typeName).append(" object, int index) {\n");
+		if (fields.isEmpty())
+			source.append("\t\tthrow new IndexOutOfBoundsException(index);\n\t}\n\n");
+		else {
+			source.append("\t\treturn switch (index) {\n").append(cases);
+			source.append("\t\t\tdefault -> throw new IndexOutOfBoundsException(index);\n\t\t};\n\t}\n\n");
+		}
+		if (!handles.isEmpty())
+			appendVarHandleFactory(source, classLiteral(type.asType()));
+		source.append("}\n");
+
+		String qualifiedAdapterName = packageName.isEmpty() ? adapterName : packageName + "." + adapterName;
+		try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedAdapterName, type).openWriter()) {
+			writer.write(source.toString());
+		}
+	}
+
+	/**
+	 * The name of the type used in the generated code (with wildcards for generic types)
+	 */
+	private static String typeName(TypeElement type) {
+		StringBuilder name = new StringBuilder(type.getQualifiedName());
+		int typeParameters = type.getTypeParameters().size();
+		if (typeParameters > 0)
+			name.append("<").append(String.join(", ", Collections.nCopies(typeParameters, "?"))).append(">");
+		return name.toString();
+	}
+
+	/**
+	 * The class literal of the erasure of a type (e.g., java.util.List.class for List&lt;String&gt;)
+	 */
+	private String classLiteral(TypeMirror type) {
+		TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+		if (erasure.getKind().isPrimitive())
+			return erasure.getKind().name().toLowerCase() + ".class";
+		if (erasure instanceof ArrayType arrayType) {
+			String componentLiteral = classLiteral(arrayType.getComponentType());
+			return componentLiteral.substring(0, componentLiteral.length() - ".class".length()) + "[].class";
+		}
+		if (erasure instanceof DeclaredType declaredType)
+			return ((TypeElement) declaredType.asElement()).getQualifiedName() + ".class";
+		return "Object.class";
+	}
+
+	/**
+	 * Returns the expression that reads the value of one field in the generated code
+	 * @param type the class that declares the field
+	 * @param field the field to be read
+	 * @param index the index of the field in the adapter
+	 * @param handles where the declaration of the VarHandle used to read a private field is appended
+	 * @return the expression
+	 */
+	private String valueExpression(TypeElement type, VariableElement field, int index, StringBuilder handles) {
+		boolean isStatic = field.getModifiers().contains(Modifier.STATIC);
+		if (!field.getModifiers().contains(Modifier.PRIVATE))
+			return (isStatic ? type.getQualifiedName().toString() : "object") + "." + field.getSimpleName();
+		if (isStatic && field.getConstantValue() != null)
+			// private compile-time constants (e.g., serialVersionUID) are inlined
+			return processingEnv.getElementUtils().getConstantExpression(field.getConstantValue());
+		String handleName = "FIELD_" + index;
+		handles.append("\tprivate static final java.lang.invoke.VarHandle ").append(handleName)
+				.append(" = varHandle(\"").append(field.getSimpleName()).append("\", ")
+				.append(classLiteral(field.asType())).append(", ").append(isStatic).append(");\n\n");
+		return handleName + (isStatic ? ".get()" : ".get(object)");
+	}
+
+	/**
+	 * Appends the method that the generated code uses to obtain the VarHandles of private fields
+	 * @param source the source code of the adapter
+	 * @param typeLiteral the class literal of the class that declares the fields
+	 */
+	private static void appendVarHandleFactory(StringBuilder source, String typeLiteral) {
+		source.append("\tprivate static java.lang.invoke.VarHandle varHandle(String name, Class<?> type, boolean isStatic) {\n");
+		source.append("\t\ttry {\n");
+		source.append("\t\t\tjava.lang.invoke.MethodHandles.Lookup lookup = java.lang.invoke.MethodHandles.privateLookupIn(")
+				.append(typeLiteral).append(", java.lang.invoke.MethodHandles.lookup());\n");
+		source.append("\t\t\treturn isStatic ? lookup.findStaticVarHandle(").append(typeLiteral)
+				.append(", name, type) : lookup.findVarHandle(").append(typeLiteral).append(", name, type);\n");
+		source.append("\t\t} catch (ReflectiveOperationException exception) {\n");
+		source.append("\t\t\tthrow new ExceptionInInitializerError(exception);\n\t\t}\n\t}\n\n");
+	}
+
+	/**
+	 * Reports a compilation error
+	 */
+	private void error(Element element, String message) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+	}
+
+}
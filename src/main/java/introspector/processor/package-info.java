@@ -0,0 +1,9 @@
+/**
+ * <p>The processor package provides the annotation processor that generates, at compile time, an
+ * introspection adapter for each class annotated with {@link introspector.model.Introspectable}.
+ * The processor is registered as a service, so it is run by javac when the Introspector jar is in the classpath.</p>
+ * <p>Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.</p>
+ * <p>MIT license.</p>
+ * @author Francisco Ortin
+ */
+package introspector.processor;
@@ -117,6 +117,12 @@ public class IntrospectorView extends JFrame {
 		menuItemUnselect.getAccessibleContext().setAccessibleDescription("Unselect the nodes of this tree");
 		menuItemUnselect.addActionListener(event ->  new UnselectNodeController().unselectNode(tree));
 		popupMenu.add(menuItemUnselect);
+		// refresh the selected node
+		final JMenuItem menuItemRefresh = new JMenuItem("Refresh the selected node");
+		menuItemRefresh.setMnemonic('R');
+		menuItemRefresh.getAccessibleContext().setAccessibleDescription("Refresh the selected node");
+		menuItemRefresh.addActionListener(event ->  new RefreshNodeController().refreshSelectedNode(tree));
+		popupMenu.add(menuItemRefresh);
 		// compare trees
 		final JMenuItem menuItemCompareTrees = new JMenuItem("Compare trees");
 		menuItemCompareTrees.setMnemonic('C');
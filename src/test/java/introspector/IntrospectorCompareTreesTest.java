@@ -74,7 +74,12 @@ public class IntrospectorCompareTreesTest {
         Assertions.assertFalse(Introspector.compareTrees(new ArrayList<>(Arrays.asList(1, 2)), new ArrayList<>(Arrays.asList(2, 1))));
         Assertions.assertFalse(Introspector.compareTrees(new ArrayList<>(Arrays.asList(1, 2)), new ArrayList<>(Arrays.asList(1, 2, 3))));
         Assertions.assertFalse(Introspector.compareTrees(new HashSet<>(Arrays.asList(1.1, 2.2)), new HashSet<>(Arrays.asList(1.1, 2.2, 3.3))));
-        Assertions.assertFalse(Introspector.compareTrees(new HashSet<>(Arrays.asList(1.1, 2.2)), new HashSet<>(Arrays.asList(2.2, 1.1))));
+        // sets are compared regardless of the order of their elements
+        assertTrue(Introspector.compareTrees(new HashSet<>(Arrays.asList(1.1, 2.2)), new HashSet<>(Arrays.asList(2.2, 1.1))));
+        assertTrue(Introspector.compareTrees(new LinkedHashSet<>(Arrays.asList(1, 2, 3)), new LinkedHashSet<>(Arrays.asList(3, 1, 2))));
+        Assertions.assertFalse(Introspector.compareTrees(new LinkedHashSet<>(Arrays.asList(1, 2, 3)), new LinkedHashSet<>(Arrays.asList(3, 1, 4))));
+        // "Aa" and "BB" have the same hash code
+        Assertions.assertFalse(Introspector.compareTrees(new HashSet<>(List.of("Aa", "x")), new HashSet<>(List.of("BB", "x"))));
     }
 
 
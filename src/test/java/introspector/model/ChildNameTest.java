@@ -0,0 +1,79 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+
+package introspector.model;
+
+import introspector.model.traverse.TreeComparator;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests for the names of the children of containers (ChildName class in the model package)
+ */
+class ChildNameTest {
+
+    @Test
+    void namesComputedFromParent() {
+        Map<Object, Object> map = new HashMap<>();
+        map.put(null, List.of("a", "b"));
+        Node root = NodeFactory.createNode("map", map);
+        Node list = root.getChild(0);
+        assertEquals("map[null]", list.getName());
+        assertEquals("map[null][1]", list.getChild(1).getName());
+        assertEquals("map[null][1] (String): b", list.getChild(1).toString());
+    }
+
+    @Test
+    void hashCodeOfNames() {
+        Node root = NodeFactory.createNode("list", Arrays.asList(0, 1, 12, 345, 6789, 10, 11, 12, 13, 14, 15));
+        for (int i = 0; i < root.getChildrenCount(); i++)
+            assertEquals(root.getChild(i).getName().hashCode(), root.getChild(i).hashCode());
+        Node map = NodeFactory.createNode("map", Map.of("key", 'c'));
+        assertEquals("map[key]".hashCode(), map.getChild(0).hashCode());
+    }
+
+    @Test
+    void sameNames() {
+        Node tree1 = NodeFactory.createNode("root", new Integer[]{1, 2}),
+                tree2 = NodeFactory.createNode("root", new Integer[]{3, 2});
+        Set<Node> modified = tree1.compareTrees(tree2, true, new HashSet<>(), new HashSet<>());
+        assertTrue(modified.contains(tree1.getChild(0)));
+        assertFalse(modified.contains(tree1.getChild(1)));
+        Node other = NodeFactory.createNode("other", new Integer[]{1, 2});
+        modified = tree1.compareTrees(other, true, new HashSet<>(), new HashSet<>());
+        assertTrue(modified.contains(tree1));
+    }
+
+    @Test
+    void deepNames() {
+        List<Object> list1 = new ArrayList<>(), list2 = new ArrayList<>();
+        List<Object> last1 = list1, last2 = list2;
+        for (int i = 0; i < 50_000; i++) {
+            List<Object> next1 = new ArrayList<>(), next2 = new ArrayList<>();
+            last1.add(next1);
+            last2.add(next2);
+            last1 = next1;
+            last2 = next2;
+        }
+        last1.add(1);
+        last2.add(2);
+        // the names are hashed, compared and built with no StackOverflowError
+        Node tree1 = NodeFactory.createNode("root", list1), tree2 = NodeFactory.createNode("root", list2);
+        Set<Node> modified = new TreeComparator().compareTrees(tree1, tree2);
+        assertEquals(2, modified.size());
+        Node leaf = modified.iterator().next();
+        assertEquals("root" + "[0]".repeat(50_000) + "[0]", leaf.getName());
+        assertSame(leaf.getName(), leaf.getName());
+        assertEquals(leaf.getName().hashCode(), leaf.hashCode());
+    }
+
+}
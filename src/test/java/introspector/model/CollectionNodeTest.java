@@ -87,5 +87,44 @@ class CollectionNodeTest {
         );
     }
 
+    @Test
+    void childrenCreatedOnce() {
+        assertAll(
+                () -> assertSame(this.list.getChild(1), this.list.getChild(1)),
+                () -> assertSame(this.set.getChild(0), this.set.getChildren().get(0)),
+                () -> assertSame(this.queue.getChildren(), this.queue.getChildren()),
+                () -> assertNull(this.list.getChild(3))
+        );
+    }
+
+    @Test
+    void childrenCountFromCollection() {
+        List<Integer> collection = new ArrayList<>(Arrays.asList(1, 2));
+        CollectionNode node = new CollectionNode("list", collection);
+        assertEquals(2, node.getChildrenCount());
+        collection.add(3);
+        assertEquals(3, node.getChildrenCount());
+        assertEquals(3, node.getChild(2).getValue());
+    }
+
+    @Test
+    void childrenRefreshed() {
+        List<Integer> collection = new ArrayList<>(Arrays.asList(1, 2));
+        Set<Integer> set = new HashSet<>(Set.of(1));
+        CollectionNode listNode = new CollectionNode("list", collection), setNode = new CollectionNode("set", set);
+        Node child = listNode.getChild(1);
+        assertEquals(1, setNode.getChild(0).getValue());
+        // the children are snapshots until the node is refreshed
+        collection.set(1, 5);
+        set.clear();
+        set.add(7);
+        assertSame(child, listNode.getChild(1));
+        assertEquals(1, setNode.getChild(0).getValue());
+        listNode.refresh();
+        setNode.refresh();
+        assertEquals(5, listNode.getChild(1).getValue());
+        assertEquals(7, setNode.getChild(0).getValue());
+    }
+
 
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+
+package introspector.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests for the FieldLayout class in the model package
+ */
+class FieldLayoutTest {
+
+    /**
+     * Dummy class for testing purposes.
+     */
+    private static class EmptyClass {}
+
+    /**
+     * Dummy class for testing purposes.
+     */
+    private static class BaseClass {
+        private int a;
+        private String b;
+    }
+
+    /**
+     * Dummy class for testing purposes.
+     */
+    private static class DerivedClass extends BaseClass {
+        private double a; // repeated field
+    }
+
+    @Test
+    void fieldCount() {
+        assertAll(
+                () -> assertEquals(0, FieldLayout.of(Object.class).getFieldCount()),
+                () -> assertEquals(0, FieldLayout.of(EmptyClass.class).getFieldCount()),
+                () -> assertEquals(2, FieldLayout.of(BaseClass.class).getFieldCount()),
+                () -> assertEquals(3, FieldLayout.of(DerivedClass.class).getFieldCount())
+        );
+    }
+
+    @Test
+    void fieldNames() {
+        FieldLayout layout = FieldLayout.of(DerivedClass.class);
+        assertEquals("a", layout.getName(0));
+        assertEquals(double.class, layout.getField(0).getType());
+        assertEquals("a:introspector.model.FieldLayoutTest$BaseClass", layout.getName(1));
+        assertEquals(int.class, layout.getField(1).getType());
+        assertEquals("b", layout.getName(2));
+    }
+
+    @Test
+    void layoutCache() {
+        assertSame(FieldLayout.of(DerivedClass.class), FieldLayout.of(DerivedClass.class));
+        assertNotSame(FieldLayout.of(DerivedClass.class), FieldLayout.of(BaseClass.class));
+    }
+
+}
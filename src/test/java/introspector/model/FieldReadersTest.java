@@ -0,0 +1,85 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+
+package introspector.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests for the FieldReaders class in the model package
+ */
+class FieldReadersTest {
+
+    /**
+     * Dummy class for testing purposes.
+     */
+    private static class MyClass {
+        private static final String staticValue = "static";
+        private final int intValue = 1;
+        private final Object objectValue = new Object();
+    }
+
+    /**
+     * Dummy record for testing purposes.
+     */
+    private record Point(int x, int y) {}
+
+    /**
+     * Dummy class for testing purposes (its layout is computed once the factory is plugged).
+     */
+    private static class Plugged {
+        private final String value = "value";
+    }
+
+    @Test
+    void readFields() throws ReflectiveOperationException {
+        MyClass object = new MyClass();
+        assertEquals("static", FieldReaders.create(MyClass.class.getDeclaredField("staticValue")).read(object));
+        assertEquals(1, FieldReaders.create(MyClass.class.getDeclaredField("intValue")).read(object));
+        assertSame(object.objectValue, FieldReaders.create(MyClass.class.getDeclaredField("objectValue")).read(object));
+    }
+
+    @Test
+    void readRecordComponents() throws ReflectiveOperationException {
+        Point point = new Point(3, 4);
+        assertEquals(3, FieldReaders.create(Point.class.getDeclaredField("x")).read(point));
+        assertEquals(4, FieldReaders.create(Point.class.getDeclaredField("y")).read(point));
+    }
+
+    @Test
+    void sameValueAsReflection() throws ReflectiveOperationException {
+        MyClass object = new MyClass();
+        FieldLayout layout = FieldLayout.of(MyClass.class);
+        for (int i = 0; i < layout.getFieldCount(); i++)
+            assertEquals(FieldReaders.reflective(layout.getField(i)).read(object), layout.getReader(i).read(object));
+    }
+
+    @Test
+    void constantMethodHandles() throws ReflectiveOperationException {
+        FieldReader reader = FieldReaders.create(MyClass.class.getDeclaredField("intValue"));
+        assertTrue(reader.getClass().isHidden());
+        assertEquals(1, reader.read(new MyClass()));
+        assertThrows(ClassCastException.class, () -> reader.read("not a MyClass"));
+    }
+
+    @Test
+    void pluggedFactory() {
+        NodeFactory.setFieldReaderFactory(field -> field.getName().equals("value") ? object -> "plugged" : null);
+        try {
+            Node node = NodeFactory.createNode("plugged", new Plugged());
+            assertEquals("plugged", node.getChild(0).getValue());
+            assertNull(FieldLayout.of(Plugged.class).getExtractor());
+        } finally {
+            NodeFactory.setFieldReaderFactory(null);
+        }
+    }
+
+}
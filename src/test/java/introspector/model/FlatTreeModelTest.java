@@ -0,0 +1,90 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+
+package introspector.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests for the FlatTreeModel class in the model package
+ */
+class FlatTreeModelTest {
+
+    /**
+     * Dummy class for testing purposes.
+     */
+    private static class Person {
+        private final String name;
+        private final List<Person> friends = new ArrayList<>();
+        private final Map<String, Integer> scores = new TreeMap<>(Map.of("math", 9));
+        Person(String name) {
+            this.name = name;
+        }
+    }
+
+    private FlatTreeModel model;
+
+    @BeforeEach
+    void createModel() {
+        Person alice = new Person("Alice"), bob = new Person("Bob");
+        alice.friends.add(bob);
+        bob.friends.add(alice); // cycle
+        this.model = new FlatTreeModel("alice", alice);
+    }
+
+    @Test
+    void structure() {
+        FlatTreeModel.FlatNode root = this.model.getRoot();
+        assertEquals("alice", root.getName());
+        assertEquals(3, root.getChildrenCount());
+        Node friends = root.getChild(1);
+        assertEquals("friends", friends.getName());
+        assertEquals(1, friends.getChildrenCount());
+        Node bob = friends.getChild(0);
+        assertEquals("friends[0]", bob.getName());
+        assertEquals("Bob", bob.getChild(0).getValue());
+        assertEquals("scores[math]", root.getChild(2).getChild(0).getName());
+        assertEquals("scores[math] (Integer): 9", root.getChild(2).getChild(0).toString());
+        assertNull(root.getChild(3));
+    }
+
+    @Test
+    void cyclesNotExpanded() {
+        Node alice = this.model.getRoot().getChild(1).getChild(0).getChild(1).getChild(0);
+        assertEquals("friends[0]", alice.getName());
+        assertTrue(this.model.isRevisited(((FlatTreeModel.FlatNode) alice).getIndex()));
+        assertEquals(0, alice.getChildrenCount());
+    }
+
+    @Test
+    void treeModel() {
+        Object root = this.model.getRoot();
+        assertFalse(this.model.isLeaf(root));
+        assertEquals(3, this.model.getChildCount(root));
+        Object child = this.model.getChild(root, 2);
+        assertEquals(child, this.model.getChild(root, 2));
+        assertEquals(2, this.model.getIndexOfChild(root, child));
+        assertTrue(this.model.isLeaf(this.model.getChild(root, 0)));
+    }
+
+    @Test
+    void compareTrees() {
+        FlatTreeModel other = new FlatTreeModel("root", new int[]{1, 2, 3});
+        FlatTreeModel modified = new FlatTreeModel("root", new int[]{1, 5, 3});
+        Set<Node> modifiedNodes = other.getRoot().compareTrees(modified.getRoot(), true, new HashSet<>(), new HashSet<>());
+        assertEquals(2, modifiedNodes.size());
+        assertTrue(modifiedNodes.contains(other.getRoot().getChild(1)));
+    }
+
+}
@@ -0,0 +1,99 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+
+package introspector.model;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests for the HiddenClassExtractors class in the model package
+ */
+class HiddenClassExtractorsTest {
+
+    /**
+     * Dummy class for testing purposes.
+     */
+    private static class BaseClass {
+        private static int counter = 7;
+        private final long longValue = 3L;
+        private final String stringValue = "base";
+    }
+
+    /**
+     * Dummy class for testing purposes.
+     */
+    private static class DerivedClass extends BaseClass {
+        private final double longValue = 2.5; // repeated field
+        private final char charValue = 'c';
+        private final boolean booleanValue = true;
+        private final Object objectValue = null;
+        private final int[] arrayValue = {1, 2};
+    }
+
+    /**
+     * Dummy class for testing purposes.
+     */
+    private static class HotClass {
+        private final int id;
+        HotClass(int id) { this.id = id; }
+    }
+
+    @AfterEach
+    void restoreThreshold() {
+        NodeFactory.setHotClassThreshold(FieldLayout.DEFAULT_HOT_CLASS_THRESHOLD);
+    }
+
+    @Test
+    void extractAllFields() throws ReflectiveOperationException {
+        DerivedClass object = new DerivedClass();
+        FieldLayout layout = FieldLayout.of(DerivedClass.class);
+        Object[] fields = new Object[layout.getFieldCount()];
+        Field[] layoutFields = new Field[layout.getFieldCount()];
+        for (int i = 0; i < layout.getFieldCount(); i++)
+            layoutFields[i] = layout.getField(i);
+        FieldExtractor extractor = HiddenClassExtractors.generate(layoutFields);
+        assertNotNull(extractor);
+        extractor.extract(object, fields);
+        for (int i = 0; i < layout.getFieldCount(); i++)
+            assertEquals(FieldReaders.reflective(layout.getField(i)).read(object), fields[i], layout.getName(i));
+        assertSame(object.arrayValue, fields[4]);
+    }
+
+    @Test
+    void hotClassChildren() {
+        NodeFactory.setHotClassThreshold(2);
+        for (int i = 0; i < 5; i++) {
+            List<Node> children = new ObjectNode("hot", new HotClass(i)).getChildren();
+            assertEquals(1, children.size());
+            assertEquals("id", children.get(0).getName());
+            assertEquals(i, children.get(0).getValue());
+        }
+        assertNotNull(FieldLayout.of(HotClass.class).getExtractor());
+    }
+
+    @Test
+    void failedExtraction() {
+        NodeFactory.setHotClassThreshold(1);
+        // the value is not a BaseClass, so the extractor fails and the fields are read one by one
+        List<Node> children = new ObjectNode("base", "not a BaseClass", BaseClass.class).getChildren();
+        assertNotNull(FieldLayout.of(BaseClass.class).getExtractor());
+        assertEquals(1, children.size());
+        assertEquals("counter", children.get(0).getName());
+        assertEquals(7, children.get(0).getValue());
+        for (Object value : FieldLayout.of(BaseClass.class).getBuffer())
+            assertNull(value);
+    }
+
+}
@@ -14,6 +14,12 @@ import introspector.model.NodeFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreePath;
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 
@@ -85,4 +91,26 @@ class IntrospectorModelTest {
         assertEquals(-1, this.objectModel.getIndexOfChild(this.objectNode, this.objectNode));
     }
 
-}
\ No newline at end of file
+    @Test
+    void refresh() {
+        List<TreeModelEvent> events = new ArrayList<>();
+        TreeModelListener listener = new TreeModelListener() {
+            public void treeNodesChanged(TreeModelEvent event) {}
+            public void treeNodesInserted(TreeModelEvent event) {}
+            public void treeNodesRemoved(TreeModelEvent event) {}
+            public void treeStructureChanged(TreeModelEvent event) { events.add(event); }
+        };
+        this.arrayModel.addTreeModelListener(listener);
+        assertEquals(2, this.arrayModel.getChild(this.arrayNode, 1).getValue());
+        this.array[1] = 5;
+        TreePath path = new TreePath(this.arrayNode);
+        this.arrayModel.refresh(path);
+        assertEquals(5, this.arrayModel.getChild(this.arrayNode, 1).getValue());
+        assertEquals(1, events.size());
+        assertEquals(path, events.get(0).getTreePath());
+        this.arrayModel.removeTreeModelListener(listener);
+        this.arrayModel.refresh(path);
+        assertEquals(1, events.size());
+    }
+
+}
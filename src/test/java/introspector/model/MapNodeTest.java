@@ -94,6 +94,33 @@ class MapNodeTest {
         assertEquals(this.to, list.get(0).getValue());
     }
 
+    @Test
+    void nullAndMixedKeysSorted() {
+        Map<Object, Integer> map = new HashMap<>();
+        map.put("b", 1);
+        map.put(2, 2);
+        map.put(null, 3);
+        map.put("a", 4);
+        map.put(1, 5);
+        List<Node> list = new MapNode("map", map).getChildren();
+        assertEquals("map[null]", list.get(0).getName());
+        assertEquals("map[1]", list.get(1).getName());
+        assertEquals("map[2]", list.get(2).getName());
+        assertEquals("map[a]", list.get(3).getName());
+        assertEquals("map[b]", list.get(4).getName());
+    }
+
+    @Test
+    void sortedMapOrderKept() {
+        Map<String, Integer> map = new TreeMap<>(Comparator.reverseOrder());
+        map.put("a", 1);
+        map.put("b", 2);
+        MapNode node = new MapNode("map", map);
+        assertEquals("map[b]", node.getChild(0).getName());
+        assertEquals("map[a]", node.getChild(1).getName());
+        assertSame(node.getChild(1), node.getChildren().get(1));
+    }
+
     @Test
     void toStringOverridden() {
         assertAll(
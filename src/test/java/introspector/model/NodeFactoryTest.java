@@ -101,6 +101,9 @@ class NodeFactoryTest {
         assertEquals("array", node.getName());
         assertEquals(value, node.getValue());
         assertEquals(value.getClass(), node.getType());
+        assertEquals(DoubleArrayNode.class, node.getClass());
+        value = new String[] {"one"};
+        node = NodeFactory.createNode("array", value);
         assertEquals(ArrayNode.class, node.getClass());
         // objects
         value = new MyClass();
@@ -0,0 +1,85 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+
+package introspector.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests for the NodeInterner class in the model package
+ */
+class NodeInternerTest {
+
+    /**
+     * Dummy class for testing purposes.
+     */
+    private static class Config {
+        private final String value = "config";
+        private final int[] numbers = {1, 2};
+    }
+
+    /**
+     * Dummy class for testing purposes.
+     */
+    private static class Component {
+        private final Config config;
+        private final Config settings;
+        Component(Config config) {
+            this.config = this.settings = config;
+        }
+    }
+
+    @Test
+    void aliasesWithTheSameNameShared() {
+        Config config = new Config();
+        List<Component> components = new ArrayList<>(List.of(new Component(config), new Component(config)));
+        IntrospectorModel model = new IntrospectorModel("components", components, false, NodeFactory.NO_PAGING, true);
+        Node component1 = model.getRoot().getChild(0), component2 = model.getRoot().getChild(1);
+        assertNotSame(component1, component2);
+        assertSame(component1.getChild(0), component2.getChild(0));
+    }
+
+    @Test
+    void aliasesWithOtherNamesShareChildren() {
+        Config config = new Config();
+        IntrospectorModel model = new IntrospectorModel("component", new Component(config), false, NodeFactory.NO_PAGING, true);
+        Node configNode = model.getRoot().getChild(0), settingsNode = model.getRoot().getChild(1);
+        assertEquals("config", configNode.getName());
+        assertEquals("settings", settingsNode.getName());
+        assertNotSame(configNode, settingsNode);
+        assertSame(configNode.getChild(1), settingsNode.getChild(1));
+        assertEquals(2, settingsNode.getChild(1).getChildrenCount());
+    }
+
+    @Test
+    void internerScopedToOneModel() {
+        Config config = new Config();
+        IntrospectorModel model1 = new IntrospectorModel("tree", new Component(config), false, NodeFactory.NO_PAGING, true);
+        IntrospectorModel model2 = new IntrospectorModel("tree", new Component(config), false, NodeFactory.NO_PAGING, true);
+        assertNotSame(model1.getInterner(), model2.getInterner());
+        assertNotSame(model1.getRoot().getChild(0), model2.getRoot().getChild(0));
+    }
+
+    @Test
+    void noInterning() {
+        Config config = new Config();
+        Node root = NodeFactory.createNode("component", new Component(config));
+        assertNotSame(root.getChild(0).getChild(1), root.getChild(1).getChild(1));
+        // interning is opt-in
+        IntrospectorModel model = new IntrospectorModel("component", new Component(config));
+        assertNull(model.getInterner());
+        assertNotSame(model.getRoot().getChild(0).getChild(1), model.getRoot().getChild(1).getChild(1));
+    }
+
+}
@@ -0,0 +1,97 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+
+package introspector.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests for the NodeSet class in the model package
+ */
+class NodeSetTest {
+
+    @Test
+    void sameValueAndName() {
+        Object value = new Object();
+        NodeSet set = new NodeSet();
+        assertTrue(set.add(NodeFactory.createNode("value", value)));
+        assertFalse(set.add(NodeFactory.createNode("value", value)));
+        assertTrue(set.add(NodeFactory.createNode("other", value)));
+        assertTrue(set.add(NodeFactory.createNode("value", new Object())));
+        assertEquals(3, set.size());
+        assertTrue(set.contains(NodeFactory.createNode("other", value)));
+        assertTrue(set.containsValue(value));
+        assertFalse(set.containsValue(new Object()));
+    }
+
+    @Test
+    void manyNodes() {
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            nodes.add(NodeFactory.createNode("value", new Object()));
+        NodeSet set = new NodeSet(nodes);
+        assertEquals(1000, set.size());
+        assertEquals(new HashSet<>(nodes), new HashSet<>(set));
+        for (int i = 0; i < 1000; i += 2)
+            assertTrue(set.remove(nodes.get(i)));
+        assertEquals(500, set.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 2 == 1, set.contains(nodes.get(i)));
+            assertEquals(i % 2 == 1, set.containsValue(nodes.get(i).getValue()));
+        }
+    }
+
+    @Test
+    void manyNodesWrappingTheSameObject() {
+        // elements of a list of nulls: all the nodes wrap null, with different names
+        Node list = NodeFactory.createNode("list", Arrays.asList(new Object[40_000]));
+        NodeSet set = new NodeSet();
+        for (int i = 0; i < list.getChildrenCount(); i++)
+            assertTrue(set.add(list.getChild(i)));
+        assertEquals(40_000, set.size());
+        assertTrue(set.contains(list.getChild(123)));
+        assertTrue(set.containsValue(null));
+        for (int i = 0; i < list.getChildrenCount() - 1; i++)
+            assertTrue(set.remove(list.getChild(i)));
+        assertTrue(set.containsValue(null));
+        assertTrue(set.remove(list.getChild(list.getChildrenCount() - 1)));
+        assertFalse(set.containsValue(null));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    void removalWithIterators() {
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 5000; i++)
+            values.add(i);
+        Node list = NodeFactory.createNode("list", values);
+        NodeSet set = new NodeSet();
+        for (int i = 0; i < list.getChildrenCount(); i++)
+            set.add(list.getChild(i));
+        assertTrue(set.removeIf(node -> (Integer) node.getValue() % 3 == 0));
+        assertEquals(3333, set.size());
+        for (int i = 0; i < list.getChildrenCount(); i++) {
+            assertEquals(i % 3 != 0, set.contains(list.getChild(i)));
+            assertEquals(i % 3 != 0, set.containsValue(values.get(i)));
+        }
+        assertTrue(set.retainAll(List.of(list.getChild(1), list.getChild(2), list.getChild(3))));
+        assertEquals(Set.of(list.getChild(1), list.getChild(2)), set);
+        Iterator<Node> iterator = set.iterator();
+        assertThrows(IllegalStateException.class, iterator::remove);
+        iterator.next();
+        iterator.remove();
+        assertThrows(IllegalStateException.class, iterator::remove);
+        assertEquals(1, set.size());
+    }
+
+}
@@ -0,0 +1,138 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+
+package introspector.model;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests for the PrimitiveArrayNode classes in the model package
+ */
+class PrimitiveArrayNodeTest {
+
+    private static final int COMPACT_THRESHOLD = 64;
+
+    @AfterEach
+    void disableCompaction() {
+        NodeFactory.setCompactArrayThreshold(0);
+    }
+
+    @Test
+    void smallArrays() {
+        Node node = NodeFactory.createNode("array", new float[]{1.5f, 2.5f});
+        assertInstanceOf(FloatArrayNode.class, node);
+        assertEquals(2, node.getChildrenCount());
+        assertEquals("array[1]", node.getChild(1).getName());
+        assertEquals(2.5f, node.getChild(1).getValue());
+        assertEquals(Float.class, node.getChild(1).getType());
+        assertNull(node.getChild(2));
+    }
+
+    @Test
+    void noCompactionByDefault() {
+        int[] array1 = IntStream.range(0, 100).toArray(), array2 = array1.clone();
+        array2[40] = -1;
+        Node node1 = NodeFactory.createNode("array", array1), node2 = NodeFactory.createNode("array", array2);
+        assertEquals(100, node1.getChildrenCount());
+        assertEquals(40, node1.getChild(40).getValue());
+        // only the elements are modified (not the rows they belong to)
+        Set<Node> modifiedNodes = node1.compareTrees(node2, true, new HashSet<>(), new HashSet<>());
+        assertEquals(2, modifiedNodes.size());
+        assertTrue(modifiedNodes.contains(node1.getChild(40)));
+        // the setting only applies to the nodes created after it
+        NodeFactory.setCompactArrayThreshold(COMPACT_THRESHOLD);
+        assertEquals(100, node1.getChildrenCount());
+        assertEquals(4, NodeFactory.createNode("array", array1).getChildrenCount());
+    }
+
+    @Test
+    void compactArrays() {
+        NodeFactory.setCompactArrayThreshold(COMPACT_THRESHOLD);
+        int[] array = IntStream.range(0, 100).toArray();
+        Node node = NodeFactory.createNode("array", array);
+        assertInstanceOf(IntArrayNode.class, node);
+        assertEquals(4, node.getChildrenCount());
+        assertEquals("array[32..63]", node.getChild(1).getName());
+        assertTrue(node.getChild(1).isLeaf());
+        assertEquals("96, 97, 98, 99", node.getChild(3).getValue());
+        assertEquals("array[96..99] (String): 96, 97, 98, 99", node.getChild(3).toString());
+    }
+
+    @Test
+    void byteArraysInHex() {
+        NodeFactory.setCompactArrayThreshold(COMPACT_THRESHOLD);
+        byte[] array = new byte[COMPACT_THRESHOLD + 1];
+        array[0] = (byte) 0xCA;
+        array[1] = (byte) 0xFE;
+        array[2] = 10;
+        Node node = NodeFactory.createNode("bytes", array);
+        assertEquals("ca fe 0a 00", node.getChild(0).getValue().toString().substring(0, 11));
+    }
+
+    @Test
+    void charArraysAsText() {
+        NodeFactory.setCompactArrayThreshold(COMPACT_THRESHOLD);
+        char[] array = ("Hello\n" + "x".repeat(COMPACT_THRESHOLD)).toCharArray();
+        Node node = NodeFactory.createNode("text", array);
+        assertTrue(node.getChild(0).getValue().toString().startsWith("Hello\\nxxx"));
+    }
+
+    @Test
+    void pagedRows() {
+        NodeFactory.setCompactArrayThreshold(COMPACT_THRESHOLD);
+        long[] array = new long[1000];
+        Node node = NodeFactory.createNode("array", array, 10);
+        assertInstanceOf(LongArrayNode.class, node);
+        // 1000 elements => 32 rows => 4 ranges of rows
+        assertEquals(4, node.getChildrenCount());
+        assertEquals("array[0..319]", node.getChild(0).getName());
+        assertEquals("array[960..999]", node.getChild(3).getName());
+        assertEquals("array[992..999]", node.getChild(3).getChild(1).getName());
+    }
+
+    @Test
+    void compareRows() {
+        NodeFactory.setCompactArrayThreshold(COMPACT_THRESHOLD);
+        double[] array1 = new double[200], array2 = new double[200];
+        array2[150] = 1;
+        Node node1 = NodeFactory.createNode("array", array1), node2 = NodeFactory.createNode("array", array2);
+        assertEquals(2, node1.compareTrees(node2, true, new HashSet<>(), new HashSet<>()).size());
+    }
+
+    @Test
+    void compareOnlyMismatches() {
+        NodeFactory.setCompactArrayThreshold(COMPACT_THRESHOLD);
+        double[] array1 = new double[1_000_000], array2 = new double[1_000_000];
+        array2[10] = Double.NaN;
+        array2[999_999] = -0.0;
+        Node node1 = NodeFactory.createNode("array", array1), node2 = NodeFactory.createNode("array", array2);
+        Set<Node> modifiedNodes = node1.compareTrees(node2, true, new HashSet<>(), new HashSet<>());
+        // the first and last rows
+        assertEquals(4, modifiedNodes.size());
+        assertTrue(modifiedNodes.contains(node1.getChild(0)));
+        assertTrue(modifiedNodes.contains(node2.getChild(node2.getChildrenCount() - 1)));
+        assertTrue(node1.compareTrees(NodeFactory.createNode("array", array1.clone()), true, new HashSet<>(), new HashSet<>()).isEmpty());
+        // different lengths with the same number of rows
+        node2 = NodeFactory.createNode("array", Arrays.copyOf(array1, 999_990));
+        assertEquals(2, node1.compareTrees(node2, true, new HashSet<>(), new HashSet<>()).size());
+        // arrays of primitive types with no specific node
+        Node shorts = NodeFactory.createNode("array", new short[]{1, 2, 3});
+        assertEquals(2, shorts.compareTrees(NodeFactory.createNode("array", new short[]{1, 5, 3}), true, new HashSet<>(), new HashSet<>()).size());
+        assertTrue(shorts.compareTrees(NodeFactory.createNode("array", new short[]{1, 2, 3}), true, new HashSet<>(), new HashSet<>()).isEmpty());
+    }
+
+}
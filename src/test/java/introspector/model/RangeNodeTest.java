@@ -0,0 +1,94 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+
+package introspector.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests for the paging of containers with RangeNode in the model package
+ */
+class RangeNodeTest {
+
+    @Test
+    void smallContainersNotPaged() {
+        Node node = NodeFactory.createNode("list", new ArrayList<>(List.of(1, 2, 3)), 3);
+        assertEquals(3, node.getChildrenCount());
+        assertEquals("list[2]", node.getChild(2).getName());
+    }
+
+    @Test
+    void onePageLevel() {
+        Node node = NodeFactory.createNode("list", IntStream.range(0, 25).boxed().toList(), 10);
+        assertEquals(3, node.getChildrenCount());
+        assertEquals("list[0..9]", node.getChild(0).getName());
+        assertEquals("list[20..24]", node.getChild(2).getName());
+        assertEquals(new RangeNode.Range(10, 19), node.getChild(1).getValue());
+        Node lastPage = node.getChild(2);
+        assertEquals(5, lastPage.getChildrenCount());
+        assertEquals("list[24]", lastPage.getChild(4).getName());
+        assertEquals(24, lastPage.getChild(4).getValue());
+        assertNull(lastPage.getChild(5));
+        assertNull(node.getChild(3));
+    }
+
+    @Test
+    void nestedPages() {
+        Integer[] array = IntStream.range(0, 1_050).boxed().toArray(Integer[]::new);
+        Node node = NodeFactory.createNode("array", array, 10);
+        assertEquals(2, node.getChildrenCount());
+        assertEquals("array[0..999]", node.getChild(0).getName());
+        assertEquals("array[1000..1049]", node.getChild(1).getName());
+        Node page = node.getChild(0).getChild(3);
+        assertEquals("array[300..399]", page.getName());
+        assertEquals("array[350..359]", page.getChild(5).getName());
+        assertEquals(357, page.getChild(5).getChild(7).getValue());
+        assertEquals(5, node.getChild(1).getChildrenCount());
+    }
+
+    @Test
+    void pagesCreatedOnce() {
+        Node node = NodeFactory.createNode("list", IntStream.range(0, 100).boxed().toList(), 10);
+        assertSame(node.getChild(4), node.getChild(4));
+        assertSame(node.getChild(4).getChild(2), node.getChild(4).getChild(2));
+    }
+
+    @Test
+    void pagingInherited() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("values", IntStream.range(0, 20).boxed().toList());
+        Node node = NodeFactory.createNode("map", map, 10);
+        Node values = node.getChild(0);
+        assertEquals(2, values.getChildrenCount());
+        assertEquals("map[values][10..19]", values.getChild(1).getName());
+    }
+
+    @Test
+    void comparePages() {
+        List<Integer> list1 = new ArrayList<>(IntStream.range(0, 30).boxed().toList());
+        List<Integer> list2 = new ArrayList<>(list1);
+        list2.set(15, -1);
+        Node node1 = NodeFactory.createNode("list", list1, 10);
+        Node node2 = NodeFactory.createNode("list", list2, 10);
+        Set<Node> modified = node1.compareTrees(node2, true, new HashSet<>(), new HashSet<>());
+        assertEquals(2, modified.size());
+        assertTrue(modified.contains(node1.getChild(1).getChild(5)));
+    }
+
+    @Test
+    void invalidPageSize() {
+        assertThrows(IllegalArgumentException.class, () -> NodeFactory.createNode("list", List.of(1), 1));
+    }
+
+}
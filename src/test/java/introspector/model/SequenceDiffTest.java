@@ -0,0 +1,171 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+
+package introspector.model;
+
+import introspector.model.traverse.Difference;
+import introspector.model.traverse.TreeComparator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests for the comparison of lists and arrays with edit scripts (SequenceDiff class in the model package)
+ */
+class SequenceDiffTest {
+
+    private static class Event {
+        final String type;
+        final int time;
+        Event(String type, int time) {
+            this.type = type;
+            this.time = time;
+        }
+    }
+
+    private TreeComparator treeComparator;
+
+    @BeforeEach
+    void createComparator() {
+        this.treeComparator = new TreeComparator();
+        this.treeComparator.setDiffSequences(true);
+    }
+
+    private static List<Event> events(int count) {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            events.add(new Event("event", i));
+        return events;
+    }
+
+    @Test
+    void insertionAtTheFront() {
+        List<Event> events1 = events(10_000), events2 = events(10_000);
+        events2.add(0, new Event("new", -1));
+        Node tree1 = NodeFactory.createNode("events", events1), tree2 = NodeFactory.createNode("events", events2);
+        Set<Node> modifiedNodes = this.treeComparator.compareTrees(tree1, tree2);
+        // the two lists and the new event
+        assertEquals(3, modifiedNodes.size());
+        assertTrue(modifiedNodes.contains(tree2.getChild(0)));
+        // by position, every event is different
+        assertTrue(new TreeComparator().compareTrees(tree1, tree2).size() > 10_000);
+    }
+
+    @Test
+    void replacedAndRemovedElements() {
+        Node tree1 = NodeFactory.createNode("array", new Integer[]{1, 2, 3, 4, 5, 6}),
+                tree2 = NodeFactory.createNode("array", new Integer[]{1, 2, 9, 4, 6});
+        Set<Node> modifiedNodes = this.treeComparator.compareTrees(tree1, tree2);
+        // the two arrays, 3 and 9 (replaced), and 5 (removed)
+        assertEquals(5, modifiedNodes.size());
+        assertTrue(modifiedNodes.contains(tree1.getChild(2)));
+        assertTrue(modifiedNodes.contains(tree2.getChild(2)));
+        assertTrue(modifiedNodes.contains(tree1.getChild(4)));
+        // replaced objects are compared field by field
+        List<Event> events1 = events(5), events2 = events(5);
+        events2.set(2, new Event("changed", 2));
+        modifiedNodes = this.treeComparator.compareTrees(NodeFactory.createNode("events", events1),
+                NodeFactory.createNode("events", events2));
+        assertEquals(2, modifiedNodes.size());
+    }
+
+    @Test
+    void movedElements() {
+        Node tree1 = NodeFactory.createNode("list", List.of(1, 2, 3, 4, 5, 6, 7, 8)),
+                tree2 = NodeFactory.createNode("list", List.of(1, 6, 7, 2, 3, 4, 5, 8));
+        // the lists and the moved elements (6 and 7) are modified
+        Set<Node> modifiedNodes = this.treeComparator.compareTrees(tree1, tree2);
+        assertEquals(6, modifiedNodes.size());
+        assertTrue(modifiedNodes.contains(tree1.getChild(5)));
+        assertTrue(modifiedNodes.contains(tree2.getChild(1)));
+        assertFalse(modifiedNodes.contains(tree2.getChild(3)));
+        List<Difference> differences = new ArrayList<>();
+        this.treeComparator.compareTrees(tree1, tree2, differences::add);
+        assertEquals(List.of(Difference.Kind.CHANGED, Difference.Kind.MOVED, Difference.Kind.MOVED),
+                differences.stream().map(Difference::kind).toList());
+        assertEquals("list[5]", differences.get(1).path());
+        assertTrue(this.treeComparator.areEqual(List.of(1, 2, 3), List.of(1, 2, 3)));
+        assertFalse(this.treeComparator.areEqual(List.of(1, 2, 3), List.of(3, 2, 1)));
+    }
+
+    @Test
+    void matchedElementsAreCompared() {
+        Node tree1 = NodeFactory.createNode("list", List.of("Aa", "x")),
+                tree2 = NodeFactory.createNode("list", List.of("BB", "x"));
+        // the fingerprints of different elements collide
+        ((AbstractNode) tree1.getChild(0)).setStructuralHash(42L);
+        ((AbstractNode) tree2.getChild(0)).setStructuralHash(42L);
+        Set<Node> modifiedNodes = this.treeComparator.compareTrees(tree1, tree2);
+        assertEquals(2, modifiedNodes.size());
+        assertTrue(modifiedNodes.contains(tree1.getChild(0)));
+        assertFalse(this.treeComparator.areEqual(tree1, tree2));
+    }
+
+    @Test
+    void editDistanceExceeded() {
+        int size = SequenceDiff.MAX_EDIT_DISTANCE + 1;
+        List<Integer> list1 = new ArrayList<>(), list2 = new ArrayList<>();
+        list1.add(-1);
+        for (int i = 0; i < size; i++) {
+            list1.add(i);
+            list2.add(size + i);
+        }
+        list2.add(-1);
+        Node tree1 = NodeFactory.createNode("list", list1), tree2 = NodeFactory.createNode("list", list2);
+        // the elements are compared by position: -1 is not matched as moved
+        assertTrue(this.treeComparator.compareTrees(tree1, tree2).contains(tree1.getChild(0)));
+    }
+
+    @Test
+    void longSequences() {
+        List<Integer> list1 = new ArrayList<>(), list2 = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            list1.add(i);
+            // 1,000 replaced elements: an edit distance of 2,000
+            list2.add(i % 100 == 50 ? -i : i);
+        }
+        Node tree1 = NodeFactory.createNode("list", list1), tree2 = NodeFactory.createNode("list", list2);
+        Set<Node> modifiedNodes = this.treeComparator.compareTrees(tree1, tree2);
+        assertEquals(2_000, modifiedNodes.size());
+        assertTrue(modifiedNodes.contains(tree2.getChild(99_950)));
+    }
+
+    @Test
+    void randomEdits() {
+        Random random = new Random(42);
+        for (int test = 0; test < 200; test++) {
+            List<Integer> list1 = new ArrayList<>(), list2 = new ArrayList<>();
+            int size1 = random.nextInt(30), size2 = random.nextInt(30);
+            for (int i = 0; i < size1; i++)
+                list1.add(random.nextInt(5));
+            for (int i = 0; i < size2; i++)
+                list2.add(random.nextInt(5));
+            Node tree1 = NodeFactory.createNode("list", list1), tree2 = NodeFactory.createNode("list", list2);
+            Set<Node> modifiedNodes = this.treeComparator.compareTrees(tree1, tree2);
+            // every element not in a longest common subsequence (or moved) is modified
+            int unmatched = list1.size() + list2.size() - 2 * longestCommonSubsequence(list1, list2);
+            int elements = (int) modifiedNodes.stream().filter(node -> node != tree1 && node != tree2).count();
+            assertTrue(elements <= unmatched, list1 + " " + list2);
+            assertEquals(list1.equals(list2), modifiedNodes.isEmpty(), list1 + " " + list2);
+        }
+    }
+
+    private static int longestCommonSubsequence(List<Integer> list1, List<Integer> list2) {
+        int[][] lengths = new int[list1.size() + 1][list2.size() + 1];
+        for (int i = 1; i <= list1.size(); i++)
+            for (int j = 1; j <= list2.size(); j++)
+                lengths[i][j] = list1.get(i - 1).equals(list2.get(j - 1)) ? lengths[i - 1][j - 1] + 1 :
+                        Math.max(lengths[i - 1][j], lengths[i][j - 1]);
+        return lengths[list1.size()][list2.size()];
+    }
+
+}
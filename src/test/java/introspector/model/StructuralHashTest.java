@@ -0,0 +1,68 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+
+package introspector.model;
+
+import introspector.model.traverse.TreeComparator;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests for the structural hashes of the nodes (StructuralHash class in the model package)
+ */
+class StructuralHashTest {
+
+    @Test
+    void equalTrees() {
+        Node tree1 = NodeFactory.createNode("root 1", List.of(Map.of("a", 1), new int[]{1, 2, 3}, "text")),
+                tree2 = NodeFactory.createNode("root 2", List.of(Map.of("a", 1), new int[]{1, 2, 3}, "text"));
+        assertTrue(tree1.getStructuralHash().isPresent());
+        // the name of the root is not hashed
+        assertEquals(tree1.getStructuralHash(), tree2.getStructuralHash());
+        assertEquals(tree1.getChild(1).getStructuralHash(), tree2.getChild(1).getStructuralHash());
+    }
+
+    @Test
+    void differentTrees() {
+        Node tree = NodeFactory.createNode("root", List.of(Map.of("a", 1), new int[]{1, 2, 3}));
+        assertNotEquals(tree.getStructuralHash(), NodeFactory.createNode("root", List.of(Map.of("a", 2), new int[]{1, 2, 3})).getStructuralHash());
+        assertNotEquals(tree.getStructuralHash(), NodeFactory.createNode("root", List.of(Map.of("b", 1), new int[]{1, 2, 3})).getStructuralHash());
+        assertNotEquals(tree.getStructuralHash(), NodeFactory.createNode("root", List.of(Map.of("a", 1), new long[]{1, 2, 3})).getStructuralHash());
+        assertNotEquals(tree.getStructuralHash(), NodeFactory.createNode("root", List.of(Map.of("a", 1), new int[]{1, 2})).getStructuralHash());
+        // keys with the same 32-bit hash code ("Aa" and "BB")
+        assertNotEquals(NodeFactory.createNode("root", Map.of("Aa", 1)).getStructuralHash(),
+                NodeFactory.createNode("root", Map.of("BB", 1)).getStructuralHash());
+        assertFalse(new TreeComparator(true).areEqual(Map.of("Aa", 1), Map.of("BB", 1)));
+        assertEquals(2, new TreeComparator(true).compareTrees(Map.of("Aa", 1), Map.of("BB", 1)).size());
+    }
+
+    @Test
+    void cycles() {
+        List<Object> list1 = new ArrayList<>(List.of(1)), list2 = new ArrayList<>(List.of(1));
+        list1.add(list1);
+        list2.add(list2);
+        Node tree1 = NodeFactory.createNode("root", list1), tree2 = NodeFactory.createNode("root", list2);
+        // the root of a cycle has a hash, but the nodes with cycles to their ancestors do not
+        assertTrue(tree1.getStructuralHash().isPresent());
+        assertEquals(tree1.getStructuralHash(), tree2.getStructuralHash());
+        assertTrue(tree1.getChild(0).getStructuralHash().isPresent());
+        List<Object> first = new ArrayList<>(), second = new ArrayList<>(List.of(first));
+        first.add(second);
+        Node tree = NodeFactory.createNode("root", first);
+        assertTrue(tree.getStructuralHash().isPresent());
+        assertTrue(tree.getChild(0).getStructuralHash().isEmpty());
+        List<Object> list3 = new ArrayList<>(List.of(1));
+        list3.add(List.of(1, list3));
+        assertNotEquals(tree1.getStructuralHash(), NodeFactory.createNode("root", list3).getStructuralHash());
+    }
+
+}
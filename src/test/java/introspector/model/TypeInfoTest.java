@@ -0,0 +1,49 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+
+package introspector.model;
+
+import org.junit.jupiter.api.Test;
+
+import javax.lang.model.type.NullType;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests for the TypeInfo class in the model package
+ */
+class TypeInfoTest {
+
+    enum Color { RED }
+
+    @Test
+    void kinds() {
+        assertAll(
+                () -> assertEquals(TypeInfo.Kind.BUILTIN, TypeInfo.of(int.class).getKind()),
+                () -> assertEquals(TypeInfo.Kind.BUILTIN, TypeInfo.of(String.class).getKind()),
+                () -> assertEquals(TypeInfo.Kind.BUILTIN, TypeInfo.of(NullType.class).getKind()),
+                () -> assertEquals(TypeInfo.Kind.ENUM, TypeInfo.of(Color.class).getKind()),
+                () -> assertEquals(TypeInfo.Kind.COLLECTION, TypeInfo.of(ArrayList.class).getKind()),
+                () -> assertEquals(TypeInfo.Kind.MAP, TypeInfo.of(TreeMap.class).getKind()),
+                () -> assertEquals(TypeInfo.Kind.ARRAY, TypeInfo.of(Object[].class).getKind()),
+                () -> assertEquals(TypeInfo.Kind.OPTIONAL, TypeInfo.of(Optional.class).getKind()),
+                () -> assertEquals(TypeInfo.Kind.OBJECT, TypeInfo.of(Object.class).getKind())
+        );
+    }
+
+    @Test
+    void namesCached() {
+        TypeInfo info = TypeInfo.of(Color.class);
+        assertSame(info, TypeInfo.of(Color.class));
+        assertEquals("Color", info.getSimpleName());
+        assertEquals(Color.class.getName(), info.getName());
+    }
+
+}
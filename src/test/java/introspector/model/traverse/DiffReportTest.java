@@ -0,0 +1,123 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.model.traverse;
+
+import introspector.model.Node;
+import introspector.model.NodeFactory;
+import introspector.model.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the differences reported while two trees are compared (DiffReport and Difference classes
+ * in the model.traverse package)
+ */
+class DiffReportTest {
+
+    static class Person {
+        String name;
+        Object info;
+        Person(String name, Object info) {
+            this.name = name;
+            this.info = info;
+        }
+    }
+
+    /**
+     * Node that compares its whole subtree at once, like the default implementation of Node.compareNode
+     */
+    static class WholeSubtreeNode extends ObjectNode {
+        WholeSubtreeNode(String name, Object value) {
+            super(name, value);
+        }
+
+        @Override
+        public Set<Node> compareTrees(Node node2, boolean equalName, Set<Node> modifiedNodes, Set<SymmetricPair<Node, Node>> alreadyTraversed) {
+            ComparisonEngine engine = new ComparisonEngine(modifiedNodes, alreadyTraversed);
+            super.compareNode(node2, equalName, engine);
+            while (engine.hasPendingComparisons())
+                engine.step();
+            return modifiedNodes;
+        }
+
+        @Override
+        public void compareNode(Node node2, boolean equalName, ComparisonEngine engine) {
+            this.compareTrees(node2, equalName, engine.getModifiedNodes(), engine.getAlreadyTraversed());
+        }
+    }
+
+    private final TreeComparator treeComparator = new TreeComparator();
+
+    @Test
+    void kindsOfDifferences() {
+        Map<String, Object> map1 = new HashMap<>(Map.of("alice", new Person("Alice", 20), "bob", new Person("Bob", new ArrayList<>(List.of(1, 2))),
+                "carol", new Person("Carol", 1))),
+                map2 = new HashMap<>(Map.of("alice", new Person("Alice", 21), "bob", new Person("Bob", new ArrayList<>(List.of(1, 2, 3))),
+                "carol", new Person("Carol", "one"), "dave", new Person("Dave", null)));
+        map1.put("eve", 0);
+        List<Difference> differences = new ArrayList<>();
+        DiffReport report = treeComparator.compareTrees(NodeFactory.createNode("root", map1),
+                NodeFactory.createNode("root", map2), differences::add);
+        assertEquals(differences.size(), report.getTotalCount());
+        assertEquals(2, report.getCount(Difference.Kind.ADDED)); // dave and bob.info[2]
+        assertEquals(1, report.getCount(Difference.Kind.REMOVED)); // eve
+        assertEquals(1, report.getCount(Difference.Kind.TYPE_CHANGED)); // carol.info
+        Difference age = find(differences, "root[alice].info");
+        assertEquals(Difference.Kind.CHANGED, age.kind());
+        assertEquals(20, age.getOldValue());
+        assertEquals(21, age.getNewValue());
+        assertEquals(Difference.Kind.ADDED, find(differences, "root[bob].info[2]").kind());
+        assertEquals(Difference.Kind.ADDED, find(differences, "root[dave]").kind());
+        assertEquals(Difference.Kind.REMOVED, find(differences, "root[eve]").kind());
+        assertEquals(1L, report.getTypeCounts().get(Person.class)); // dave
+    }
+
+    @Test
+    void sameDifferencesAsModifiedNodes() {
+        List<Object> list1 = List.of(new Person("Alice", 1), new Person("Bob", new int[]{1, 2}), "same"),
+                list2 = List.of(new Person("Alice", 2), new Person("Bob", new int[]{1, 3}), "same", 4);
+        DiffReport report = treeComparator.compareTrees(list1, list2, null);
+        // changed nodes are two modified nodes; added and removed nodes, one
+        int modifiedNodes = treeComparator.compareTrees(list1, list2).size();
+        assertEquals(modifiedNodes, 2 * (report.getCount(Difference.Kind.CHANGED) + report.getCount(Difference.Kind.TYPE_CHANGED)) +
+                report.getCount(Difference.Kind.ADDED) + report.getCount(Difference.Kind.REMOVED));
+        assertTrue(treeComparator.compareTrees(list1, list1, null).isEmpty());
+        assertEquals(1, treeComparator.compareTrees(null, list1, null).getCount(Difference.Kind.ADDED));
+    }
+
+    @Test
+    void differencesOfWholeSubtrees() {
+        Person person1 = new Person("Alice", new ArrayList<>(List.of(20, 1))),
+                person2 = new Person("Alice", new ArrayList<>(List.of(21, 1, 2)));
+        List<Difference> differences = new ArrayList<>();
+        new ComparisonEngine(new NodePairSet(), differences::add)
+                .compare(new WholeSubtreeNode("root", person1), new WholeSubtreeNode("root", person2), true);
+        // the lists have different sizes, so they are changed too
+        assertEquals(List.of(Difference.Kind.CHANGED, Difference.Kind.ADDED, Difference.Kind.CHANGED),
+                differences.stream().map(Difference::kind).toList());
+        assertTrue(differences.stream().allMatch(difference -> difference.kind() == Difference.Kind.ADDED ?
+                difference.node1() == null : difference.node1() != null && difference.node2() != null));
+        Difference changed = find(differences, "root.info[0]");
+        assertEquals(20, changed.getOldValue());
+        assertEquals(21, changed.getNewValue());
+        assertEquals(2, find(differences, "root.info[2]").getNewValue());
+        DiffReport report = treeComparator.compareTrees(new WholeSubtreeNode("root", person2),
+                new WholeSubtreeNode("root", person1), null);
+        assertEquals(2, report.getCount(Difference.Kind.CHANGED));
+        assertEquals(1, report.getCount(Difference.Kind.REMOVED));
+    }
+
+    private static Difference find(List<Difference> differences, String path) {
+        return differences.stream().filter(difference -> difference.path().equals(path)).findFirst()
+                .orElseThrow(() -> new AssertionError(path + " not in " + differences));
+    }
+
+}
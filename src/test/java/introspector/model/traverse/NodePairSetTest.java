@@ -0,0 +1,64 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+
+package introspector.model.traverse;
+
+import introspector.model.Node;
+import introspector.model.NodeFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests for the NodePairSet class in the traverse package
+ */
+class NodePairSetTest {
+
+    @Test
+    void symmetricPairsOfValues() {
+        List<Object> list1 = new ArrayList<>(), list2 = new ArrayList<>();
+        Node node1 = NodeFactory.createNode("list1", list1), node2 = NodeFactory.createNode("list2", list2);
+        NodePairSet set = new NodePairSet();
+        assertTrue(set.add(node1, node2));
+        assertFalse(set.add(node2, node1));
+        assertFalse(set.add(new SymmetricPair<>(NodeFactory.createNode("alias", list1), node2)));
+        assertTrue(set.contains(new SymmetricPair<>(node2, node1)));
+        assertFalse(set.contains(node1, node1));
+        assertEquals(1, set.size());
+        assertEquals(Set.of(new SymmetricPair<>(node1, node2)), new HashSet<>(set));
+    }
+
+    @Test
+    void manyPairs() {
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            nodes.add(NodeFactory.createNode("list", new ArrayList<>()));
+        NodePairSet set = new NodePairSet();
+        for (int i = 0; i < 100; i++)
+            for (int j = i; j < 100; j++)
+                assertTrue(set.add(nodes.get(i), nodes.get(j)));
+        assertEquals(100 * 101 / 2, set.size());
+        for (int i = 0; i < 100; i++)
+            for (int j = 0; j < 100; j++)
+                assertTrue(set.contains(nodes.get(j), nodes.get(i)));
+    }
+
+    @Test
+    void cyclesDetected() {
+        List<Object> list1 = new ArrayList<>(), list2 = new ArrayList<>();
+        list1.add(list1);
+        list2.add(list2);
+        Set<Node> modified = NodeFactory.createNode("root", list1).compareTrees(NodeFactory.createNode("root", list2),
+                true, new HashSet<>(), new NodePairSet());
+        assertTrue(modified.isEmpty());
+    }
+
+}
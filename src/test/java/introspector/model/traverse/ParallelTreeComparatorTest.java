@@ -0,0 +1,100 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+package introspector.model.traverse;
+
+import introspector.model.Node;
+import introspector.model.NodeFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the ParallelTreeComparator class in the traverse package
+ */
+class ParallelTreeComparatorTest {
+
+    private static class Item {
+        String name;
+        int[] values;
+        Item next;
+        Item(String name, int... values) {
+            this.name = name;
+            this.values = values;
+        }
+    }
+
+    private static List<Item> createItems(int count, int modified) {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            items.add(new Item("item " + i, i, i == modified ? -1 : i + 1));
+        for (int i = 0; i < count; i++)
+            items.get(i).next = items.get((i + 1) % count); // cycles
+        return items;
+    }
+
+    @Test
+    void sameModifiedNodes() {
+        List<Item> items1 = createItems(2000, -1), items2 = createItems(2000, 1234);
+        Node tree1 = NodeFactory.createNode("items", items1), tree2 = NodeFactory.createNode("items", items2);
+        Set<Node> sequential = new TreeComparator().compareTrees(tree1, tree2);
+        Set<Node> parallel = new ParallelTreeComparator(ForkJoinPool.commonPool(), 16).compareTrees(tree1, tree2);
+        assertEquals(2, sequential.size());
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    void differentSizes() {
+        List<Item> items1 = createItems(1000, -1), items2 = createItems(1001, -1);
+        items1.get(999).next = items2.get(1000).next = null; // no cycles
+        Node tree1 = NodeFactory.createNode("items", items1), tree2 = NodeFactory.createNode("items", items2);
+        Set<Node> sequential = new TreeComparator().compareTrees(tree1, tree2);
+        Set<Node> parallel = new ParallelTreeComparator().compareTrees(tree1, tree2);
+        assertFalse(parallel.isEmpty());
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    void equalTrees() {
+        List<Item> items = createItems(1000, -1);
+        assertTrue(new ParallelTreeComparator(new ForkJoinPool(4), 2).compareTrees(
+                NodeFactory.createNode("items", items), NodeFactory.createNode("items", items)).isEmpty());
+        assertTrue(new ParallelTreeComparator().compareTrees((Object) null, null).isEmpty());
+    }
+
+    @Test
+    void sameChildrenInConcurrentTasks() throws Exception {
+        int taskCount = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(taskCount);
+        try {
+            for (int test = 0; test < 50; test++) {
+                Node tree = NodeFactory.createNode("items", createItems(500, -1));
+                CyclicBarrier start = new CyclicBarrier(taskCount);
+                // the elements and their fields are created concurrently
+                List<Callable<List<Node>>> tasks = Collections.nCopies(taskCount, () -> {
+                    start.await();
+                    List<Node> taskNodes = new ArrayList<>();
+                    for (int i = 0; i < 500; i++) {
+                        Node child = tree.getChild(i);
+                        taskNodes.add(child);
+                        taskNodes.add(child.getChild(0));
+                    }
+                    return taskNodes;
+                });
+                List<Future<List<Node>>> nodes = executor.invokeAll(tasks);
+                for (Future<List<Node>> taskNodes : nodes)
+                    for (int i = 0; i < taskNodes.get().size(); i++)
+                        assertSame(nodes.get(0).get().get(i), taskNodes.get().get(i));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
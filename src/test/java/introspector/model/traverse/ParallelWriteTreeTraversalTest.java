@@ -0,0 +1,93 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+package introspector.model.traverse;
+
+import introspector.model.NodeFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the ParallelWriteTreeTraversal class in the traverse package
+ */
+class ParallelWriteTreeTraversalTest {
+
+    private static class Person {
+        String name;
+        List<Person> friends = new ArrayList<>();
+        Map<String, Integer> scores = new TreeMap<>();
+        Person(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * A graph with cycles and aliases
+     */
+    private static List<Person> createPeople() {
+        List<Person> people = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Person person = new Person("Person " + i);
+            person.scores.put("score", i);
+            people.add(person);
+        }
+        for (int i = 0; i < people.size(); i++) {
+            people.get(i).friends.add(people.get((i + 1) % people.size()));
+            people.get(i).friends.add(people.get((i * 7) % people.size()));
+        }
+        return people;
+    }
+
+    @Test
+    void sameTxtOutput() throws IOException {
+        List<Person> people = createPeople();
+        StringWriter sequential = new StringWriter(), parallel = new StringWriter();
+        new WriteTreeTraversal().traverse(NodeFactory.createNode("people", people), new TxtTreeSerializer(sequential));
+        for (int subtreeSize : new int[]{1, 3, 100, ParallelWriteTreeTraversal.DEFAULT_SUBTREE_SIZE}) {
+            parallel.getBuffer().setLength(0);
+            new ParallelWriteTreeTraversal(ForkJoinPool.commonPool(), subtreeSize)
+                    .traverse(NodeFactory.createNode("people", people), new TxtTreeSerializer(parallel));
+            assertEquals(sequential.toString(), parallel.toString());
+        }
+        assertTrue(sequential.toString().contains("<revisited node>"));
+    }
+
+    @Test
+    void sameHtmlOutput() throws IOException {
+        List<Person> people = createPeople();
+        StringWriter sequential = new StringWriter(), parallel = new StringWriter();
+        new WriteTreeTraversal().traverse(NodeFactory.createNode("people", people), new HtmlTreeSerializer(sequential, false));
+        new ParallelWriteTreeTraversal(new ForkJoinPool(4), 10)
+                .traverse(NodeFactory.createNode("people", people), new HtmlTreeSerializer(parallel, false));
+        assertEquals(sequential.toString(), parallel.toString());
+    }
+
+    @Test
+    void boundedPendingTasks() throws IOException {
+        List<Person> people = createPeople();
+        StringWriter sequential = new StringWriter(), parallel = new StringWriter();
+        new WriteTreeTraversal().traverse(NodeFactory.createNode("people", people), new TxtTreeSerializer(sequential));
+        for (int maxPendingTasks : new int[]{1, 2, 7}) {
+            parallel.getBuffer().setLength(0);
+            new ParallelWriteTreeTraversal(new ForkJoinPool(4), 5, maxPendingTasks)
+                    .traverse(NodeFactory.createNode("people", people), new TxtTreeSerializer(parallel));
+            assertEquals(sequential.toString(), parallel.toString());
+        }
+    }
+
+    @Test
+    void invalidSubtreeSize() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelWriteTreeTraversal(ForkJoinPool.commonPool(), 0));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelWriteTreeTraversal(ForkJoinPool.commonPool(), 10, 0));
+    }
+
+}
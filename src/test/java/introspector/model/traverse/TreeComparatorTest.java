@@ -7,6 +7,7 @@
 package introspector.model.traverse;
 import javax.swing.tree.TreePath;
 
+import introspector.model.Node;
 import introspector.model.NodeFactory;
 import introspector.model.traverse.TreeComparator;
 import org.junit.jupiter.api.Test;
@@ -160,6 +161,84 @@ class TreeComparatorTest {
         assertLength(treeComparator.compareTrees(createNode("root 1", map3), createNode("root 2", map4)), 2);
     }
 
+    @Test
+    void testCompareMapByKey() {
+        // keys that are not comparable keep the iteration order of the maps
+        Map<Person, Integer> map1 = new HashMap<>(), map2 = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            Person key = new Person("Person " + i, i, null);
+            map1.put(key, i);
+            map2.put(key, i);
+        }
+        map2.put(new Person("Alice", 20, null), -1);
+        Node tree1 = NodeFactory.createNode("root", map1), tree2 = NodeFactory.createNode("root", map2);
+        // the two maps and the new entry
+        Set<Node> modifiedNodes = treeComparator.compareTrees(tree1, tree2);
+        assertLength(modifiedNodes, 3);
+        assertTrue(modifiedNodes.contains(tree1));
+        map1.put(new Person("Bob", 30, null), -1);
+        // the same size, but one entry in each map with a key that is not in the other one
+        assertLength(treeComparator.compareTrees(NodeFactory.createNode("root", map1), NodeFactory.createNode("root", map2)), 2);
+        // distinct key instances (equals is not overridden) with the same names
+        Map<Key, Integer> keys1 = new HashMap<>(), keys2 = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            keys1.put(new Key(i), i);
+            keys2.put(new Key(i), i == 42 ? -1 : i);
+        }
+        assertTrue(treeComparator.areEqual(keys1, new HashMap<>(keys1)));
+        Set<Node> modifiedEntries = treeComparator.compareTrees(NodeFactory.createNode("root", keys1), NodeFactory.createNode("root", keys2));
+        // only the value of the key 42
+        assertLength(modifiedEntries, 2);
+        assertTrue(modifiedEntries.stream().allMatch(node -> node.getName().startsWith("root[K42]")));
+        keys2.remove(keys2.keySet().iterator().next());
+        keys2.put(new Key(-1), -1);
+        assertFalse(treeComparator.areEqual(keys1, keys2));
+    }
+
+    static class Key {
+        final int id;
+        Key(int id) {
+            this.id = id;
+        }
+        @Override
+        public String toString() {
+            return "K" + this.id;
+        }
+    }
+
+    @Test
+    void testCompareSets() {
+        Set<Person> set1 = new LinkedHashSet<>(List.of(new Person("Alice", 20, null), new Person("Bob", 30, null),
+                new Person("Carol", 40, null)));
+        Set<Person> set2 = new LinkedHashSet<>(List.of(new Person("Carol", 40, null), new Person("Bob", 30, null),
+                new Person("Alice", 20, null)));
+        assertEmpty(treeComparator.compareTrees(createNode("root", set1), createNode("root", set2)));
+        set2.add(new Person("Dave", 50, null));
+        // the two sets and the new element
+        assertLength(treeComparator.compareTrees(createNode("root", set1), createNode("root", set2)), 3);
+        set1.add(new Person("Dave", 51, null));
+        // only the unmatched elements are compared: the different ages
+        assertLength(treeComparator.compareTrees(createNode("root", set1), createNode("root", set2)), 2);
+    }
+
+    @Test
+    void testCompareNestedSets() {
+        Set<Set<Person>> set1 = new LinkedHashSet<>(List.of(
+                new LinkedHashSet<>(List.of(new Person("Alice", 20, null), new Person("Bob", 30, null))),
+                new LinkedHashSet<>(List.of(new Person("Carol", 40, null)))));
+        Set<Set<Person>> set2 = new LinkedHashSet<>(List.of(
+                new LinkedHashSet<>(List.of(new Person("Carol", 40, null))),
+                new LinkedHashSet<>(List.of(new Person("Bob", 30, null), new Person("Alice", 20, null)))));
+        // the elements are matched (and confirmed) in the engine that compares the sets
+        assertEmpty(treeComparator.compareTrees(createNode("root", set1), createNode("root", set2)));
+        List<Difference> differences = new ArrayList<>();
+        treeComparator.compareTrees(NodeFactory.createNode("root", set1), NodeFactory.createNode("root", set2), differences::add);
+        assertTrue(differences.isEmpty());
+        // the inner sets are compared by position: only the different age is modified
+        new ArrayList<>(new ArrayList<>(set2).get(1)).get(1).age = 21;
+        assertLength(treeComparator.compareTrees(createNode("root", set1), createNode("root", set2)), 2);
+    }
+
     @Test
     void testCompareObjectRight() {
         assertEmpty(treeComparator.compareTrees(createNode("root 1", new Person("Alice", 20, null)),
@@ -198,6 +277,76 @@ class TreeComparatorTest {
         assertEmpty(treeComparator.compareTrees(createNode("root 1",alice), createNode("root 2", alice)));
     }
 
+    @Test
+    void testDeepChains() {
+        final int length = 50_000;
+        Person first1 = new Person("Alice", 0, null), first2 = new Person("Alice", 0, null);
+        Person last1 = first1, last2 = first2;
+        for (int i = 1; i < length; i++) {
+            Person next1 = new Person("Bob", i, null), next2 = new Person("Bob", i == length / 2 ? -1 : i, null);
+            last1.setChild(next1);
+            last2.setChild(next2);
+            last1 = next1;
+            last2 = next2;
+        }
+        // only the modified age (and no StackOverflowError)
+        assertLength(treeComparator.compareTrees(createNode("root", first1), createNode("root", first2)), 2);
+    }
+
+    @Test
+    void testStructuralHashes() {
+        TreeComparator hashComparator = new TreeComparator(true);
+        Person alice = new Person("Alice", 20, null);
+        alice.setChild(alice);
+        assertEmpty(hashComparator.compareTrees(createNode("root 1", alice), createNode("root 2", alice)));
+        Map<String, Object> map1 = new HashMap<>(Map.of("a", List.of(1, 2), "b", new Person("Bob", 30, "x"))),
+                map2 = new HashMap<>(Map.of("a", List.of(1, 2), "b", new Person("Bob", 30, "y")));
+        Node tree1 = NodeFactory.createNode("root", map1), tree2 = NodeFactory.createNode("root", map2);
+        // the same differences with and without structural hashes
+        assertEquals(treeComparator.compareTrees(tree1, tree2), hashComparator.compareTrees(tree1, tree2));
+        assertLength(hashComparator.compareTrees(tree1, tree2), 2);
+        map2.put("b", new Person("Bob", 30, "x"));
+        assertEmpty(hashComparator.compareTrees(NodeFactory.createNode("root", map1), NodeFactory.createNode("root", map2)));
+        // values with the same 32-bit hash code have different structural hashes
+        assertFalse(hashComparator.areEqual(List.of("Aa", "x"), List.of("BB", "x")));
+        assertFalse(hashComparator.areEqual(List.of(0L, 1L), List.of(-1L, 1L)));
+        assertFalse(hashComparator.areEqual(new long[]{0L, 1L}, new long[]{-1L, 1L}));
+        // Thue-Morse strings collide in polynomial hashes modulo 2^64
+        StringBuilder thueMorse1 = new StringBuilder(), thueMorse2 = new StringBuilder();
+        for (int i = 0; i < 4096; i++) {
+            boolean odd = Integer.bitCount(i) % 2 == 1;
+            thueMorse1.append(odd ? 'a' : 'b');
+            thueMorse2.append(odd ? 'b' : 'a');
+        }
+        assertFalse(hashComparator.areEqual(List.of(thueMorse1.toString()), List.of(thueMorse2.toString())));
+    }
+
+    @Test
+    void testAreEqual() {
+        assertTrue(treeComparator.areEqual(null, null));
+        assertFalse(treeComparator.areEqual(null, 1));
+        assertTrue(treeComparator.areEqual(NodeFactory.createNode("root 1", new Person("Alice", 20, List.of(1, 2))),
+                NodeFactory.createNode("root 2", new Person("Alice", 20, List.of(1, 2)))));
+        assertFalse(treeComparator.areEqual(NodeFactory.createNode("root 1", new Person("Alice", 20, List.of(1, 2))),
+                NodeFactory.createNode("root 2", new Person("Alice", 20, List.of(1, 3)))));
+        assertFalse(treeComparator.areEqual(new int[]{1, 2, 3}, new int[]{1, 2}));
+        Person alice = new Person("Alice", 20, null);
+        alice.setChild(alice);
+        assertTrue(treeComparator.areEqual(alice, alice));
+        // the first difference is found in a deep chain (and no StackOverflowError)
+        Person first1 = new Person("Alice", 0, null), first2 = new Person("Alice", 0, null);
+        Person last1 = first1, last2 = first2;
+        for (int i = 1; i < 50_000; i++) {
+            Person next1 = new Person("Bob", i, null), next2 = new Person("Bob", i == 10 ? -1 : i, null);
+            last1.setChild(next1);
+            last2.setChild(next2);
+            last1 = next1;
+            last2 = next2;
+        }
+        assertFalse(treeComparator.areEqual(first1, first2));
+        assertFalse(new TreeComparator(true).areEqual(first1, first2));
+    }
+
     private TreePath createNode(String name, Object value) {
         return new TreePath(NodeFactory.createNode(name, value));
     }
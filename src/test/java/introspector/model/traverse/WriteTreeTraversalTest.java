@@ -154,4 +154,29 @@ class WriteTreeTraversalTest {
         walker.traverse(NodeFactory.createNode("object", dummyObject), new ConsoleTreeSerializer());
     }
 
-}
\ No newline at end of file
+    private static class Link {
+        Link next;
+    }
+
+    @Test
+    void traverseDeepChain() throws IOException {
+        final int length = 100_000;
+        Link first = new Link(), last = first;
+        for (int i = 1; i < length; i++) {
+            last.next = new Link();
+            last = last.next;
+        }
+        TreeSerializerMock serializer = new TreeSerializerMock();
+        WriteTreeTraversal walker = new WriteTreeTraversal();
+        // no StackOverflowError
+        walker.traverse(NodeFactory.createNode("chain", first), serializer);
+        // one node per link plus the null reference of the last one
+        assertEquals(length + 1, serializer.traversingList.size());
+        assertEquals(length, serializer.traversingList.get(length).depth());
+        assertEquals(serializer.traversingList.get(length), serializer.afterTraversingList.get(0));
+        assertEquals(serializer.traversingList.get(0), serializer.afterTraversingList.get(length));
+        // the frame stack is reused
+        walker.traverse(NodeFactory.createNode("chain", first), new TreeSerializerMock());
+    }
+
+}
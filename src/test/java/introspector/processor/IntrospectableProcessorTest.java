@@ -0,0 +1,97 @@
+/**
+ * Introspector, a tool to visualize as trees the structure of runtime Java programs.
+ * Copyright (c) <a href="https://reflection.uniovi.es/ortin/">Francisco Ortin</a>.
+ * MIT license.
+ * @author Francisco Ortin
+ */
+
+package introspector.processor;
+
+import introspector.model.Introspectable;
+import introspector.model.IntrospectionAdapter;
+import introspector.model.Node;
+import introspector.model.NodeFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the adapters generated by the IntrospectableProcessor when compiling the tests
+ */
+class IntrospectableProcessorTest {
+
+    /**
+     * Dummy class for testing purposes.
+     */
+    @Introspectable
+    static class Person {
+        private static final long serialVersionUID = 1L;
+        final String name;
+        private final String nickname;
+        private final boolean active = true;
+        int[] scores = {1, 2};
+
+        Person(String name, String nickname) {
+            this.name = name;
+            this.nickname = nickname;
+        }
+
+        // the adapter reads the field, not the value computed by its getter
+        String getNickname() {
+            return this.nickname.toUpperCase();
+        }
+    }
+
+    /**
+     * Dummy class for testing purposes.
+     */
+    @Introspectable
+    static class Employee extends Person {
+        protected List<String> roles = List.of("dev");
+
+        Employee() {
+            super("Ann", "annie");
+        }
+    }
+
+    /**
+     * Dummy record for testing purposes.
+     */
+    @Introspectable
+    record Point(int x, int y) {}
+
+    @Test
+    void adapterGenerated() throws ReflectiveOperationException {
+        Class<?> adapterClass = Class.forName(Person.class.getName() + IntrospectionAdapter.CLASS_NAME_SUFFIX);
+        IntrospectionAdapter<?> adapter = (IntrospectionAdapter<?>) adapterClass.getConstructor().newInstance();
+        assertArrayEquals(new String[]{"serialVersionUID", "name", "nickname", "active", "scores"}, adapter.getFieldNames());
+        assertArrayEquals(new Class<?>[]{long.class, String.class, String.class, boolean.class, int[].class}, adapter.getFieldTypes());
+    }
+
+    @Test
+    void childrenReadWithAdapters() {
+        Node node = NodeFactory.createNode("employee", new Employee());
+        assertEquals(6, node.getChildrenCount());
+        assertEquals("roles", node.getChild(0).getName());
+        assertEquals(List.of("dev"), node.getChild(0).getValue());
+        assertEquals("serialVersionUID", node.getChild(1).getName());
+        assertEquals(1L, node.getChild(1).getValue());
+        assertEquals("Ann", node.getChild(2).getValue());
+        assertEquals("nickname", node.getChild(3).getName());
+        assertEquals("annie", node.getChild(3).getValue());
+        assertEquals(true, node.getChild(4).getValue());
+    }
+
+    @Test
+    void recordReadWithAdapter() {
+        Node node = NodeFactory.createNode("point", new Point(1, 2));
+        assertEquals(2, node.getChildrenCount());
+        assertEquals("x", node.getChild(0).getName());
+        assertEquals(1, node.getChild(0).getValue());
+        assertEquals("y", node.getChild(1).getName());
+        assertEquals(2, node.getChild(1).getValue());
+    }
+
+}